@@ -0,0 +1,168 @@
+package com.app.prompt_engg.services;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.app.prompt_engg.models.ScenarioAnalysisRequest;
+import com.app.prompt_engg.models.ScenarioAnalysisResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Micro-benchmarks for the CPU-bound parts of the analysis pipeline, run against a small and a
+ * large model output. The end-to-end benchmark uses a fake upstream that answers immediately and
+ * has the cache and the persistent store disabled, so every invocation goes through prompt building and parsing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AiServiceBenchmark {
+
+	private static final String PROMPT = "generate: 1. short summary 2. List of (pitfalls_or_risks) "
+			+ "3. List of (proposed_strategies) 4. List of (recommended_resources) "
+			+ "5. short (disclaimer) on AI limitations based on Scenario: [scenarios] "
+			+ "Constraints: [constraints] json response with same keys";
+
+	/**
+	 * Upstream stand-in that returns a canned model output without any I/O.
+	 */
+	static class FakeUpstreamAiService extends AiService {
+		private final String output;
+
+		FakeUpstreamAiService(String output) {
+			this.output = output;
+		}
+
+		@Override
+		protected CompletableFuture<String> callApiAsync(String prompt, String model) {
+			return CompletableFuture.completedFuture(output);
+		}
+	}
+
+	@Param({ "small", "large" })
+	public String size;
+
+	private FakeUpstreamAiService service;
+	private ScenarioAnalysisRequest request;
+	private String apiOutput;
+	private ScenarioAnalysisResponse response;
+	private ObjectMapper plainMapper;
+	private ObjectMapper blackbirdMapper;
+
+	@Setup
+	public void setup() throws Exception {
+		((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+		int items = size.equals("small") ? 3 : 40;
+		int sentenceRepeats = size.equals("small") ? 1 : 6;
+		apiOutput = modelOutput(items, sentenceRepeats);
+
+		request = new ScenarioAnalysisRequest();
+		request.setScenario("Our team has a new client project with a tight deadline and limited budget. ".repeat(sentenceRepeats));
+		List<String> constraints = new ArrayList<>();
+		for (int i = 0; i < items / 2 + 1; i++) {
+			constraints.add("Constraint " + i + ": budget of $" + (10_000 + i) + " and deadline of " + (i + 1) + " weeks");
+		}
+		request.setConstraints(constraints);
+
+		service = new FakeUpstreamAiService(apiOutput);
+		PromptTemplates templates = new PromptTemplates(PROMPT, Map.of());
+		ReflectionTestUtils.setField(service, "templates", templates);
+		ReflectionTestUtils.setField(service, "admission", new AdmissionControl(templates, 20_000, 100, 500, 8_000, false, "o200k_base"));
+		ReflectionTestUtils.setField(service, "cache", new AnalysisCache(0, Duration.ofMinutes(1)));
+		ReflectionTestUtils.setField(service, "store", new AnalysisStore(false, Path.of("unused"), Duration.ofDays(1), 16, new ObjectMapper()));
+		ReflectionTestUtils.setField(service, "inFlightLimiter", new InFlightLimiter(Integer.MAX_VALUE));
+		ReflectionTestUtils.setField(service, "governor", new RateLimitGovernor(Long.MAX_VALUE / 2, Long.MAX_VALUE / 2, 0, 0, Duration.ofSeconds(1), 0));
+		ReflectionTestUtils.setField(service, "breaker", new CircuitBreaker(50, 10, 0.5, Duration.ofSeconds(20), 0.8, Duration.ofSeconds(30), 3));
+		ReflectionTestUtils.setField(service, "singleFlight", new SingleFlight());
+		ReflectionTestUtils.setField(service, "cluster", new ClusterCache(false, "", List.of(), 128, Duration.ofMillis(500), "", new ObjectMapper()));
+		AnalysisMetrics metrics = new AnalysisMetrics(new SimpleMeterRegistry(), ObservationRegistry.NOOP);
+		ReflectionTestUtils.setField(service, "metrics", metrics);
+		ReflectionTestUtils.setField(service, "router", new ModelRouter("gpt-4o", "", List.of()));
+		ReflectionTestUtils.setField(service, "hedger", new RequestHedger(false, 0.95, Duration.ofSeconds(1), 20, metrics));
+		ReflectionTestUtils.setField(service, "analysisExecutor", (Executor) Runnable::run);
+
+		response = service.parseApiResponse(apiOutput);
+		plainMapper = new ObjectMapper();
+		blackbirdMapper = JsonMapper.builder().addModule(new BlackbirdModule()).build();
+	}
+
+	@Benchmark
+	public String buildPrompt() {
+		return service.buildPrompt(request);
+	}
+
+	@Benchmark
+	public String cacheKey() {
+		return service.cacheKey(request);
+	}
+
+	@Benchmark
+	public ScenarioAnalysisResponse parseApiResponse() throws Exception {
+		return service.parseApiResponse(apiOutput);
+	}
+
+	@Benchmark
+	public byte[] serializeResponse() throws Exception {
+		return plainMapper.writeValueAsBytes(response);
+	}
+
+	@Benchmark
+	public byte[] serializeResponseBlackbird() throws Exception {
+		return blackbirdMapper.writeValueAsBytes(response);
+	}
+
+	@Benchmark
+	public ScenarioAnalysisResponse generateAnalysis() {
+		return service.generateAnalysis(request);
+	}
+
+	/**
+	 * Builds a model output shaped like real GPT-4o answers: fenced JSON with a short summary key,
+	 * several list sections and a disclaimer.
+	 */
+	private static String modelOutput(int items, int sentenceRepeats) {
+		String sentence = "Consider the impact on scope, schedule and team capacity before committing. ".repeat(sentenceRepeats);
+		StringBuilder out = new StringBuilder("Here is the analysis you asked for:\n```json\n{\n");
+		out.append("  \"short_summary\": \"").append(sentence).append("\",\n");
+		for (String section : List.of("pitfalls_or_risks", "proposed_strategies", "recommended_resources")) {
+			out.append("  \"").append(section).append("\": [\n");
+			for (int i = 0; i < items; i++) {
+				out.append("    \"Item ").append(i).append(": ").append(sentence).append('"');
+				out.append(i < items - 1 ? ",\n" : "\n");
+			}
+			out.append("  ],\n");
+		}
+		out.append("  \"disclaimer\": \"This analysis is AI generated and may be incomplete.\"\n}\n```");
+		return out.toString();
+	}
+}
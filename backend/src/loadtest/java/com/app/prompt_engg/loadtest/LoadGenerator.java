@@ -0,0 +1,113 @@
+package com.app.prompt_engg.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Open-loop load generator for POST /analyser. Requests are issued at a fixed target rate whether
+ * or not earlier ones have completed, so queueing in the service shows up in the latencies instead
+ * of silently lowering the offered load.
+ *
+ * Options: --url=http://localhost:8080/analyser --rps=20 --duration=60 (seconds) --scenarios=50
+ * (number of distinct scenarios, which controls the achievable cache hit ratio) --max-outstanding=10000
+ * --warmup=5 (seconds at the start whose requests are sent but left out of the report)
+ */
+public class LoadGenerator {
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = MockOpenAIServer.parseOptions(args);
+		URI url = URI.create(options.getOrDefault("url", "http://localhost:8080/analyser"));
+		double rps = Double.parseDouble(options.getOrDefault("rps", "20"));
+		int durationSeconds = Integer.parseInt(options.getOrDefault("duration", "60"));
+		int scenarios = Integer.parseInt(options.getOrDefault("scenarios", "50"));
+		int warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "5"));
+		Semaphore outstanding = new Semaphore(Integer.parseInt(options.getOrDefault("max-outstanding", "10000")));
+
+		HttpClient client = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(Duration.ofSeconds(5))
+				.build();
+		ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+		Map<String, AtomicLong> outcomes = new ConcurrentHashMap<>();
+		AtomicLong sent = new AtomicLong();
+		AtomicLong measured = new AtomicLong();
+
+		ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+		long periodNanos = Math.round(1_000_000_000 / rps);
+		long start = System.nanoTime();
+		long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+		scheduler.scheduleAtFixedRate(() -> {
+			if (!outstanding.tryAcquire()) {
+				count(outcomes, "dropped (max outstanding)");
+				return;
+			}
+			long n = sent.incrementAndGet();
+			HttpRequest request = HttpRequest.newBuilder(url)
+					.timeout(Duration.ofSeconds(120))
+					.header("Content-Type", "application/json")
+					.POST(HttpRequest.BodyPublishers.ofString(body(n % scenarios)))
+					.build();
+			long issued = System.nanoTime();
+			boolean measure = issued >= measureFrom;
+			if (measure) {
+				measured.incrementAndGet();
+			}
+			client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, e) -> {
+				if (measure) {
+					latencies.add(System.nanoTime() - issued);
+					count(outcomes, e != null ? e.getClass().getSimpleName() : "HTTP " + response.statusCode());
+				}
+				outstanding.release();
+			});
+		}, 0, periodNanos, TimeUnit.NANOSECONDS);
+
+		Thread.sleep((warmupSeconds + durationSeconds) * 1000L);
+		scheduler.shutdownNow();
+		long sendEnd = System.nanoTime();
+		// Give in-flight requests a bounded grace period to finish.
+		long deadline = System.currentTimeMillis() + 120_000;
+		while (latencies.size() < measured.get() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(100);
+		}
+		// Over the send window only: including the drain grace period would understate throughput.
+		double elapsedSeconds = (sendEnd - measureFrom) / 1e9;
+
+		long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+		System.out.printf("Target %.1f rps for %d s against %s%n", rps, durationSeconds, url);
+		System.out.printf("Sent %d (%d after warm-up), completed %d, throughput %.1f rps%n",
+				sent.get(), measured.get(), sorted.length, sorted.length / elapsedSeconds);
+		outcomes.forEach((outcome, count) -> System.out.printf("  %-28s %d%n", outcome, count.get()));
+		if (sorted.length > 0) {
+			System.out.printf("Latency ms: p50 %.1f  p90 %.1f  p99 %.1f  p99.9 %.1f  max %.1f  mean %.1f%n",
+					percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99), percentile(sorted, 99.9),
+					sorted[sorted.length - 1] / 1e6, Arrays.stream(sorted).average().orElse(0) / 1e6);
+		}
+		System.exit(0);
+	}
+
+	private static String body(long scenario) {
+		return "{\"scenario\": \"Load test scenario " + scenario + ": a client project with a tight deadline and limited budget.\","
+				+ " \"constraints\": [\"Budget: $10,000\", \"Deadline: 6 weeks\", \"Team of 3 developers\"]}";
+	}
+
+	private static void count(Map<String, AtomicLong> outcomes, String outcome) {
+		outcomes.computeIfAbsent(outcome, k -> new AtomicLong()).incrementAndGet();
+	}
+
+	private static double percentile(long[] sorted, double percentile) {
+		int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+	}
+}
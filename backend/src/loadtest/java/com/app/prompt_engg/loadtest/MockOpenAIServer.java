@@ -0,0 +1,208 @@
+package com.app.prompt_engg.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local stand-in for the OpenAI Responses API, for load tests that must not spend tokens.
+ *
+ * Latency follows a log-normal distribution around the configured median, a configurable fraction
+ * of calls fail with 500 or 429, and {@code "stream": true} requests are answered with
+ * Server-Sent Events whose text deltas are spread over the simulated generation time. Streams the
+ * client closes before their end are counted as aborted.
+ *
+ * Options: --port=8089 --median-ms=2000 --sigma=0.5 --error-rate=0 --rate-limit-rate=0 --chunks=20
+ *
+ * Point the backend at it with --openai.base-url=http://localhost:8089/v1
+ */
+public class MockOpenAIServer {
+
+	private static final String ANALYSIS = "{\"summary\": \"The team must deliver a client project on a tight schedule and budget.\", "
+			+ "\"pitfalls_or_risks\": [\"Scope creep due to unclear requirements\", \"Team burnout from tight deadlines\"], "
+			+ "\"proposed_strategies\": [\"Use short agile iterations\", \"Agree on a prioritised backlog with the client\"], "
+			+ "\"recommended_resources\": [\"A lightweight project tracker\", \"Open-source component libraries\"], "
+			+ "\"disclaimer\": \"This analysis is generated by a mock server.\"}";
+
+	private final double medianMs;
+	private final double sigma;
+	private final double errorRate;
+	private final double rateLimitRate;
+	private final int chunks;
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong aborted = new AtomicLong();
+
+	public MockOpenAIServer(Map<String, String> options) {
+		this.medianMs = Double.parseDouble(options.getOrDefault("median-ms", "2000"));
+		this.sigma = Double.parseDouble(options.getOrDefault("sigma", "0.5"));
+		this.errorRate = Double.parseDouble(options.getOrDefault("error-rate", "0"));
+		this.rateLimitRate = Double.parseDouble(options.getOrDefault("rate-limit-rate", "0"));
+		this.chunks = Integer.parseInt(options.getOrDefault("chunks", "20"));
+	}
+
+	public static void main(String[] args) throws IOException {
+		Map<String, String> options = parseOptions(args);
+		int port = Integer.parseInt(options.getOrDefault("port", "8089"));
+		MockOpenAIServer mock = new MockOpenAIServer(options);
+		mock.start(port);
+		System.out.printf("Mock OpenAI server listening on http://localhost:%d/v1 (median %.0f ms, sigma %.2f, error rate %.3f)%n",
+				port, mock.medianMs, mock.sigma, mock.errorRate);
+	}
+
+	/**
+	 * Starts serving on the given port, or on a free one if it is zero.
+	 *
+	 * @return the started server
+	 */
+	public HttpServer start(int port) throws IOException {
+		HttpServer server = HttpServer.create(new InetSocketAddress(port), 1024);
+		server.createContext("/", this::handle);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.start();
+		return server;
+	}
+
+	/**
+	 * @return the requests received
+	 */
+	public long getRequests() {
+		return requests.get();
+	}
+
+	/**
+	 * @return the streams the client closed before their end
+	 */
+	public long getAborted() {
+		return aborted.get();
+	}
+
+	static Map<String, String> parseOptions(String[] args) {
+		Map<String, String> options = new HashMap<>();
+		for (String arg : args) {
+			if (arg.startsWith("--") && arg.contains("=")) {
+				options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+			}
+		}
+		return options;
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			String path = exchange.getRequestURI().getPath();
+			String body;
+			try (InputStream in = exchange.getRequestBody()) {
+				body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+			}
+			long id = requests.incrementAndGet();
+
+			if (path.endsWith("/models")) {
+				send(exchange, 200, "application/json", "{\"object\": \"list\", \"data\": []}");
+				return;
+			}
+			if (!path.endsWith("/responses")) {
+				send(exchange, 404, "application/json", error("Unknown path " + path));
+				return;
+			}
+
+			long latencyMs = sampleLatencyMs();
+			double roll = ThreadLocalRandom.current().nextDouble();
+			if (roll < rateLimitRate) {
+				exchange.getResponseHeaders().add("retry-after", "1");
+				send(exchange, 429, "application/json", error("Rate limit reached"));
+				return;
+			}
+			if (roll < rateLimitRate + errorRate) {
+				sleep(latencyMs);
+				send(exchange, 500, "application/json", error("Simulated upstream failure"));
+				return;
+			}
+
+			if (body.replace(" ", "").contains("\"stream\":true")) {
+				stream(exchange, id, latencyMs);
+			} else {
+				sleep(latencyMs);
+				send(exchange, 200, "application/json", response(id));
+			}
+		}
+	}
+
+	private void stream(HttpExchange exchange, long id, long latencyMs) throws IOException {
+		exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+		exchange.sendResponseHeaders(200, 0);
+		OutputStream out = exchange.getResponseBody();
+		try {
+			event(out, "response.created", "{\"type\": \"response.created\", \"sequence_number\": 0, \"response\": " + response(id) + "}");
+
+			int chunkSize = Math.max(1, ANALYSIS.length() / chunks);
+			int sequence = 1;
+			for (int i = 0; i < ANALYSIS.length(); i += chunkSize) {
+				sleep(latencyMs / chunks);
+				String delta = ANALYSIS.substring(i, Math.min(i + chunkSize, ANALYSIS.length()));
+				event(out, "response.output_text.delta", "{\"type\": \"response.output_text.delta\", \"sequence_number\": " + sequence++
+						+ ", \"item_id\": \"msg_mock_" + id + "\", \"output_index\": 0, \"content_index\": 0, \"delta\": "
+						+ quote(delta) + "}");
+			}
+			event(out, "response.completed", "{\"type\": \"response.completed\", \"sequence_number\": " + sequence
+					+ ", \"response\": " + response(id) + "}");
+		} catch (IOException e) {
+			// The client closed the connection: a real upstream would stop generating here.
+			aborted.incrementAndGet();
+			throw e;
+		}
+	}
+
+	private long sampleLatencyMs() {
+		double gaussian = ThreadLocalRandom.current().nextGaussian();
+		return Math.round(medianMs * Math.exp(sigma * gaussian));
+	}
+
+	private static String response(long id) {
+		return "{\"id\": \"resp_mock_" + id + "\", \"object\": \"response\", \"created_at\": " + System.currentTimeMillis() / 1000
+				+ ", \"status\": \"completed\", \"model\": \"gpt-4o\", \"error\": null, \"incomplete_details\": null,"
+				+ " \"instructions\": null, \"metadata\": {}, \"parallel_tool_calls\": true, \"temperature\": 1.0,"
+				+ " \"tool_choice\": \"auto\", \"tools\": [], \"top_p\": 1.0,"
+				+ " \"output\": [{\"type\": \"message\", \"id\": \"msg_mock_" + id + "\", \"status\": \"completed\","
+				+ " \"role\": \"assistant\", \"content\": [{\"type\": \"output_text\", \"annotations\": [], \"text\": "
+				+ quote(ANALYSIS) + "}]}],"
+				+ " \"usage\": {\"input_tokens\": 120, \"input_tokens_details\": {\"cached_tokens\": 0},"
+				+ " \"output_tokens\": 160, \"output_tokens_details\": {\"reasoning_tokens\": 0}, \"total_tokens\": 280}}";
+	}
+
+	private static String error(String message) {
+		return "{\"error\": {\"message\": " + quote(message) + ", \"type\": \"mock_error\", \"param\": null, \"code\": null}}";
+	}
+
+	private static String quote(String text) {
+		return "\"" + text.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + "\"";
+	}
+
+	private static void event(OutputStream out, String name, String data) throws IOException {
+		out.write(("event: " + name + "\ndata: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+		out.flush();
+	}
+
+	private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", contentType);
+		exchange.sendResponseHeaders(status, bytes.length);
+		exchange.getResponseBody().write(bytes);
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(Math.max(0, millis));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package com.app.prompt_engg.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time from launching the backend to its first successfully served POST /analyser, for
+ * each of the build variants of the aot, cds and native Maven profiles. Every run starts a fresh
+ * process, so the analysis cache is cold and the request goes through to the upstream; run
+ * {@link MockOpenAIServer} first so that the upstream answers without spending tokens.
+ *
+ * Options: --variants=jar,aot,cds,native (variants whose artifacts are missing are skipped) --runs=5
+ * --port=18080 --upstream=http://localhost:8089/v1 --timeout=60 (seconds per run)
+ * --jar=target/prompt-engg-0.0.1-SNAPSHOT.jar --native=target/prompt-engg
+ */
+public class StartupBenchmark {
+
+	private static final String BODY = "{\"scenario\": \"Startup benchmark: a client project with a tight deadline and limited budget.\","
+			+ " \"constraints\": [\"Budget: $10,000\", \"Deadline: 6 weeks\"]}";
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = MockOpenAIServer.parseOptions(args);
+		List<String> variants = Arrays.asList(options.getOrDefault("variants", "jar,aot,cds,native").split(","));
+		int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+		int port = Integer.parseInt(options.getOrDefault("port", "18080"));
+		String upstream = options.getOrDefault("upstream", "http://localhost:8089/v1");
+		Duration timeout = Duration.ofSeconds(Long.parseLong(options.getOrDefault("timeout", "60")));
+		String jar = options.getOrDefault("jar", "target/prompt-engg-0.0.1-SNAPSHOT.jar");
+		String nativeImage = options.getOrDefault("native", "target/prompt-engg");
+
+		Map<String, List<String>> commands = new LinkedHashMap<>();
+		commands.put("jar", List.of("java", "-jar", jar));
+		commands.put("aot", List.of("java", "-Dspring.aot.enabled=true", "-jar", jar));
+		commands.put("cds", List.of("java", "-XX:SharedArchiveFile=target/cds/application.jsa", "-Dspring.aot.enabled=true",
+				"-jar", "target/cds/" + new File(jar).getName()));
+		commands.put("native", List.of(nativeImage));
+		Map<String, String> artifacts = Map.of("jar", jar, "aot", jar, "cds", "target/cds/application.jsa", "native", nativeImage);
+
+		List<String> appArgs = List.of("--server.port=" + port, "--openai.base-url=" + upstream,
+				"--spring.ai.openai.api-key=mock", "--analysis.store.enabled=false");
+		HttpClient client = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(Duration.ofMillis(200))
+				.build();
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/analyser"))
+				.timeout(Duration.ofSeconds(30))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(BODY))
+				.build();
+
+		System.out.printf("%-8s %8s %8s %8s  (ms to first served request, %d runs)%n", "variant", "min", "median", "max", runs);
+		for (String variant : variants) {
+			List<String> command = commands.get(variant);
+			if (command == null) {
+				System.out.printf("%-8s unknown variant%n", variant);
+				continue;
+			}
+			if (!new File(artifacts.get(variant)).exists()) {
+				System.out.printf("%-8s skipped, %s not found%n", variant, artifacts.get(variant));
+				continue;
+			}
+			List<String> fullCommand = new ArrayList<>(command);
+			fullCommand.addAll(appArgs);
+			long[] millis = new long[runs];
+			for (int run = 0; run < runs; run++) {
+				millis[run] = timeToFirstRequest(fullCommand, client, request, timeout);
+			}
+			Arrays.sort(millis);
+			System.out.printf("%-8s %8d %8d %8d%n", variant, millis[0], millis[runs / 2], millis[runs - 1]);
+		}
+	}
+
+	/**
+	 * Starts the backend and polls until it answers the request with 200, then stops it.
+	 *
+	 * @return the milliseconds from launching the process to the first 200 response
+	 */
+	private static long timeToFirstRequest(List<String> command, HttpClient client, HttpRequest request, Duration timeout)
+			throws IOException, InterruptedException {
+		long start = System.nanoTime();
+		Process process = new ProcessBuilder(command)
+				.redirectErrorStream(true)
+				.redirectOutput(ProcessBuilder.Redirect.DISCARD)
+				.start();
+		try {
+			long deadline = start + timeout.toNanos();
+			while (System.nanoTime() < deadline) {
+				if (!process.isAlive()) {
+					throw new IllegalStateException("Backend exited with code " + process.exitValue() + ": " + String.join(" ", command));
+				}
+				try {
+					HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+					if (response.statusCode() == 200) {
+						return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+					}
+				} catch (ConnectException | HttpTimeoutException e) {
+					// Not listening yet.
+				}
+				Thread.sleep(5);
+			}
+			throw new IllegalStateException("Backend did not serve a request within " + timeout.toSeconds() + " s");
+		} finally {
+			process.destroy();
+			if (!process.waitFor(10, TimeUnit.SECONDS)) {
+				process.destroyForcibly().waitFor();
+			}
+		}
+	}
+}
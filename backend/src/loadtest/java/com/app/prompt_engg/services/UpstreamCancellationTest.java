@@ -0,0 +1,92 @@
+package com.app.prompt_engg.services;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.app.prompt_engg.loadtest.MockOpenAIServer;
+import com.openai.client.okhttp.OpenAIOkHttpClient;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Checks against {@link MockOpenAIServer} that a caller giving up on an upstream call closes the
+ * upstream connection, rather than only cancelling a future the SDK does not pass on to its HTTP call.
+ * Run with: mvn -Ploadtest test -Dtest=UpstreamCancellationTest
+ */
+class UpstreamCancellationTest {
+
+    private MockOpenAIServer mock;
+
+    private HttpServer server;
+
+    private AiService service;
+
+    @BeforeEach
+    void setup() {
+        service = new AiService();
+        ReflectionTestUtils.setField(service, "metrics", new AnalysisMetrics(new SimpleMeterRegistry(), ObservationRegistry.NOOP));
+        ReflectionTestUtils.setField(service, "templates", new PromptTemplates("Answer in JSON.", "[scenarios]", Map.of()));
+        ReflectionTestUtils.setField(service, "governor", new RateLimitGovernor(1000, 1_000_000, 10, 10, Duration.ofSeconds(1), 100));
+    }
+
+    @AfterEach
+    void teardown() {
+        server.stop(0);
+    }
+
+    private void startMock(Map<String, String> options) throws IOException {
+        mock = new MockOpenAIServer(options);
+        server = mock.start(0);
+        ReflectionTestUtils.setField(service, "client", OpenAIOkHttpClient.builder()
+                .apiKey("test")
+                .baseUrl("http://localhost:" + server.getAddress().getPort() + "/v1")
+                .maxRetries(0)
+                .build());
+    }
+
+    @Test
+    void testCallApiAsync_CancellingClosesUpstreamConnection() throws Exception {
+        // Ten seconds of generation, one delta every 100 ms.
+        startMock(Map.of("median-ms", "10000", "sigma", "0", "chunks", "100"));
+        CompletableFuture<String> call = service.callApiAsync("A scenario", "gpt-4o");
+        // Let the upstream start generating.
+        while (mock.getRequests() == 0) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(300);
+
+        call.cancel(true);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (mock.getAborted() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(1, mock.getAborted());
+        Assertions.assertEquals(1, mock.getRequests());
+    }
+
+    @Test
+    void testCallApiAsync_ReturnsWholeOutput() throws Exception {
+        startMock(Map.of("median-ms", "50", "sigma", "0", "chunks", "5"));
+
+        String output = service.callApiAsync("A scenario", "gpt-4o").join();
+
+        for (String key : List.of("summary", "pitfalls_or_risks", "proposed_strategies", "recommended_resources", "disclaimer")) {
+            Assertions.assertTrue(output.contains("\"" + key + "\""), output);
+        }
+        Assertions.assertEquals(1, mock.getRequests());
+        Assertions.assertEquals(0, mock.getAborted());
+    }
+}
@@ -0,0 +1,92 @@
+package com.app.prompt_engg.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.app.prompt_engg.services.AnalysisCache;
+import com.app.prompt_engg.services.AnalysisJobService;
+import com.app.prompt_engg.services.AnalysisStore;
+import com.app.prompt_engg.services.CircuitBreaker;
+import com.app.prompt_engg.services.ClusterCache;
+import com.app.prompt_engg.services.InFlightLimiter;
+import com.app.prompt_engg.services.RateLimitGovernor;
+import com.app.prompt_engg.services.SingleFlight;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Exposes the state of the cache, the persistent store, the cluster cache, the in-flight limiter,
+ * the rate-limit governor, the circuit breaker, request coalescing and the job queue as meters.
+ */
+@Component
+public class AnalysisMeterBinder implements MeterBinder {
+
+	@Autowired
+	private AnalysisCache cache;
+
+	@Autowired
+	private AnalysisStore store;
+
+	@Autowired
+	private ClusterCache cluster;
+
+	@Autowired
+	private InFlightLimiter inFlightLimiter;
+
+	@Autowired
+	private RateLimitGovernor governor;
+
+	@Autowired
+	private CircuitBreaker breaker;
+
+	@Autowired
+	private SingleFlight singleFlight;
+
+	@Autowired
+	private AnalysisJobService jobs;
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("analysis.cache.size", cache, AnalysisCache::size).register(registry);
+		FunctionCounter.builder("analysis.cache.requests", cache, AnalysisCache::getHits).tag("result", "hit").register(registry);
+		FunctionCounter.builder("analysis.cache.requests", cache, AnalysisCache::getMisses).tag("result", "miss").register(registry);
+		FunctionCounter.builder("analysis.cache.evictions", cache, AnalysisCache::getEvictions).register(registry);
+
+		Gauge.builder("analysis.store.size", store, AnalysisStore::size).register(registry);
+		FunctionCounter.builder("analysis.store.requests", store, AnalysisStore::getHits).tag("result", "hit").register(registry);
+		FunctionCounter.builder("analysis.store.requests", store, AnalysisStore::getMisses).tag("result", "miss").register(registry);
+
+		FunctionCounter.builder("analysis.cluster.requests", cluster, ClusterCache::getHits).tag("result", "hit").register(registry);
+		FunctionCounter.builder("analysis.cluster.requests", cluster, ClusterCache::getMisses).tag("result", "miss").register(registry);
+		FunctionCounter.builder("analysis.cluster.requests", cluster, ClusterCache::getErrors).tag("result", "error").register(registry);
+		FunctionCounter.builder("analysis.cluster.pushes", cluster, ClusterCache::getPushes).register(registry);
+
+		Gauge.builder("analysis.upstream.in_flight", inFlightLimiter, InFlightLimiter::getInFlight).register(registry);
+		Gauge.builder("analysis.upstream.max_in_flight", inFlightLimiter, InFlightLimiter::getMaxInFlight).register(registry);
+
+		Gauge.builder("analysis.upstream.rate_limit.queued", governor, RateLimitGovernor::getQueued).register(registry);
+		Gauge.builder("analysis.upstream.rate_limit.factor", governor, RateLimitGovernor::getRateFactor).register(registry);
+		FunctionCounter.builder("analysis.upstream.rate_limit.shed", governor, RateLimitGovernor::getShed).register(registry);
+
+		// 0 = closed, 1 = open, 2 = half-open
+		Gauge.builder("analysis.upstream.circuit_breaker.state", breaker, b -> b.getState().ordinal()).register(registry);
+		Gauge.builder("analysis.upstream.circuit_breaker.failure_rate", breaker, CircuitBreaker::getFailureRate).register(registry);
+		Gauge.builder("analysis.upstream.circuit_breaker.slow_call_rate", breaker, CircuitBreaker::getSlowCallRate).register(registry);
+		FunctionCounter.builder("analysis.upstream.circuit_breaker.rejected", breaker, CircuitBreaker::getRejected).register(registry);
+
+		Gauge.builder("analysis.single_flight.in_flight", singleFlight, SingleFlight::getInFlight).register(registry);
+		FunctionCounter.builder("analysis.single_flight.coalesced", singleFlight, SingleFlight::getCoalesced).register(registry);
+		FunctionCounter.builder("analysis.single_flight.cancelled", singleFlight, SingleFlight::getCancelled).register(registry);
+
+		Gauge.builder("analysis.jobs.queued", jobs, AnalysisJobService::getQueued).register(registry);
+		Gauge.builder("analysis.jobs.running", jobs, AnalysisJobService::getRunning).register(registry);
+		Gauge.builder("analysis.jobs.workers", jobs, AnalysisJobService::getWorkers).register(registry);
+		Gauge.builder("analysis.jobs.utilisation", jobs, AnalysisJobService::getUtilisation).register(registry);
+		Gauge.builder("analysis.jobs.stored", jobs, AnalysisJobService::size).register(registry);
+		FunctionCounter.builder("analysis.jobs.rejected", jobs, AnalysisJobService::getRejected).register(registry);
+		FunctionCounter.builder("analysis.jobs.retried", jobs, AnalysisJobService::getRetried).register(registry);
+	}
+}
@@ -0,0 +1,60 @@
+package com.app.prompt_engg.config;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.core.type.classreading.SimpleMetadataReaderFactory;
+
+import com.app.prompt_engg.models.BatchAnalysisResult;
+import com.app.prompt_engg.models.ScenarioAnalysisRequest;
+import com.app.prompt_engg.models.ScenarioAnalysisResponse;
+
+/**
+ * Reflection and resource hints for the native image that Spring's AOT processing cannot infer.
+ * Controller payloads are covered automatically, but the analysis store serializes
+ * {@link ScenarioAnalysisResponse} through the ObjectMapper directly, and the OpenAI SDK binds its
+ * models with Jackson reflectively. Registration runs at build time on the JVM, so the SDK packages
+ * are scanned instead of listing their many nested types by hand.
+ */
+public class AnalysisRuntimeHints implements RuntimeHintsRegistrar {
+
+	/**
+	 * SDK packages whose types are read or written with Jackson: the Responses API, the shared models
+	 * and the model listing used by the warm-up call.
+	 */
+	private static final String[] OPENAI_MODEL_PATTERNS = {
+			"classpath*:com/openai/models/*.class",
+			"classpath*:com/openai/models/responses/**/*.class",
+			"classpath*:com/openai/models/models/**/*.class" };
+
+	@Override
+	public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+		new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+				ScenarioAnalysisRequest.class, ScenarioAnalysisResponse.class, BatchAnalysisResult.class);
+
+		PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(classLoader);
+		MetadataReaderFactory readers = new SimpleMetadataReaderFactory(classLoader);
+		try {
+			for (String pattern : OPENAI_MODEL_PATTERNS) {
+				for (Resource resource : resolver.getResources(pattern)) {
+					String className = readers.getMetadataReader(resource).getClassMetadata().getClassName();
+					hints.reflection().registerType(TypeReference.of(className), MemberCategory.values());
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to scan the OpenAI SDK models", e);
+		}
+
+		// OkHttp's public suffix list and the tokenizer vocabularies are loaded as classpath resources.
+		hints.resources().registerPattern("okhttp3/internal/publicsuffix/*");
+		hints.resources().registerPattern("com/knuddels/jtokkit/*");
+	}
+}
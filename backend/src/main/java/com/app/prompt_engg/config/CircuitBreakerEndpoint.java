@@ -0,0 +1,40 @@
+package com.app.prompt_engg.config;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import com.app.prompt_engg.services.CircuitBreaker;
+
+/**
+ * Actuator endpoint ({@code /actuator/circuitbreaker}) showing the state of the upstream circuit
+ * breaker; a POST resets it to closed. The endpoint is read-only by default, as the reset would
+ * otherwise be open to anyone who can reach the actuator.
+ */
+@Component
+@Endpoint(id = "circuitbreaker")
+public class CircuitBreakerEndpoint {
+
+	@Autowired
+	private CircuitBreaker breaker;
+
+	@ReadOperation
+	public Map<String, Object> state() {
+		return Map.of(
+				"state", breaker.getState(),
+				"failureRate", breaker.getFailureRate(),
+				"slowCallRate", breaker.getSlowCallRate(),
+				"bufferedCalls", breaker.getBufferedCalls(),
+				"rejectedCalls", breaker.getRejected());
+	}
+
+	@WriteOperation
+	public Map<String, Object> reset() {
+		breaker.reset();
+		return state();
+	}
+}
@@ -1,21 +1,61 @@
 package com.app.prompt_engg.config;
 
+import java.time.Duration;
+
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.NativeDetector;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
 import com.openai.client.OpenAIClient;
 import com.openai.client.okhttp.OpenAIOkHttpClient;
+import com.openai.core.Timeout;
+
+import io.netty.channel.ChannelOption;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 @Configuration
+@ImportRuntimeHints(AnalysisRuntimeHints.class)
 public class Config {
 	
 	
 	@Value("${spring.ai.openai.api-key}")
 	private String apiKey;
 	
+	@Value("${openai.base-url:https://api.openai.com/v1}")
+	private String baseUrl;
+	
+	@Value("${openai.client.connect-timeout:PT5S}")
+	private Duration connectTimeout;
+	
+	@Value("${openai.client.read-timeout:PT60S}")
+	private Duration readTimeout;
+	
+	@Value("${openai.client.request-timeout:PT90S}")
+	private Duration requestTimeout;
+	
+	@Value("${openai.client.max-retries:2}")
+	private int maxRetries;
+	
+	@Value("${openai.reactive.max-connections:1000}")
+	private int maxConnections;
+	
+	@Value("${analysis.async.worker-threads:4}")
+	private int workerThreads;
+	
     @Bean
     WebMvcConfigurer corsConfigurer() {
         return new WebMvcConfigurer() {
@@ -25,16 +65,92 @@ public class Config {
                         .allowedOrigins("http://localhost:3000")
                         .allowedMethods("GET", "POST", "PUT", "DELETE")
                         .allowedHeaders("*")
+                        .exposedHeaders(HttpHeaders.ETAG)
                         .allowCredentials(true);
             }
         };
     }
     
+    /**
+     * Registers Blackbird with Spring Boot's ObjectMapper, so that beans are serialized through
+     * generated accessors instead of reflection. A native image cannot define classes at runtime,
+     * so it keeps plain reflective access.
+     */
+    @Bean
+    Module blackbirdModule() {
+        return NativeDetector.inNativeImage() ? new SimpleModule() : new BlackbirdModule();
+    }
+    
+    @Bean
+    @Profile("reactive")
+    WebFluxConfigurer webFluxCorsConfigurer() {
+        return new WebFluxConfigurer() {
+            @Override
+            public void addCorsMappings(org.springframework.web.reactive.config.CorsRegistry registry) {
+                registry.addMapping("/**")
+                        .allowedOrigins("http://localhost:3000")
+                        .allowedMethods("GET", "POST", "PUT", "DELETE")
+                        .allowedHeaders("*")
+                        .exposedHeaders(HttpHeaders.ETAG)
+                        .allowCredentials(true);
+            }
+        };
+    }
+    
+    /**
+     * OpenAI client with explicit timeouts and retry budget. Retries use the client's exponential
+     * backoff with jitter; the connection is warmed up at startup by {@link OpenAIClientWarmup}.
+     * The SDK does not expose its OkHttp dispatcher or connection pool, so they keep OkHttp's
+     * defaults (5 idle connections kept alive for 5 minutes, HTTP/2 where the server offers it).
+     */
     @Bean
     public OpenAIClient openAIClient() {
-    	OpenAIClient client = OpenAIOkHttpClient.builder().apiKey(apiKey).build();
-        // Optional: make a dummy call to "warm up" the client
+    	OpenAIClient client = OpenAIOkHttpClient.builder()
+    			.apiKey(apiKey)
+    			.baseUrl(baseUrl)
+    			.timeout(Timeout.builder()
+    					.connect(connectTimeout)
+    					.read(readTimeout)
+    					.request(requestTimeout)
+    					.build())
+    			.maxRetries(maxRetries)
+    			.build();
         return client;
     }
+    
+    /**
+     * Non-blocking client for the OpenAI API used by the reactive variant. Calls wait on Netty's event
+     * loop instead of a thread each, so the pool can hold many more connections than the OkHttp client.
+     */
+    @Bean
+    @Profile("reactive")
+    WebClient openAIWebClient(WebClient.Builder builder) {
+    	ConnectionProvider connections = ConnectionProvider.builder("openai")
+    			.maxConnections(maxConnections)
+    			.pendingAcquireTimeout(requestTimeout)
+    			.build();
+    	HttpClient httpClient = HttpClient.create(connections)
+    			.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+    			.responseTimeout(readTimeout);
+    	return builder
+    			.baseUrl(baseUrl)
+    			.defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
+    			.clientConnector(new ReactorClientHttpConnector(httpClient))
+    			.build();
+    }
+    
+    /**
+     * Small fixed pool that post-processes upstream responses; the upstream calls themselves
+     * wait on the OpenAI client's async dispatcher rather than on a pooled thread.
+     */
+    @Bean
+    ThreadPoolTaskExecutor analysisExecutor() {
+    	ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    	executor.setCorePoolSize(workerThreads);
+    	executor.setMaxPoolSize(workerThreads);
+    	executor.setThreadNamePrefix("analysis-");
+    	executor.initialize();
+    	return executor;
+    }
 }
 
@@ -0,0 +1,64 @@
+package com.app.prompt_engg.config;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Tags every request with a correlation ID, taken from the {@code X-Correlation-Id} header when the
+ * caller supplies a well-formed one, and exposes it to log events through the MDC. The calling client,
+ * identified by the {@code X-Client-Id} header or else the remote address, is exposed the same way so
+ * that upstream rate limits can be shared fairly between clients.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CorrelationIdFilter extends OncePerRequestFilter {
+
+	public static final String HEADER = "X-Correlation-Id";
+	public static final String MDC_KEY = "correlationId";
+	public static final String CLIENT_HEADER = "X-Client-Id";
+	public static final String CLIENT_MDC_KEY = "clientId";
+
+	private static final Pattern VALID_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		String correlationId = correlationId(request.getHeader(HEADER));
+		response.setHeader(HEADER, correlationId);
+		String clientId = clientId(request.getHeader(CLIENT_HEADER), request.getRemoteAddr());
+		MDC.put(MDC_KEY, correlationId);
+		MDC.put(CLIENT_MDC_KEY, clientId);
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			MDC.remove(MDC_KEY);
+			MDC.remove(CLIENT_MDC_KEY);
+		}
+	}
+
+	/**
+	 * @return the caller's correlation ID if it is well-formed, else a new one
+	 */
+	static String correlationId(String header) {
+		return header != null && VALID_ID.matcher(header).matches() ? header : UUID.randomUUID().toString();
+	}
+
+	/**
+	 * @return the caller's client ID if it is well-formed, else the remote address
+	 */
+	static String clientId(String header, String remoteAddress) {
+		return header != null && VALID_ID.matcher(header).matches() ? header : remoteAddress;
+	}
+}
@@ -0,0 +1,48 @@
+package com.app.prompt_engg.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.openai.client.OpenAIClient;
+
+/**
+ * Opens a connection to the OpenAI API once the application is ready, so that DNS resolution and
+ * the TLS handshake are already done when the first analysis request arrives. The warm-up call
+ * lists models and costs no tokens. The reactive variant does not use this client, so it is not
+ * warmed up there.
+ */
+@Component
+@Profile("!reactive")
+public class OpenAIClientWarmup {
+
+	private static final Logger log = LoggerFactory.getLogger(OpenAIClientWarmup.class);
+
+	@Autowired
+	private OpenAIClient client;
+
+	@Value("${openai.client.warm-up:true}")
+	private boolean enabled;
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void warmUp() {
+		if (!enabled) {
+			return;
+		}
+		long start = System.nanoTime();
+		client.async().models().list().whenComplete((page, e) -> {
+			long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+			if (e != null) {
+				// A rejected call still leaves a pooled, handshaken connection behind.
+				log.info("OpenAI client warm-up finished in {} ms with error: {}", elapsedMs, e.getMessage());
+			} else {
+				log.info("OpenAI client warm-up finished in {} ms", elapsedMs);
+			}
+		});
+	}
+}
@@ -0,0 +1,64 @@
+package com.app.prompt_engg.config;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import org.slf4j.MDC;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+/**
+ * Reactive counterpart of {@link CorrelationIdFilter}. A request is not tied to a thread here, so the
+ * correlation and client IDs travel in the Reactor context, and {@link #withMdc} copies them into the
+ * MDC while code that reads it runs.
+ */
+@Component
+@Profile("reactive")
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ReactiveCorrelationIdFilter implements WebFilter {
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+		String correlationId = CorrelationIdFilter.correlationId(
+				exchange.getRequest().getHeaders().getFirst(CorrelationIdFilter.HEADER));
+		exchange.getResponse().getHeaders().set(CorrelationIdFilter.HEADER, correlationId);
+		String remoteAddress = Optional.ofNullable(exchange.getRequest().getRemoteAddress())
+				.map(InetSocketAddress::getAddress)
+				.map(InetAddress::getHostAddress)
+				.orElse("unknown");
+		String clientId = CorrelationIdFilter.clientId(
+				exchange.getRequest().getHeaders().getFirst(CorrelationIdFilter.CLIENT_HEADER), remoteAddress);
+		return chain.filter(exchange).contextWrite(Context.of(
+				CorrelationIdFilter.MDC_KEY, correlationId,
+				CorrelationIdFilter.CLIENT_MDC_KEY, clientId));
+	}
+
+	/**
+	 * Runs the action with the request's correlation and client IDs in the MDC.
+	 *
+	 * @param context the Reactor context of the request
+	 * @param action the action to run
+	 * @return the action's result
+	 */
+	public static <T> T withMdc(ContextView context, Supplier<T> action) {
+		context.<String>getOrEmpty(CorrelationIdFilter.MDC_KEY).ifPresent(id -> MDC.put(CorrelationIdFilter.MDC_KEY, id));
+		context.<String>getOrEmpty(CorrelationIdFilter.CLIENT_MDC_KEY).ifPresent(id -> MDC.put(CorrelationIdFilter.CLIENT_MDC_KEY, id));
+		try {
+			return action.get();
+		} finally {
+			MDC.remove(CorrelationIdFilter.MDC_KEY);
+			MDC.remove(CorrelationIdFilter.CLIENT_MDC_KEY);
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package com.app.prompt_engg.controllers;
+
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.app.prompt_engg.models.ScenarioAnalysisResponse;
+import com.app.prompt_engg.services.AnalysisCache;
+import com.app.prompt_engg.services.AnalysisStore;
+import com.app.prompt_engg.services.ClusterCache;
+
+/**
+ * Serves this replica's share of the cluster cache to its peers: they fetch the analyses of the keys
+ * it owns, and hand it the ones they generated for those keys. Answers 404 unless the cluster cache
+ * is enabled, and 403 if the request does not carry the configured cluster token.
+ */
+@RestController
+public class InternalCacheController {
+
+	private static final Pattern KEY = Pattern.compile("[0-9a-f]{64}");
+
+	@Autowired
+	private ClusterCache cluster;
+
+	@Autowired
+	private AnalysisCache cache;
+
+	@Autowired
+	private AnalysisStore store;
+
+	/**
+	 * Looks up an analysis in the in-memory cache, then in the persistent store.
+	 *
+	 * @param key the prompt hash
+	 * @param token the cluster token sent by the peer
+	 * @return the analysis, or 404 if this replica does not have it
+	 */
+	@GetMapping("/internal/cache/{key}")
+	public ResponseEntity<ScenarioAnalysisResponse> get(@PathVariable String key,
+			@RequestHeader(value = ClusterCache.TOKEN_HEADER, required = false) String token) {
+		HttpStatus rejection = check(key, token);
+		if (rejection != null) {
+			return ResponseEntity.status(rejection).build();
+		}
+		Optional<ScenarioAnalysisResponse> cached = cache.get(key);
+		if (cached.isEmpty()) {
+			cached = store.get(key);
+			cached.ifPresent(stored -> cache.put(key, stored));
+		}
+		return cached.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+	}
+
+	/**
+	 * Caches and stores an analysis generated by a peer for a key this replica owns. Analyses for
+	 * keys owned by another replica are refused, so that a peer cannot fill this replica's cache.
+	 *
+	 * @param key the prompt hash
+	 * @param token the cluster token sent by the peer
+	 * @param analysis the analysis
+	 * @return 204 once the analysis is cached, or 409 if the key is not owned by this replica
+	 */
+	@PutMapping("/internal/cache/{key}")
+	public ResponseEntity<Void> put(@PathVariable String key,
+			@RequestHeader(value = ClusterCache.TOKEN_HEADER, required = false) String token,
+			@RequestBody ScenarioAnalysisResponse analysis) {
+		HttpStatus rejection = check(key, token);
+		if (rejection != null) {
+			return ResponseEntity.status(rejection).build();
+		}
+		if (!cluster.isOwned(key)) {
+			return ResponseEntity.status(HttpStatus.CONFLICT).build();
+		}
+		cache.put(key, analysis);
+		store.put(key, analysis);
+		return ResponseEntity.noContent().build();
+	}
+
+	private HttpStatus check(String key, String token) {
+		if (!cluster.isEnabled()) {
+			return HttpStatus.NOT_FOUND;
+		}
+		if (!cluster.isAuthorized(token)) {
+			return HttpStatus.FORBIDDEN;
+		}
+		if (!KEY.matcher(key).matches()) {
+			return HttpStatus.BAD_REQUEST;
+		}
+		return null;
+	}
+}
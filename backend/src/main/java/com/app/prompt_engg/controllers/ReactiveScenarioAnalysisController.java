@@ -0,0 +1,163 @@
+package com.app.prompt_engg.controllers;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.app.prompt_engg.config.ReactiveCorrelationIdFilter;
+import com.app.prompt_engg.models.AnalysisJob;
+import com.app.prompt_engg.models.BatchAnalysisResult;
+import com.app.prompt_engg.models.ScenarioAnalysisRequest;
+import com.app.prompt_engg.models.ScenarioAnalysisResponse;
+import com.app.prompt_engg.services.AdmissionControl;
+import com.app.prompt_engg.services.AnalysisJobService;
+import com.app.prompt_engg.services.BatchAnalysisService;
+import com.app.prompt_engg.services.ReactiveAiService;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Reactive variant of {@link ScenarioAnalysisController}, active with the {@code reactive} profile.
+ * It serves the same endpoints with the same payloads on Netty, holding no thread while an analysis
+ * is in progress.
+ */
+@RestController
+@Validated
+@Profile("reactive")
+public class ReactiveScenarioAnalysisController {
+
+	@Autowired
+	private ReactiveAiService aiService;
+
+	@Autowired
+	private BatchAnalysisService batchAnalysisService;
+
+	@Autowired
+	private AnalysisJobService jobService;
+
+	private static final Logger log = LoggerFactory.getLogger(ReactiveScenarioAnalysisController.class);
+
+	/**
+	 * Analyzes the provided scenario using AI-generated analysis, with the same ETag revalidation as
+	 * {@link ScenarioAnalysisController#analyseScenario}.
+	 *
+	 * @param req the scenario analysis request containing input parameters
+	 * @param ifNoneMatch the entity tags of the analyses the client already holds, if any
+	 * @return a Mono emitting the ResponseEntity containing the scenario analysis response
+	 */
+	@PostMapping("/analyser")
+	public Mono<ResponseEntity<ScenarioAnalysisResponse>> analyseScenario(@RequestBody ScenarioAnalysisRequest req,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+		return admit(req).flatMap(admitted -> {
+			String etag = aiService.etag(admitted);
+			if (ScenarioAnalysisController.notModified(ifNoneMatch, etag)) {
+				return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build());
+			}
+			return aiService.analyse(admitted).map(response -> {
+				log.debug("Successfully created AI Response: {}", response.getScenarioSummary());
+				return ScenarioAnalysisController.ok(response.isFallback() || response.isPartial() ? null : etag).body(response);
+			});
+		});
+	}
+
+	/**
+	 * Analyzes a batch of scenarios. Each item is reported individually, so a failing scenario does
+	 * not fail the whole batch. The batch is started off the event loop, as each item is admitted
+	 * and tokenized while it is set up.
+	 *
+	 * @param reqs the scenario analysis requests
+	 * @return a Mono emitting the ResponseEntity containing one result per request, in input order
+	 */
+	@PostMapping("/analyser/batch")
+	public Mono<ResponseEntity<List<BatchAnalysisResult>>> analyseBatch(@RequestBody List<ScenarioAnalysisRequest> reqs) {
+		return Mono.deferContextual(context -> Mono.fromFuture(
+				() -> ReactiveCorrelationIdFilter.withMdc(context, () -> batchAnalysisService.analyseBatch(reqs))))
+				.subscribeOn(Schedulers.boundedElastic())
+				.map(results -> {
+					log.info("Completed batch of {} analyses", results.size());
+					return ResponseEntity.ok(results);
+				});
+	}
+
+	/**
+	 * Queues the analysis as a job and returns at once, as {@link ScenarioAnalysisController#submitJob} does.
+	 * The job is submitted off the event loop, as submission admits and tokenizes the request.
+	 *
+	 * @param req the scenario analysis request containing input parameters
+	 * @param priority the job's priority; higher priorities run first
+	 * @return a Mono emitting a 202 ResponseEntity containing the queued job
+	 */
+	@PostMapping("/analyser/jobs")
+	public Mono<ResponseEntity<AnalysisJob>> submitJob(@RequestBody ScenarioAnalysisRequest req,
+			@RequestParam(defaultValue = "0") int priority) {
+		// The job keeps the MDC of its submission, so it must be set while submitting.
+		return Mono.deferContextual(context -> Mono.fromCallable(
+				() -> ReactiveCorrelationIdFilter.withMdc(context, () -> jobService.submit(req, priority))))
+				.subscribeOn(Schedulers.boundedElastic())
+				.map(job -> ResponseEntity.accepted().location(ScenarioAnalysisController.jobLocation(job)).body(job));
+	}
+
+	/**
+	 * Returns the state of a job, with long polling as in {@link ScenarioAnalysisController#getJob}.
+	 *
+	 * @param id the job ID
+	 * @param wait the seconds to wait for the job to finish
+	 * @return a Mono emitting the ResponseEntity containing the job
+	 */
+	@GetMapping("/analyser/jobs/{id}")
+	public Mono<ResponseEntity<AnalysisJob>> getJob(@PathVariable String id, @RequestParam(defaultValue = "0") long wait) {
+		return Mono.defer(() -> Mono.fromFuture(jobService.await(id, Duration.ofSeconds(wait)))).map(ResponseEntity::ok);
+	}
+
+	/**
+	 * Streams the analysis as Server-Sent Events, with the same events as
+	 * {@link ScenarioAnalysisController#analyseScenarioStream}. The upstream call is abandoned if the
+	 * client disconnects.
+	 *
+	 * @param req the scenario analysis request containing input parameters
+	 * @param ifNoneMatch the entity tags of the analyses the client already holds, if any
+	 * @return the events, or a 304 without a body
+	 */
+	@PostMapping(path = "/analyser/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public Mono<ResponseEntity<Flux<ServerSentEvent<Object>>>> analyseScenarioStream(@RequestBody ScenarioAnalysisRequest req,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+		return admit(req).map(admitted -> {
+			String etag = aiService.etag(admitted);
+			if (ScenarioAnalysisController.notModified(ifNoneMatch, etag)) {
+				return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).<Flux<ServerSentEvent<Object>>>build();
+			}
+			return ScenarioAnalysisController.ok(etag).body(aiService.analyseStream(admitted)
+					.map(event -> ServerSentEvent.builder(event.data()).event(event.name()).build()));
+		});
+	}
+
+	/**
+	 * Admits the request, off the event loop as admission tokenizes the prompt. The entity tag is
+	 * computed from the admitted request, so a refused request is never answered with a 304.
+	 */
+	private Mono<AdmissionControl.Admission> admit(ScenarioAnalysisRequest req) {
+		return Mono.deferContextual(context -> Mono.fromCallable(
+				() -> ReactiveCorrelationIdFilter.withMdc(context, () -> aiService.admit(req))))
+				.subscribeOn(Schedulers.boundedElastic());
+	}
+
+}
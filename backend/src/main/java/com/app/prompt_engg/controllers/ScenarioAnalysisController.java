@@ -1,48 +1,270 @@
 package com.app.prompt_engg.controllers;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.app.prompt_engg.models.AnalysisJob;
+import com.app.prompt_engg.models.BatchAnalysisResult;
 import com.app.prompt_engg.models.ScenarioAnalysisRequest;
 import com.app.prompt_engg.models.ScenarioAnalysisResponse;
+import com.app.prompt_engg.services.AdmissionControl;
 import com.app.prompt_engg.services.AiService;
+import com.app.prompt_engg.services.AnalysisJobService;
+import com.app.prompt_engg.services.BatchAnalysisService;
+import com.app.prompt_engg.services.IncrementalAnalysisParser;
 
 /**
- * REST controller for managing scenario analyses.
+ * REST controller for managing scenario analyses. With the {@code reactive} profile it is replaced by
+ * {@link ReactiveScenarioAnalysisController}.
  */
 @RestController
 @Validated
+@Profile("!reactive")
 public class ScenarioAnalysisController {
 
 	@Autowired
 	private AiService aiService;
 
+	@Autowired
+	private BatchAnalysisService batchAnalysisService;
+
+	@Autowired
+	private AnalysisJobService jobService;
+
+	@Value("${analysis.stream.timeout:PT2M}")
+	private Duration streamTimeout;
+
 	private static final Logger log = LoggerFactory.getLogger(ScenarioAnalysisController.class);
 
 	/**
 	 * Analyzes the provided scenario using AI-generated analysis.
 	 *
+	 * The servlet thread is released while the upstream call is in progress, and the analysis is
+	 * cancelled if the client disconnects or the request times out first. The response carries an
+	 * ETag keyed on the prompt hash; a client that sends it back in {@code If-None-Match} gets a 304
+	 * without a new analysis being generated.
+	 *
 	 * @param req the scenario analysis request containing input parameters
-	 * @return a ResponseEntity containing the scenario analysis response
+	 * @param ifNoneMatch the entity tags of the analyses the client already holds, if any
+	 * @return a deferred ResponseEntity containing the scenario analysis response
 	 * @throws Exception if an error occurs during analysis
 	 */
 	@PostMapping("/analyser")
-	public ResponseEntity<ScenarioAnalysisResponse> analyseScenario(@RequestBody ScenarioAnalysisRequest req){
+	public DeferredResult<ResponseEntity<ScenarioAnalysisResponse>> analyseScenario(@RequestBody ScenarioAnalysisRequest req,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+
+		// Tag the request as admitted, so that a refused request is never answered with a 304.
+		AdmissionControl.Admission admitted = aiService.admit(req);
+		String etag = aiService.etag(admitted);
+		if (notModified(ifNoneMatch, etag)) {
+			log.debug("Client already holds the analysis {}", etag);
+			return deferred(CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build()), null);
+		}
 
 		// Invoke AI service to process the analysis request
-		ScenarioAnalysisResponse response = aiService.generateAnalysis(req);
-		
-		// Log successful generation of the analysis response
-		log.info("Successfully created AI Response: {}", response);
-		
-		// Return the analysis response wrapped in a ResponseEntity
-		return ResponseEntity.ok(response);
+		CompletableFuture<ScenarioAnalysisResponse> analysis = aiService.generateAnalysisAsync(admitted);
+		return deferred(analysis.thenApply(response -> {
+			// Log successful generation of the analysis response
+			log.debug("Successfully created AI Response: {}", response.getScenarioSummary());
+
+			// Return the analysis response wrapped in a ResponseEntity; fallbacks and partial analyses must not be revalidated
+			return ok(response.isFallback() || response.isPartial() ? null : etag).body(response);
+		}), analysis);
+	}
+
+	/**
+	 * Analyzes a batch of scenarios. Each item is reported individually, so a failing scenario does
+	 * not fail the whole batch.
+	 *
+	 * @param reqs the scenario analysis requests
+	 * @return a future ResponseEntity containing one result per request, in input order
+	 */
+	@PostMapping("/analyser/batch")
+	public CompletableFuture<ResponseEntity<List<BatchAnalysisResult>>> analyseBatch(@RequestBody List<ScenarioAnalysisRequest> reqs) {
+		return batchAnalysisService.analyseBatch(reqs).thenApply(results -> {
+			log.info("Completed batch of {} analyses", results.size());
+			return ResponseEntity.ok(results);
+		});
+	}
+
+	/**
+	 * Queues the analysis as a job and returns at once, for clients that cannot hold a connection open
+	 * while it is generated.
+	 *
+	 * @param req the scenario analysis request containing input parameters
+	 * @param priority the job's priority; higher priorities run first
+	 * @return a 202 ResponseEntity containing the queued job, with its URL in the Location header
+	 */
+	@PostMapping("/analyser/jobs")
+	public ResponseEntity<AnalysisJob> submitJob(@RequestBody ScenarioAnalysisRequest req,
+			@RequestParam(defaultValue = "0") int priority) {
+		AnalysisJob job = jobService.submit(req, priority);
+		return ResponseEntity.accepted().location(jobLocation(job)).body(job);
+	}
+
+	/**
+	 * Returns the state of a job, with the analysis once it has succeeded. With {@code wait}, the
+	 * response is held until the job finishes or the wait elapses (long polling).
+	 *
+	 * @param id the job ID
+	 * @param wait the seconds to wait for the job to finish
+	 * @return a future ResponseEntity containing the job
+	 */
+	@GetMapping("/analyser/jobs/{id}")
+	public CompletableFuture<ResponseEntity<AnalysisJob>> getJob(@PathVariable String id,
+			@RequestParam(defaultValue = "0") long wait) {
+		return jobService.await(id, Duration.ofSeconds(wait)).thenApply(ResponseEntity::ok);
+	}
+
+	/**
+	 * Streams the analysis as Server-Sent Events. Each event is named after the section it belongs to
+	 * ({@code summary}, {@code pitfalls_or_risks}, {@code proposed_strategies},
+	 * {@code recommended_resources}, {@code disclaimer}) and carries either a {@code value} or a single
+	 * list {@code item}. A final {@code complete} event carries the full analysis, or an {@code error}
+	 * event is sent if generation fails. Revalidation works as for {@link #analyseScenario}; as the
+	 * ETag is sent before the analysis is known, clients should only keep analyses whose
+	 * {@code complete} event is not a fallback.
+	 *
+	 * @param req the scenario analysis request containing input parameters
+	 * @param ifNoneMatch the entity tags of the analyses the client already holds, if any
+	 * @return the emitter the events are written to, or a 304 without a body
+	 */
+	@PostMapping("/analyser/stream")
+	public ResponseEntity<SseEmitter> analyseScenarioStream(@RequestBody ScenarioAnalysisRequest req,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+		AdmissionControl.Admission admitted = aiService.admit(req);
+		String etag = aiService.etag(admitted);
+		if (notModified(ifNoneMatch, etag)) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+		}
+
+		SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+
+		CompletableFuture<ScenarioAnalysisResponse> analysis = aiService.streamAnalysis(admitted, new IncrementalAnalysisParser.Listener() {
+			@Override
+			public void onValue(String section, String value) {
+				send(emitter, section, Map.of("value", value));
+			}
+
+			@Override
+			public void onItem(String section, String item) {
+				send(emitter, section, Map.of("item", item));
+			}
+		});
+		// Stop generating once the client has gone or the stream has timed out.
+		emitter.onCompletion(() -> analysis.cancel(true));
+		analysis.whenComplete((response, e) -> {
+			try {
+				if (e != null) {
+					Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+					send(emitter, "error", Map.of("message", String.valueOf(cause.getMessage())));
+				} else {
+					log.debug("Successfully streamed AI Response: {}", response.getScenarioSummary());
+					send(emitter, "complete", response);
+				}
+				emitter.complete();
+			} catch (RuntimeException sendFailure) {
+				emitter.completeWithError(sendFailure);
+			}
+		});
+
+		return ok(etag).body(emitter);
+	}
+
+	/**
+	 * Checks an {@code If-None-Match} header against the entity tag of the requested analysis, using
+	 * weak comparison. Spring's {@code checkNotModified} is not used because it answers a matching
+	 * POST with 412 rather than 304.
+	 *
+	 * @param ifNoneMatch the header value, or null
+	 * @param etag the entity tag of the requested analysis, or null if it has none
+	 * @return true if the client already holds the analysis
+	 */
+	static boolean notModified(String ifNoneMatch, String etag) {
+		if (ifNoneMatch == null || etag == null) {
+			return false;
+		}
+		String opaqueTag = opaqueTag(etag);
+		for (String candidate : ifNoneMatch.split(",")) {
+			if (opaqueTag(candidate.strip()).equals(opaqueTag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String opaqueTag(String etag) {
+		return etag.startsWith("W/") ? etag.substring(2) : etag;
+	}
+
+	/**
+	 * Adapts a future to a DeferredResult, as Spring does for returned futures, but also cancels the
+	 * source when the request ends without its result: the callbacks run on client disconnects and
+	 * timeouts as well as on completion, and cancelling a finished analysis does nothing.
+	 *
+	 * @param future the future of the response
+	 * @param source the analysis the response is derived from, or null
+	 * @return the deferred response
+	 */
+	static <T> DeferredResult<T> deferred(CompletableFuture<T> future, CompletableFuture<?> source) {
+		DeferredResult<T> result = new DeferredResult<>();
+		if (source != null) {
+			result.onCompletion(() -> source.cancel(true));
+		}
+		future.whenComplete((value, e) -> {
+			if (e != null) {
+				result.setErrorResult(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+			} else {
+				result.setResult(value);
+			}
+		});
+		return result;
+	}
+
+	static URI jobLocation(AnalysisJob job) {
+		return URI.create("/analyser/jobs/" + job.getId());
+	}
+
+	/**
+	 * @return a 200 builder, carrying the entity tag if there is one
+	 */
+	static ResponseEntity.BodyBuilder ok(String etag) {
+		ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+		return etag != null ? builder.eTag(etag) : builder;
+	}
+
+	private static void send(SseEmitter emitter, String event, Object data) {
+		try {
+			emitter.send(SseEmitter.event().name(event).data(data, MediaType.APPLICATION_JSON));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
 	}
 
 }
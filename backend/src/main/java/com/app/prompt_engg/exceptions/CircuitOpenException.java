@@ -0,0 +1,14 @@
+package com.app.prompt_engg.exceptions;
+
+/**
+ * Thrown when the upstream circuit breaker refuses a call; callers answer with a fallback instead.
+ */
+public class CircuitOpenException extends RuntimeException{
+	
+	private static final long serialVersionUID = 1L;
+
+	public CircuitOpenException(String message) {
+        super(message);
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.app.prompt_engg.exceptions;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -16,6 +17,32 @@ public class GlobalExceptionHandler {
 		return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
 	}
 
+	@ExceptionHandler(PayloadTooLargeException.class)
+	public ResponseEntity<Response> handlePayloadTooLargeException(PayloadTooLargeException ex) {
+		return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+				.body(new Response(ex.getMessage(), HttpStatus.PAYLOAD_TOO_LARGE));
+	}
+
+	@ExceptionHandler(JobNotFoundException.class)
+	public ResponseEntity<Response> handleJobNotFoundException(JobNotFoundException ex) {
+		return ResponseEntity.status(HttpStatus.NOT_FOUND)
+				.body(new Response(ex.getMessage(), HttpStatus.NOT_FOUND));
+	}
+
+	@ExceptionHandler(TooManyRequestsException.class)
+	public ResponseEntity<Response> handleTooManyRequestsException(TooManyRequestsException ex) {
+		return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+				.header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+				.body(new Response(ex.getMessage(), HttpStatus.TOO_MANY_REQUESTS));
+	}
+
+	@ExceptionHandler(UpstreamUnavailableException.class)
+	public ResponseEntity<Response> handleUpstreamUnavailableException(UpstreamUnavailableException ex) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+				.body(new Response(ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE));
+	}
+
 	@ExceptionHandler(RuntimeException.class)
 	public ResponseEntity<Response> handleGenericException(Exception ex) {
 		return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -0,0 +1,14 @@
+package com.app.prompt_engg.exceptions;
+
+/**
+ * Thrown when an analysis job is unknown, or its result has expired.
+ */
+public class JobNotFoundException extends RuntimeException{
+	
+	private static final long serialVersionUID = 1L;
+
+	public JobNotFoundException(String message) {
+        super(message);
+    }
+
+}
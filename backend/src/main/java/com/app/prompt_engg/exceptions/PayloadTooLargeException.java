@@ -0,0 +1,15 @@
+package com.app.prompt_engg.exceptions;
+
+/**
+ * Thrown when a request exceeds the configured size limits, so that it is rejected before any
+ * upstream call is made.
+ */
+public class PayloadTooLargeException extends InvalidScenarioException{
+	
+	private static final long serialVersionUID = 1L;
+
+	public PayloadTooLargeException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,22 @@
+package com.app.prompt_engg.exceptions;
+
+/**
+ * Thrown when the upstream AI API cannot take the call for now, for example because its rate limit
+ * was reached; the caller should retry after the given delay.
+ */
+public class UpstreamUnavailableException extends RuntimeException{
+	
+	private static final long serialVersionUID = 1L;
+
+	private final long retryAfterSeconds;
+
+	public UpstreamUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+	public long getRetryAfterSeconds() {
+		return retryAfterSeconds;
+	}
+
+}
@@ -0,0 +1,54 @@
+package com.app.prompt_engg.models;
+
+public class AnalysisJob {
+
+	public enum Status {
+		QUEUED, RUNNING, SUCCEEDED, FAILED
+	}
+
+    private String id;
+    private Status status;
+    private ScenarioAnalysisResponse response;
+    private String error;
+
+	public AnalysisJob(String id, Status status, ScenarioAnalysisResponse response, String error) {
+		super();
+		this.id = id;
+		this.status = status;
+		this.response = response;
+		this.error = error;
+	}
+
+	public AnalysisJob() {
+		super();
+	}
+
+	public String getId() {
+		return id;
+	}
+	public void setId(String id) {
+		this.id = id;
+	}
+	public Status getStatus() {
+		return status;
+	}
+	public void setStatus(Status status) {
+		this.status = status;
+	}
+	public ScenarioAnalysisResponse getResponse() {
+		return response;
+	}
+	public void setResponse(ScenarioAnalysisResponse response) {
+		this.response = response;
+	}
+	public String getError() {
+		return error;
+	}
+	public void setError(String error) {
+		this.error = error;
+	}
+	public boolean isDone() {
+		return status == Status.SUCCEEDED || status == Status.FAILED;
+	}
+
+}
@@ -0,0 +1,49 @@
+package com.app.prompt_engg.models;
+
+public class BatchAnalysisResult {
+    private int index;
+    private ScenarioAnalysisResponse response;
+    private String error;
+
+	public BatchAnalysisResult(int index, ScenarioAnalysisResponse response, String error) {
+		super();
+		this.index = index;
+		this.response = response;
+		this.error = error;
+	}
+
+	public BatchAnalysisResult() {
+		super();
+	}
+
+	public static BatchAnalysisResult success(int index, ScenarioAnalysisResponse response) {
+		return new BatchAnalysisResult(index, response, null);
+	}
+
+	public static BatchAnalysisResult failure(int index, String error) {
+		return new BatchAnalysisResult(index, null, error);
+	}
+
+	public int getIndex() {
+		return index;
+	}
+	public void setIndex(int index) {
+		this.index = index;
+	}
+	public ScenarioAnalysisResponse getResponse() {
+		return response;
+	}
+	public void setResponse(ScenarioAnalysisResponse response) {
+		this.response = response;
+	}
+	public String getError() {
+		return error;
+	}
+	public void setError(String error) {
+		this.error = error;
+	}
+	public boolean isSuccess() {
+		return error == null;
+	}
+
+}
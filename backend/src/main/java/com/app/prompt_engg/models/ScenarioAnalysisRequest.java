@@ -5,6 +5,7 @@ import java.util.List;
 public class ScenarioAnalysisRequest {
     private String scenario;
     private List<String> constraints;
+    private String template;
 	public String getScenario() {
 		return scenario;
 	}
@@ -17,6 +18,12 @@ public class ScenarioAnalysisRequest {
 	public void setConstraints(List<String> constraints) {
 		this.constraints = constraints;
 	}
+	public String getTemplate() {
+		return template;
+	}
+	public void setTemplate(String template) {
+		this.template = template;
+	}
     
     
 }
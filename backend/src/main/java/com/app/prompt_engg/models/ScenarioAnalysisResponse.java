@@ -8,6 +8,8 @@ public class ScenarioAnalysisResponse {
     private List<String> proposedStrategies;
     private List<String> recommendedResources;
     private String disclaimer;
+    private boolean fallback;
+    private boolean partial;
 	
     public ScenarioAnalysisResponse(String scenarioSummary, List<String> potentialPitfalls,
 			List<String> proposedStrategies, List<String> recommendedResources, String disclaimer) {
@@ -53,5 +55,24 @@ public class ScenarioAnalysisResponse {
 	public void setDisclaimer(String disclaimer) {
 		this.disclaimer = disclaimer;
 	}
+	/**
+	 * @return true if this is not a fresh analysis but a fallback served while the AI API is unavailable
+	 */
+	public boolean isFallback() {
+		return fallback;
+	}
+	public void setFallback(boolean fallback) {
+		this.fallback = fallback;
+	}
+	/**
+	 * @return true if the analysis was generated section by section and some sections failed, which
+	 *         are then left empty
+	 */
+	public boolean isPartial() {
+		return partial;
+	}
+	public void setPartial(boolean partial) {
+		this.partial = partial;
+	}
     
 }
@@ -0,0 +1,182 @@
+package com.app.prompt_engg.services;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.app.prompt_engg.exceptions.InvalidScenarioException;
+import com.app.prompt_engg.exceptions.PayloadTooLargeException;
+import com.app.prompt_engg.models.ScenarioAnalysisRequest;
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingResult;
+
+/**
+ * Admission control in front of the prompt build: checks that a request is well-formed and within
+ * the configured size limits before any upstream call is made. The cheap checks on constraint count
+ * and character lengths run first, so an oversized paste is refused without being tokenized; the
+ * rendered prompt is then counted with a local tokenizer against the token limit. With truncation
+ * enabled, an oversized scenario is cut down to fit instead of being rejected. The prompt is rendered
+ * from a compacted copy of the request: runs of whitespace are collapsed and empty or repeated
+ * constraints dropped, so that no input tokens are spent on them.
+ */
+@Component
+public class AdmissionControl {
+
+	private static final Logger logger = LoggerFactory.getLogger(AdmissionControl.class);
+
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+	/**
+	 * An admitted request, with its prompt and the prompt's token count.
+	 *
+	 * @param request the request, or a compacted copy, with the scenario truncated if needed
+	 * @param prompt the rendered prompt, without the static instructions
+	 * @param promptTokens the tokens of the prompt and the static instructions
+	 * @param truncated whether the scenario was truncated to fit the limits
+	 */
+	public record Admission(ScenarioAnalysisRequest request, String prompt, int promptTokens, boolean truncated) {
+	}
+
+	private final PromptTemplates templates;
+	private final int maxScenarioChars;
+	private final int maxConstraints;
+	private final int maxConstraintChars;
+	private final int maxPromptTokens;
+	private final boolean truncate;
+	private final Encoding encoding;
+	private final int instructionTokens;
+
+	@Autowired
+	public AdmissionControl(PromptTemplates templates,
+			@Value("${analysis.admission.max-scenario-chars:20000}") int maxScenarioChars,
+			@Value("${analysis.admission.max-constraints:20}") int maxConstraints,
+			@Value("${analysis.admission.max-constraint-chars:500}") int maxConstraintChars,
+			@Value("${analysis.admission.max-prompt-tokens:8000}") int maxPromptTokens,
+			@Value("${analysis.admission.truncate:false}") boolean truncate,
+			@Value("${analysis.admission.encoding:o200k_base}") String encoding) {
+		this.templates = templates;
+		this.maxScenarioChars = maxScenarioChars;
+		this.maxConstraints = maxConstraints;
+		this.maxConstraintChars = maxConstraintChars;
+		this.maxPromptTokens = maxPromptTokens;
+		this.truncate = truncate;
+		this.encoding = Encodings.newLazyEncodingRegistry().getEncoding(encoding)
+				.orElseThrow(() -> new IllegalArgumentException("Unknown tokenizer encoding: " + encoding));
+		this.instructionTokens = templates.getInstructions().isEmpty() ? 0 : this.encoding.countTokens(templates.getInstructions());
+	}
+
+	/**
+	 * Checks a request and renders its prompt.
+	 *
+	 * @param request the request
+	 * @return the admitted request and its prompt
+	 * @throws InvalidScenarioException if the request is malformed or names an unknown template
+	 * @throws PayloadTooLargeException if the request exceeds a limit and cannot be truncated to fit
+	 */
+	public Admission admit(ScenarioAnalysisRequest request) {
+		if (request == null || request.getScenario() == null || request.getScenario().isBlank()
+				|| request.getConstraints() == null || request.getConstraints().isEmpty()) {
+			throw new InvalidScenarioException("Unable to process request, not a valid scenario");
+		}
+		List<String> constraints = request.getConstraints();
+		if (constraints.size() > maxConstraints) {
+			throw new PayloadTooLargeException("Unable to process request, more than " + maxConstraints + " constraints");
+		}
+		for (String constraint : constraints) {
+			if (constraint == null) {
+				throw new InvalidScenarioException("Unable to process request, constraints must not be null");
+			}
+			if (constraint.length() > maxConstraintChars) {
+				throw new PayloadTooLargeException("Unable to process request, a constraint exceeds " + maxConstraintChars + " characters");
+			}
+		}
+		PromptTemplate template = templates.get(request.getTemplate());
+		constraints = compact(constraints);
+
+		String scenario = compact(request.getScenario());
+		boolean truncated = false;
+		if (scenario.length() > maxScenarioChars) {
+			if (!truncate) {
+				throw new PayloadTooLargeException("Unable to process request, scenario exceeds " + maxScenarioChars + " characters");
+			}
+			scenario = scenario.substring(0, maxScenarioChars);
+			truncated = true;
+		}
+
+		String prompt = template.render(scenario, constraints);
+		int promptTokens = instructionTokens + encoding.countTokens(prompt);
+		if (promptTokens > maxPromptTokens) {
+			if (!truncate) {
+				throw new PayloadTooLargeException("Unable to process request, prompt exceeds " + maxPromptTokens + " tokens");
+			}
+			// Tokens can merge differently at the cut, so recount and cut again if still over.
+			for (int attempt = 0; promptTokens > maxPromptTokens && attempt < 3; attempt++) {
+				scenario = truncateScenario(template, scenario, promptTokens);
+				prompt = template.render(scenario, constraints);
+				promptTokens = instructionTokens + encoding.countTokens(prompt);
+			}
+			if (promptTokens > maxPromptTokens) {
+				throw new PayloadTooLargeException("Unable to process request, prompt exceeds " + maxPromptTokens + " tokens");
+			}
+			truncated = true;
+		}
+
+		if (!truncated && scenario.equals(request.getScenario()) && constraints.equals(request.getConstraints())) {
+			return new Admission(request, prompt, promptTokens, false);
+		}
+		if (truncated) {
+			logger.info("Truncated scenario from {} to {} characters to fit the prompt limits",
+					request.getScenario().length(), scenario.length());
+		}
+		ScenarioAnalysisRequest admitted = new ScenarioAnalysisRequest();
+		admitted.setScenario(scenario);
+		admitted.setConstraints(constraints);
+		admitted.setTemplate(request.getTemplate());
+		return new Admission(admitted, prompt, promptTokens, truncated);
+	}
+
+	private static String compact(String text) {
+		return WHITESPACE.matcher(text.strip()).replaceAll(" ");
+	}
+
+	/**
+	 * Compacts each constraint and drops the empty ones and those repeating an earlier one up to
+	 * letter case, keeping the first spelling and the original order.
+	 */
+	private static List<String> compact(List<String> constraints) {
+		Map<String, String> distinct = new LinkedHashMap<>();
+		for (String constraint : constraints) {
+			String compacted = compact(constraint);
+			if (!compacted.isEmpty()) {
+				distinct.putIfAbsent(compacted.toLowerCase(Locale.ROOT), compacted);
+			}
+		}
+		if (distinct.isEmpty()) {
+			throw new InvalidScenarioException("Unable to process request, not a valid scenario");
+		}
+		return List.copyOf(distinct.values());
+	}
+
+	/**
+	 * Cuts the scenario by the number of tokens the prompt is over the limit, divided over each
+	 * place the template inserts it.
+	 */
+	private String truncateScenario(PromptTemplate template, String scenario, int promptTokens) {
+		int slots = template.getScenarioSlots();
+		int keep = slots == 0 ? 0 : encoding.countTokens(scenario) - (promptTokens - maxPromptTokens + slots - 1) / slots;
+		if (keep <= 0) {
+			throw new PayloadTooLargeException("Unable to process request, constraints and template exceed " + maxPromptTokens + " tokens");
+		}
+		EncodingResult kept = encoding.encode(scenario, keep);
+		return encoding.decode(kept.getTokens());
+	}
+}
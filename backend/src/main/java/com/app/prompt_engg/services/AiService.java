@@ -1,183 +1,925 @@
 package com.app.prompt_engg.services;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
+import com.app.prompt_engg.config.CorrelationIdFilter;
+import com.app.prompt_engg.exceptions.CircuitOpenException;
 import com.app.prompt_engg.exceptions.InvalidScenarioException;
+import com.app.prompt_engg.exceptions.TooManyRequestsException;
+import com.app.prompt_engg.exceptions.UpstreamUnavailableException;
 import com.app.prompt_engg.models.ScenarioAnalysisRequest;
 import com.app.prompt_engg.models.ScenarioAnalysisResponse;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonMappingException;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import com.openai.client.OpenAIClient;
 import com.openai.client.okhttp.OpenAIOkHttpClient;
 import com.openai.core.JsonField;
+import com.openai.core.JsonValue;
+import com.openai.core.http.AsyncStreamResponse;
+import com.openai.core.http.Headers;
+import com.openai.errors.OpenAIServiceException;
+import com.openai.errors.RateLimitException;
 import com.openai.models.ChatModel;
 import com.openai.models.responses.Response;
 import com.openai.models.responses.ResponseCreateParams;
+import com.openai.models.responses.ResponseFormatTextJsonSchemaConfig;
 import com.openai.models.responses.ResponseOutputItem;
+import com.openai.models.responses.ResponseStreamEvent;
+import com.openai.models.responses.ResponseTextConfig;
+import com.openai.models.responses.ResponseUsage;
+
+import io.micrometer.observation.Observation;
 
 /**
- * Service class for handling AI-based scenario analysis.
+ * Service class for handling AI-based scenario analysis. With the {@code reactive} profile it is
+ * replaced by {@link ReactiveAiService}.
  */
 @Service
+@Profile("!reactive")
 public class AiService {
 
     private static final Logger logger = LoggerFactory.getLogger(AiService.class);
+
+	static final String ANALYSIS_FORMAT_NAME = "scenario_analysis";
+
+	private static final ResponseTextConfig ANALYSIS_FORMAT = analysisFormat(ANALYSIS_FORMAT_NAME, analysisSchema());
+
+	private static final Map<AnalysisSection, ResponseTextConfig> SECTION_FORMATS = sectionFormats();
+
+	private static final String DEGRADED_SUMMARY = "The analysis service is temporarily unavailable, please try again in a few minutes.";
+	private static final String DEGRADED_DISCLAIMER = "No AI analysis could be generated for this scenario at this time.";
+	
+	@Autowired
+	private PromptTemplates templates;
+	
+	@Value("${openai.structured-output:false}")
+	private boolean structuredOutput;
 	
-	@Value("${openai.prompt}")
-	private String prompt;
+	@Value("${analysis.sections.enabled:false}")
+	private boolean sectionsEnabled;
+	
+	@Value("${analysis.sections.max-output-tokens:600}")
+	private long sectionMaxOutputTokens;
+	
+	@Value("${analysis.logging.payload-sample-rate:0}")
+	private double payloadSampleRate;
 	
 	@Autowired
 	private OpenAIClient client;
 	
+	@Autowired
+	private AdmissionControl admission;
+	
+	@Autowired
+	private AnalysisCache cache;
+	
+	@Autowired
+	private AnalysisStore store;
+	
+	@Autowired
+	private InFlightLimiter inFlightLimiter;
+	
+	@Autowired
+	private RateLimitGovernor governor;
+	
+	@Autowired
+	private ModelRouter router;
+	
+	@Autowired
+	private RequestHedger hedger;
+	
+	@Autowired
+	private CircuitBreaker breaker;
+	
+	@Autowired
+	private SingleFlight singleFlight;
+	
+	@Autowired
+	private ClusterCache cluster;
+	
+	@Autowired
+	private AnalysisMetrics metrics;
+	
+	@Autowired
+	@Qualifier("analysisExecutor")
+	private Executor analysisExecutor;
+	
 	
 	/**
-	 * Generates an analysis based on the given scenario and constraints.
+	 * Generates an analysis based on the given scenario and constraints, blocking until it is available.
 	 *
 	 * @param request a ScenarioAnalysisRequest containing the scenario and constraints
 	 * @return a ScenarioAnalysisResponse with the analysis details
 	 * @throws Exception if the request is invalid or any error occurs during analysis generation
 	 */
 	public ScenarioAnalysisResponse generateAnalysis(ScenarioAnalysisRequest request) {
-		// Log the start of request processing.
-		logger.info("Starting analysis generation for scenario: {}", request != null ? request.getScenario() : "null");
-		
-		ScenarioAnalysisResponse result;
 		try {
+			return generateAnalysisAsync(request).join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Generates an analysis based on the given scenario and constraints without blocking the caller.
+	 * The upstream call runs on the OpenAI client's async dispatcher and parsing on the analysis executor.
+	 * When the cluster cache is enabled, prompts owned by another replica are first looked up there.
+	 *
+	 * @param request a ScenarioAnalysisRequest containing the scenario and constraints
+	 * @return a future completing with the analysis, or exceptionally with an InvalidScenarioException,
+	 *         or with an UpstreamUnavailableException if the upstream rate limit does not admit the call,
+	 *         or with a TooManyRequestsException if a prompt the owning replica did not have is rejected
+	 * @throws InvalidScenarioException if the request is invalid, or a PayloadTooLargeException if it
+	 *         exceeds the admission limits
+	 * @throws TooManyRequestsException if the maximum number of in-flight upstream calls is reached or
+	 *         the rate-limit queue is full
+	 */
+	public CompletableFuture<ScenarioAnalysisResponse> generateAnalysisAsync(ScenarioAnalysisRequest request) {
+		logPayload("Scenario: {}", request != null ? request.getScenario() : "null");
+		// Reject malformed and oversized requests before any upstream work.
+		return generateAnalysisAsync(admit(request));
+	}
+
+	/**
+	 * Generates an analysis of a request that has already been admitted, as
+	 * {@link #generateAnalysisAsync(ScenarioAnalysisRequest)} does.
+	 *
+	 * @param admitted the admitted request, from {@link #admit}
+	 * @return a future completing with the analysis
+	 * @throws TooManyRequestsException if the maximum number of in-flight upstream calls is reached or
+	 *         the rate-limit queue is full
+	 */
+	public CompletableFuture<ScenarioAnalysisResponse> generateAnalysisAsync(AdmissionControl.Admission admitted) {
+		// Log the start of request processing.
+		logger.info("Starting analysis generation.");
 
-			if (request == null || request.getScenario() == null || request.getScenario().isBlank() || request.getConstraints().isEmpty()) {
-				throw new InvalidScenarioException("Unable to process request, not a valid scenario");
+		String cacheKey;
+		ModelRouter.Route route;
+		try {
+			logPayload("Constraints: {}", admitted.request().getConstraints());
+			// Serve repeated scenarios straight from the cache or the persistent store.
+			cacheKey = cacheKey(admitted.request());
+			Optional<ScenarioAnalysisResponse> cached = lookup(cacheKey);
+			if (cached.isPresent()) {
+				logger.debug("Cache hit for prompt {}", cacheKey);
+				return CompletableFuture.completedFuture(cached.get());
+			}
+			// Fail fast while the upstream is known to be down.
+			if (breaker.isOpen()) {
+				return CompletableFuture.completedFuture(fallback(cacheKey));
 			}
 
-			logger.info(request.getConstraints().toString());
-			// Log before building the prompt.
-			logger.info("Building prompt for AI API call.");
-			String prompt = buildPrompt(request);
+			logPayload("Constructed prompt: {}", admitted.prompt());
+			route = router.route(admitted.request());
+
+		} catch (Exception e) {
+			throw toAnalysisFailure(e);
+		}
+
+		// Identical requests already in flight share a single upstream call.
+		CompletableFuture<ScenarioAnalysisResponse> analysis = singleFlight.execute(cacheKey, () -> {
+			if (!cluster.isRemote(cacheKey)) {
+				return callUpstream(admitted, route, cacheKey);
+			}
+			// Another replica owns this prompt: ask it before generating the analysis here.
+			Map<String, String> mdc = MDC.getCopyOfContextMap();
+			return Cancellation.thenCompose(cluster.fetch(cacheKey), remote -> {
+				if (remote.isPresent()) {
+					logger.debug("Cluster cache hit for prompt {}", cacheKey);
+					cache.put(cacheKey, remote.get());
+					return CompletableFuture.completedFuture(remote.get());
+				}
+				Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+				if (mdc != null) {
+					MDC.setContextMap(mdc);
+				}
+				try {
+					return callUpstream(admitted, route, cacheKey);
+				} finally {
+					if (previousMdc != null) {
+						MDC.setContextMap(previousMdc);
+					} else {
+						MDC.clear();
+					}
+				}
+			});
+		});
+		// The controller cancels the analysis when its client disconnects or times out.
+		analysis.whenComplete((result, e) -> metrics.recordRequest(analysis.isCancelled()));
+		return analysis;
+	}
 
+	private CompletableFuture<ScenarioAnalysisResponse> callUpstream(AdmissionControl.Admission admitted,
+			ModelRouter.Route route, String cacheKey) {
+		if (sectionsEnabled) {
+			return callSections(admitted, route, cacheKey);
+		}
+		acquireInFlightSlot();
+		CompletableFuture<String> apiCall;
+		try {
 			// Log before calling the API.
-			logger.info("Calling AI API with built prompt.");
-			String apiResponse = callApi(prompt);
-			
-			// Log the raw API response.
-			logger.info("Received API response.");
-			logger.info("API response: {}", apiResponse);
-			result = parseApiResponse(apiResponse);
+			logger.debug("Calling AI API with built prompt.");
+			// Slow calls are hedged, budget permitting.
+			String prompt = admitted.prompt();
+			apiCall = governed(admitted.promptTokens(), () -> hedger.execute(route, model -> callApiAsync(prompt, model),
+					() -> governor.tryAcquire(governor.estimateTokens(admitted.promptTokens()))));
+		} catch (RuntimeException e) {
+			inFlightLimiter.release();
+			throw toAnalysisFailure(e);
+		}
+
+		return completeAnalysis(apiCall, cacheKey);
+	}
+
+	/**
+	 * Generates the sections of an analysis with concurrent upstream calls, each governed, guarded and
+	 * hedged on its own, and merges them once all have finished. The analysis holds a single in-flight
+	 * slot for all its calls.
+	 */
+	private CompletableFuture<ScenarioAnalysisResponse> callSections(AdmissionControl.Admission admitted,
+			ModelRouter.Route route, String cacheKey) {
+		acquireInFlightSlot();
+		Map<AnalysisSection, CompletableFuture<String>> calls = new EnumMap<>(AnalysisSection.class);
+		try {
+			logger.debug("Calling AI API for {} sections.", AnalysisSection.values().length);
+			int promptTokens = admitted.promptTokens();
+			for (AnalysisSection section : AnalysisSection.values()) {
+				// The section instruction goes last, so all sections share the prompt as their prefix.
+				String prompt = admitted.prompt() + "\n" + section.instruction();
+				calls.put(section, governed(promptTokens, () -> hedger.execute(route, model -> callSectionAsync(prompt, model, section),
+						() -> governor.tryAcquire(governor.estimateTokens(promptTokens)))));
+			}
+		} catch (RuntimeException e) {
+			calls.values().forEach(call -> call.cancel(false));
+			inFlightLimiter.release();
+			throw toAnalysisFailure(e);
+		}
+
+		Map<String, String> mdc = MDC.getCopyOfContextMap();
+		CompletableFuture<ScenarioAnalysisResponse> merged = CompletableFuture.allOf(calls.values().toArray(CompletableFuture<?>[]::new))
+				// Wait for every section, failed or not, before merging.
+				.handle((ignored, e) -> null)
+				.whenComplete((ignored, e) -> inFlightLimiter.release())
+				.thenApplyAsync(ignored -> {
+					Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+					if (mdc != null) {
+						MDC.setContextMap(mdc);
+					}
+					Observation parse = metrics.stage("parse").start();
+					try {
+						return mergeSections(calls, cacheKey);
+					} catch (RuntimeException e) {
+						parse.error(e);
+						throw e;
+					} finally {
+						parse.stop();
+						if (previousMdc != null) {
+							MDC.setContextMap(previousMdc);
+						} else {
+							MDC.clear();
+						}
+					}
+				}, analysisExecutor)
+				.handle((result, e) -> recover(result, e, cacheKey));
+		// Giving up on the analysis stops every section call still running.
+		return Cancellation.onCancel(merged, () -> calls.values().forEach(call -> call.cancel(true)));
+	}
+
+	/**
+	 * Merges the outputs of the section calls. Sections that failed are left empty and the analysis is
+	 * flagged as partial, and then neither cached nor stored; only if every section failed does the
+	 * analysis fail, with the first section's failure.
+	 */
+	private ScenarioAnalysisResponse mergeSections(Map<AnalysisSection, CompletableFuture<String>> calls, String cacheKey) {
+		ScenarioAnalysisResponse merged = new ScenarioAnalysisResponse(null, List.of(), List.of(), List.of(), null);
+		List<AnalysisSection> failed = new ArrayList<>();
+		Throwable failure = null;
+		for (Map.Entry<AnalysisSection, CompletableFuture<String>> call : calls.entrySet()) {
+			try {
+				String output = call.getValue().join();
+				logPayload("API response: {}", output);
+				call.getKey().copy(parseApiResponse(output), merged);
+			} catch (CompletionException | CancellationException | IOException e) {
+				Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+				logger.warn("Section {} of the analysis failed: {}", call.getKey(), cause.getMessage());
+				failed.add(call.getKey());
+				failure = failure != null ? failure : cause;
+			}
+		}
+		if (failed.size() == calls.size()) {
+			throw new CompletionException(failure);
+		}
+		if (!failed.isEmpty()) {
+			metrics.recordPartial(failed.size());
+			merged.setPartial(true);
+			return merged;
+		}
+		cache.put(cacheKey, merged);
+		store.put(cacheKey, merged);
+		cluster.push(cacheKey, merged);
+		return merged;
+	}
+
+	/**
+	 * Generates an analysis using the streaming API, reporting each section to the listener as soon
+	 * as the model has finished writing it. Cached analyses are replayed to the listener immediately.
+	 *
+	 * @param request a ScenarioAnalysisRequest containing the scenario and constraints
+	 * @param listener receives completed sections and list items as they are generated
+	 * @return a future completing with the full analysis once the stream ends
+	 * @throws InvalidScenarioException if the request is invalid, or a PayloadTooLargeException if it
+	 *         exceeds the admission limits
+	 * @throws TooManyRequestsException if the maximum number of in-flight upstream calls is reached or
+	 *         the rate-limit queue is full
+	 */
+	public CompletableFuture<ScenarioAnalysisResponse> streamAnalysis(ScenarioAnalysisRequest request,
+			IncrementalAnalysisParser.Listener listener) {
+		logPayload("Scenario: {}", request != null ? request.getScenario() : "null");
+		return streamAnalysis(admit(request), listener);
+	}
+
+	/**
+	 * Streams an analysis of a request that has already been admitted, as
+	 * {@link #streamAnalysis(ScenarioAnalysisRequest, IncrementalAnalysisParser.Listener)} does.
+	 *
+	 * @param admitted the admitted request, from {@link #admit}
+	 * @param listener receives completed sections and list items as they are generated
+	 * @return a future completing with the full analysis once the stream ends
+	 * @throws TooManyRequestsException if the maximum number of in-flight upstream calls is reached or
+	 *         the rate-limit queue is full
+	 */
+	public CompletableFuture<ScenarioAnalysisResponse> streamAnalysis(AdmissionControl.Admission admitted,
+			IncrementalAnalysisParser.Listener listener) {
+		logger.info("Starting streamed analysis generation.");
+
+		String cacheKey;
+		ModelRouter.Route route;
+		try {
+			cacheKey = cacheKey(admitted.request());
+			Optional<ScenarioAnalysisResponse> cached = lookup(cacheKey);
+			if (cached.isPresent()) {
+				logger.debug("Cache hit for prompt {}", cacheKey);
+				replay(cached.get(), listener);
+				return CompletableFuture.completedFuture(cached.get());
+			}
+			if (breaker.isOpen()) {
+				ScenarioAnalysisResponse fallback = fallback(cacheKey);
+				replay(fallback, listener);
+				return CompletableFuture.completedFuture(fallback);
+			}
 
+			logPayload("Constructed prompt: {}", admitted.prompt());
+			route = router.route(admitted.request());
 		} catch (Exception e) {
-			// Log exception details.
-			logger.error("Error generating response: {}", e.getMessage());
-			throw new InvalidScenarioException("Unable to process request, error generating a response" + e.getMessage());
+			throw toAnalysisFailure(e);
+		}
+
+		acquireInFlightSlot();
+		IncrementalAnalysisParser parser = new IncrementalAnalysisParser(listener);
+		CompletableFuture<String> apiCall;
+		try {
+			apiCall = governed(admitted.promptTokens(), () -> streamApi(admitted.prompt(), route.model(), parser::feed));
+		} catch (RuntimeException e) {
+			inFlightLimiter.release();
+			throw toAnalysisFailure(e);
+		}
+
+		return completeAnalysis(apiCall, cacheKey);
+	}
+
+	/**
+	 * Checks a request against the admission limits, compacting or truncating it as configured.
+	 *
+	 * @param request a ScenarioAnalysisRequest containing the scenario and constraints
+	 * @return the admitted request, with its prompt and token count
+	 * @throws InvalidScenarioException if the request is invalid, or a PayloadTooLargeException if it
+	 *         exceeds the admission limits
+	 */
+	public AdmissionControl.Admission admit(ScenarioAnalysisRequest request) {
+		AdmissionControl.Admission admitted;
+		try {
+			admitted = metrics.observe("admission", () -> admission.admit(request));
+		} catch (RuntimeException e) {
+			throw toAnalysisFailure(e);
+		}
+		if (admitted.truncated()) {
+			metrics.recordTruncation();
+		}
+		return admitted;
+	}
+
+	/**
+	 * Waits for the rate-limit governor to admit an upstream call, then starts it.
+	 *
+	 * @param promptTokens the tokens of the prompt, used to estimate the call's tokens
+	 * @param call starts the upstream call
+	 * @return a future completing with the upstream output
+	 * @throws TooManyRequestsException if the governor's queue is full
+	 */
+	private CompletableFuture<String> governed(int promptTokens, Supplier<CompletableFuture<String>> call) {
+		String clientId = Optional.ofNullable(MDC.get(CorrelationIdFilter.CLIENT_MDC_KEY)).orElse("anonymous");
+		// Cancelling the call withdraws it from the governor's queue, or cancels it once started.
+		return Cancellation.thenCompose(
+				metrics.observeAsync("rate_limit", () -> governor.acquire(clientId, governor.estimateTokens(promptTokens))),
+				admitted -> guarded(() -> metrics.observeAsync("upstream", call)));
+	}
+
+	/**
+	 * Runs an upstream call through the circuit breaker and records its outcome.
+	 *
+	 * @param call starts the upstream call
+	 * @return a future completing with the upstream output, or exceptionally with a
+	 *         CircuitOpenException if the breaker refuses the call
+	 */
+	private CompletableFuture<String> guarded(Supplier<CompletableFuture<String>> call) {
+		if (!breaker.tryAcquirePermission()) {
+			return CompletableFuture.failedFuture(new CircuitOpenException("Upstream circuit breaker is open"));
+		}
+		long start = System.nanoTime();
+		CompletableFuture<String> future;
+		try {
+			future = call.get();
+		} catch (RuntimeException e) {
+			recordOutcome(start, e);
+			throw e;
 		}
+		return Cancellation.propagate(future.whenComplete((result, e) -> recordOutcome(start, e)), future);
+	}
+
+	private void recordOutcome(long start, Throwable e) {
+		long elapsed = System.nanoTime() - start;
+		Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+		if (cause == null) {
+			breaker.onSuccess(elapsed);
+		} else if (cause instanceof CancellationException || isRejectedByUpstream(cause)) {
+			// Cancelled calls and rejected requests say nothing about the upstream's health.
+			breaker.onIgnored();
+		} else {
+			breaker.onFailure(elapsed);
+		}
+	}
 
+	/**
+	 * Answers without the upstream while the circuit breaker is open: the most recent stored analysis
+	 * for the prompt, even if it has expired, or else a degraded placeholder. Neither is cached.
+	 *
+	 * @param cacheKey the prompt hash
+	 * @return the fallback analysis, flagged as such
+	 */
+	private ScenarioAnalysisResponse fallback(String cacheKey) {
+		ScenarioAnalysisResponse response = store.getStale(cacheKey).orElse(null);
+		metrics.recordFallback(response != null ? "stale" : "degraded");
+		if (response == null) {
+			response = new ScenarioAnalysisResponse(DEGRADED_SUMMARY, List.of(), List.of(), List.of(), DEGRADED_DISCLAIMER);
+		}
+		response.setFallback(true);
+		return response;
+	}
+
+	private void acquireInFlightSlot() {
+		// Shed load rather than queue unboundedly on the upstream dispatcher.
+		if (!inFlightLimiter.tryAcquire()) {
+			TooManyRequestsException rejection = new TooManyRequestsException("Too many analyses in progress, please retry shortly");
+			metrics.recordError(rejection);
+			throw rejection;
+		}
+	}
+
+	/**
+	 * Looks up a completed analysis in the in-memory cache, then in the persistent store, promoting
+	 * store hits into the cache.
+	 */
+	private Optional<ScenarioAnalysisResponse> lookup(String cacheKey) {
+		Optional<ScenarioAnalysisResponse> cached = cache.get(cacheKey);
+		if (cached.isEmpty()) {
+			cached = store.get(cacheKey);
+			cached.ifPresent(stored -> cache.put(cacheKey, stored));
+		}
+		return cached;
+	}
+
+	/**
+	 * Releases the in-flight slot once the upstream call finishes, then parses, caches and stores its output.
+	 */
+	private CompletableFuture<ScenarioAnalysisResponse> completeAnalysis(CompletableFuture<String> apiCall, String cacheKey) {
+		// Carry the request's logging context (correlation and trace IDs) over to the parsing thread.
+		Map<String, String> mdc = MDC.getCopyOfContextMap();
+		CompletableFuture<ScenarioAnalysisResponse> analysis = apiCall
+				.whenComplete((apiResponse, e) -> inFlightLimiter.release())
+				.thenApplyAsync(apiResponse -> {
+					Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+					if (mdc != null) {
+						MDC.setContextMap(mdc);
+					}
+					// Log the raw API response.
+					logger.debug("Received API response.");
+					logPayload("API response: {}", apiResponse);
+					Observation parse = metrics.stage("parse").start();
+					try {
+						ScenarioAnalysisResponse result = parseApiResponse(apiResponse);
+						cache.put(cacheKey, result);
+						store.put(cacheKey, result);
+						cluster.push(cacheKey, result);
+						return result;
+					} catch (Exception e) {
+						parse.error(e);
+						throw new CompletionException(e);
+					} finally {
+						parse.stop();
+						if (previousMdc != null) {
+							MDC.setContextMap(previousMdc);
+						} else {
+							MDC.clear();
+						}
+					}
+				}, analysisExecutor)
+				.handle((result, e) -> recover(result, e, cacheKey));
+		return Cancellation.propagate(analysis, apiCall);
+	}
+
+	/**
+	 * Answers with the fallback if the circuit breaker refused the upstream call, and maps any other
+	 * failure to the exception reported to the caller.
+	 */
+	private ScenarioAnalysisResponse recover(ScenarioAnalysisResponse result, Throwable e, String cacheKey) {
+		if (e != null) {
+			Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+			if (cause instanceof CircuitOpenException) {
+				return fallback(cacheKey);
+			}
+			throw new CompletionException(toAnalysisFailure(cause));
+		}
 		return result;
 	}
 
+	private static void replay(ScenarioAnalysisResponse response, IncrementalAnalysisParser.Listener listener) {
+		listener.onValue("summary", response.getScenarioSummary());
+		response.getPotentialPitfalls().forEach(item -> listener.onItem("pitfalls_or_risks", item));
+		response.getProposedStrategies().forEach(item -> listener.onItem("proposed_strategies", item));
+		response.getRecommendedResources().forEach(item -> listener.onItem("recommended_resources", item));
+		listener.onValue("disclaimer", response.getDisclaimer());
+	}
+
+	/**
+	 * Logs a request or response body at DEBUG, or at INFO for a sampled fraction of calls, so that
+	 * full payloads are not written on every request.
+	 *
+	 * @param message the log message with a single placeholder for the payload
+	 * @param payload the payload to log
+	 */
+	private void logPayload(String message, Object payload) {
+		if (logger.isDebugEnabled()) {
+			logger.debug(message, payload);
+		} else if (payloadSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < payloadSampleRate) {
+			logger.info(message, payload);
+		}
+	}
+
+	/**
+	 * Maps a failure to the exception reported to the caller: request and load-shedding errors are
+	 * passed through, an upstream 429 backs off the rate-limit governor and asks the caller to retry,
+	 * and anything else becomes an InvalidScenarioException.
+	 */
+	private RuntimeException toAnalysisFailure(Throwable e) {
+		metrics.recordError(e);
+		if (e instanceof InvalidScenarioException || e instanceof TooManyRequestsException
+				|| e instanceof UpstreamUnavailableException) {
+			logger.error("Error generating response: {}", e.getMessage());
+			return (RuntimeException) e;
+		}
+		Function<String, String> rateLimitHeaders = rateLimitHeaders(e);
+		if (rateLimitHeaders != null) {
+			Duration retryAfter = governor.onRateLimited(rateLimitHeaders);
+			logger.error("Error generating response: upstream rate limit reached");
+			return new UpstreamUnavailableException("Upstream rate limit reached, please retry later",
+					Math.max(1, (retryAfter.toMillis() + 999) / 1000));
+		}
+		// Log exception details.
+		logger.error("Error generating response: {}", e.getMessage());
+		return new InvalidScenarioException("Unable to process request, error generating a response" + e.getMessage());
+	}
+
+	/**
+	 * @return true if the upstream answered the call with a client error (4xx), which says nothing
+	 *         about its health
+	 */
+	protected boolean isRejectedByUpstream(Throwable e) {
+		return e instanceof OpenAIServiceException service && service.statusCode() < 500;
+	}
+
+	/**
+	 * @return the response headers if the failure is an upstream rate-limit rejection (429), else null
+	 */
+	protected Function<String, String> rateLimitHeaders(Throwable e) {
+		return e instanceof RateLimitException rateLimited ? name -> firstHeader(rateLimited.headers(), name) : null;
+	}
+
 	/**
 	 * Parses the API response string into a ScenarioAnalysisResponse.
 	 *
 	 * @param apiResponse the raw API response in JSON format
 	 * @return a ScenarioAnalysisResponse parsed from the API output
-	 * @throws JsonMappingException if mapping fails
-	 * @throws JsonProcessingException if JSON processing fails
+	 * @throws IOException if the output does not contain a well-formed JSON object
 	 */
-	private ScenarioAnalysisResponse parseApiResponse(String apiResponse) throws JsonMappingException, JsonProcessingException {
+	ScenarioAnalysisResponse parseApiResponse(String apiResponse) throws IOException {
 		// Log the start of parsing.
-		logger.info("Parsing API response.");
-		
-		int start = apiResponse.indexOf('{');
-		int end = apiResponse.lastIndexOf('}') + 1;
-		String trimmed = apiResponse.substring(start, end);
-		
-		JsonObject jsonObject = JsonParser.parseString(trimmed).getAsJsonObject();
-		
-		String summary = getFlexibleKey(jsonObject, "summary", "short_summary", "short");
+		logger.debug("Parsing API response.");
 		
-	    String disclaimer = jsonObject.get("disclaimer").getAsString();
-
-	    // Extract lists from JSON arrays
-	    List<String> pitfalls = toStringList(jsonObject.getAsJsonArray("pitfalls_or_risks"));
-	    List<String> strategies = toStringList(jsonObject.getAsJsonArray("proposed_strategies"));
-	    List<String> resources = toStringList(jsonObject.getAsJsonArray("recommended_resources"));
+		ScenarioAnalysisResponse response = ScenarioAnalysisReader.read(apiResponse);
 		
 		// Log successful parse.
-		logger.info("API response parsed successfully.");
-		return new ScenarioAnalysisResponse(summary, pitfalls, strategies, resources, disclaimer);
+		logger.debug("API response parsed successfully.");
+		return response;
 		
 	}
 	
-	public static String getFlexibleKey(JsonObject json, String... possibleKeys) {
-        for (String key : possibleKeys) {
-            if (json.has(key)) {
-                return json.get(key).getAsString();
-            }
-        }
-        return null; // or some fallback string
-    }
-
-	
 	/**
-	 * Converts a JsonArray into a List of Strings.
+	 * Builds the prompt string for the AI API by rendering the requested template (or the default one)
+	 * with the scenario and constraints.
 	 *
-	 * @param array the JsonArray to convert
-	 * @return a List containing the string representation of each element
+	 * @param request the ScenarioAnalysisRequest containing the scenario and constraints
+	 * @return a formatted prompt string to be sent to the AI API
 	 */
-	private static List<String> toStringList(JsonArray array) {
-		List<String> list = new ArrayList<>();
-		for (JsonElement el : array) {
-			list.add(el.getAsString());
-		}
-		return list;
+	String buildPrompt(ScenarioAnalysisRequest request) {
+		
+		String final_prompt = templates.get(request.getTemplate()).render(request.getScenario(), request.getConstraints());
+		// Log the constructed prompt only when payload logging applies.
+		logPayload("Constructed prompt: {}", final_prompt);
+		return final_prompt;
 	}
 
 	/**
-	 * Builds the prompt string for the AI API using the scenario and constraints.
+	 * Computes the cache key for a request: the hash of the static instructions and the prompt built
+	 * from a normalized copy of the request, so that whitespace, letter case and constraint order do
+	 * not produce distinct entries.
 	 *
 	 * @param request the ScenarioAnalysisRequest containing the scenario and constraints
-	 * @return a formatted prompt string to be sent to the AI API
+	 * @return the prompt hash used as cache key
 	 */
-	private String buildPrompt(ScenarioAnalysisRequest request) {
-		
-		String final_prompt = prompt.replace("[scenarios]", request.getScenario())
-				.replace("[constraints]", String.join(", ", request.getConstraints()));
-		// Log the constructed prompt in info level.
-		logger.info("Constructed prompt: {}", prompt);
-		return final_prompt;
+	String cacheKey(ScenarioAnalysisRequest request) {
+		ScenarioAnalysisRequest normalized = new ScenarioAnalysisRequest();
+		normalized.setTemplate(request.getTemplate());
+		normalized.setScenario(normalize(request.getScenario()));
+		normalized.setConstraints(request.getConstraints().stream()
+				.map(AiService::normalize)
+				.filter(c -> !c.isEmpty())
+				.sorted()
+				.distinct()
+				.toList());
+		String prompt = buildPrompt(normalized);
+		// Changing the static instructions changes the analyses, so it must not hit earlier entries.
+		String instructions = templates.getInstructions();
+		return AnalysisCache.key(instructions.isEmpty() ? prompt : instructions + "\n\n" + prompt);
 	}
 
 	/**
-	 * Calls the AI API with the given prompt and retrieves the response.
+	 * Computes the entity tag for the analysis of an admitted request, keyed on the same prompt hash
+	 * the analysis is cached under. It is weak: a regenerated analysis of the same prompt is
+	 * equivalent but not byte-identical.
 	 *
-	 * @param prompt the prompt string for the AI API
-	 * @return the response string from the AI
+	 * @param admitted the admitted request, from {@link #admit}
+	 * @return the weak entity tag
 	 */
-	protected String callApi(String prompt) {
-		// Log before initializing the API client.
-		logger.info("Initializing OpenAI client.");
+	public String etag(AdmissionControl.Admission admitted) {
+		return "W/\"" + cacheKey(admitted.request()) + "\"";
+	}
+
+	private static String normalize(String text) {
+		return text == null ? "" : text.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+	}
 
-		ResponseCreateParams params = ResponseCreateParams.builder().input(prompt).model(ChatModel.GPT_4O).build();
+	/**
+	 * Calls the AI API asynchronously with the given prompt.
+	 *
+	 * @param prompt the prompt string for the AI API
+	 * @param model the model to generate the analysis with
+	 * @return a future completing with the response string from the AI
+	 */
+	protected CompletableFuture<String> callApiAsync(String prompt, String model) {
 		// Log the API call initiation.
-		logger.info("Sending request to AI API.");
-		Response response = client.responses().create(params);
+		logger.debug("Sending request to AI API.");
+		return call(createParams(prompt, model).build());
+	}
 
+	/**
+	 * Calls the AI API asynchronously for one section of the analysis, with the section's output
+	 * format and the section output-token cap.
+	 *
+	 * @param prompt the prompt string for the AI API, ending with the section's instruction
+	 * @param model the model to generate the section with
+	 * @param section the section to generate
+	 * @return a future completing with the response string from the AI
+	 */
+	protected CompletableFuture<String> callSectionAsync(String prompt, String model, AnalysisSection section) {
+		logger.debug("Sending request for section {} to AI API.", section);
+		ResponseCreateParams.Builder params = createParams(prompt, model).maxOutputTokens(sectionMaxOutputTokens);
+		if (structuredOutput) {
+			params.text(SECTION_FORMATS.get(section));
+		}
+		return call(params.build());
+	}
+
+	/**
+	 * Makes an upstream call and waits for its whole output. The call is streamed even so: cancelling
+	 * the SDK's future does not abort its HTTP call, but closing a streamed response does, so a caller
+	 * giving up closes the upstream connection instead of leaving the generation running and billed.
+	 * The rate-limit headers of a streamed response are not exposed, so the governor learns the
+	 * limits from rate-limited responses and the usage instead.
+	 */
+	private CompletableFuture<String> call(ResponseCreateParams params) {
+		AtomicReference<Response> completed = new AtomicReference<>();
+		AtomicReference<String> failure = new AtomicReference<>();
+		AsyncStreamResponse<ResponseStreamEvent> stream = client.async().responses().createStreaming(params);
+		stream.subscribe(event -> {
+			event.completed().ifPresent(done -> completed.set(done.response()));
+			event.error().ifPresent(error -> failure.compareAndSet(null, error.message()));
+		});
+		CompletableFuture<String> output = stream.onCompleteFuture().thenApply(ignored -> {
+			if (failure.get() != null) {
+				throw new IllegalStateException("Upstream stream failed: " + failure.get());
+			}
+			Response response = completed.get();
+			if (response == null) {
+				throw new IllegalStateException("Upstream stream ended without a response");
+			}
+			// Log after receiving response content.
+			logger.debug("AI API call completed.");
+			response.usage().ifPresent(this::recordUsage);
+			return outputText(response);
+		});
+		// Closing the stream aborts the HTTP call.
+		return Cancellation.onCancel(output, stream::close);
+	}
+
+	/**
+	 * Calls the streaming AI API with the given prompt, passing each text delta to the consumer.
+	 *
+	 * @param prompt the prompt string for the AI API
+	 * @param model the model to generate the analysis with
+	 * @param onDelta receives each chunk of output text as it arrives
+	 * @return a future completing with the full response string once the stream ends
+	 */
+	protected CompletableFuture<String> streamApi(String prompt, String model, Consumer<String> onDelta) {
+		logger.debug("Sending streaming request to AI API.");
+		StringBuilder text = new StringBuilder();
+		AsyncStreamResponse<ResponseStreamEvent> stream = client.async().responses().createStreaming(createParams(prompt, model).build());
+		stream.subscribe(event -> {
+			event.outputTextDelta().ifPresent(delta -> {
+				text.append(delta.delta());
+				onDelta.accept(delta.delta());
+			});
+			event.completed().flatMap(completed -> completed.response().usage()).ifPresent(this::recordUsage);
+		});
+		CompletableFuture<String> output = stream.onCompleteFuture().thenApply(ignored -> {
+			logger.debug("AI API stream completed.");
+			return text.toString();
+		});
+		// Closing the stream aborts the HTTP call.
+		return Cancellation.onCancel(output, stream::close);
+	}
+
+	private void recordUsage(ResponseUsage usage) {
+		recordUsage(usage.inputTokens(), usage.inputTokensDetails().cachedTokens(), usage.outputTokens());
+	}
+
+	/**
+	 * Reports the tokens an upstream call used to the metrics and the rate-limit governor.
+	 *
+	 * @param cachedInputTokens the input tokens the upstream served from its prompt cache
+	 */
+	void recordUsage(long inputTokens, long cachedInputTokens, long outputTokens) {
+		metrics.recordTokens(inputTokens, cachedInputTokens, outputTokens);
+		governor.recordUsage(outputTokens);
+	}
+
+	/**
+	 * @return the static instructions sent ahead of every prompt, or an empty string if none are configured
+	 */
+	protected String instructions() {
+		return templates.getInstructions();
+	}
+
+	/**
+	 * Passes the rate-limit headers of a successful upstream response to the governor.
+	 */
+	void recordRateLimits(Function<String, String> headers) {
+		governor.onResponse(headers);
+	}
+
+	private static String firstHeader(Headers headers, String name) {
+		List<String> values = headers.values(name);
+		return values.isEmpty() ? null : values.get(0);
+	}
+
+	/**
+	 * @return the output-token cap of each section call in section mode
+	 */
+	protected long sectionMaxOutputTokens() {
+		return sectionMaxOutputTokens;
+	}
+
+	private ResponseCreateParams.Builder createParams(String prompt, String model) {
+		ResponseCreateParams.Builder params = ResponseCreateParams.builder().input(prompt).model(ChatModel.of(model));
+		// The instructions go first and never vary, so the upstream can serve them from its prompt cache.
+		if (!instructions().isEmpty()) {
+			params.instructions(instructions());
+		}
+		if (structuredOutput) {
+			params.text(ANALYSIS_FORMAT);
+		}
+		return params;
+	}
+
+	/**
+	 * JSON schema the model must follow in structured-output mode, so that its output is a bare JSON
+	 * object with exactly the keys parseApiResponse expects.
+	 */
+	static Map<String, Object> analysisSchema() {
+		return analysisSchema(List.of("summary", "pitfalls_or_risks", "proposed_strategies", "recommended_resources",
+				"disclaimer"));
+	}
+
+	/**
+	 * JSON schema restricted to the given analysis keys, for the calls of section mode.
+	 */
+	static Map<String, Object> analysisSchema(List<String> keys) {
+		Map<String, Object> text = Map.of("type", "string");
+		Map<String, Object> list = Map.of("type", "array", "items", text);
+		Map<String, Object> properties = new LinkedHashMap<>();
+		for (String key : keys) {
+			properties.put(key, key.equals("summary") || key.equals("disclaimer") ? text : list);
+		}
+		return Map.of(
+				"type", "object",
+				"properties", properties,
+				"required", keys,
+				"additionalProperties", false);
+	}
+
+	private static Map<AnalysisSection, ResponseTextConfig> sectionFormats() {
+		Map<AnalysisSection, ResponseTextConfig> formats = new EnumMap<>(AnalysisSection.class);
+		for (AnalysisSection section : AnalysisSection.values()) {
+			formats.put(section, analysisFormat(sectionFormatName(section), analysisSchema(section.getKeys())));
+		}
+		return formats;
+	}
+
+	static String sectionFormatName(AnalysisSection section) {
+		return ANALYSIS_FORMAT_NAME + "_" + section.name().toLowerCase(Locale.ROOT);
+	}
+
+	private static ResponseTextConfig analysisFormat(String name, Map<String, Object> jsonSchema) {
+		ResponseFormatTextJsonSchemaConfig.Schema.Builder schemaBuilder = ResponseFormatTextJsonSchemaConfig.Schema.builder();
+		jsonSchema.forEach((key, value) -> schemaBuilder.putAdditionalProperty(key, JsonValue.from(value)));
+		ResponseFormatTextJsonSchemaConfig.Schema schema = schemaBuilder.build();
+		return ResponseTextConfig.builder()
+				.format(ResponseFormatTextJsonSchemaConfig.builder()
+						.name(name)
+						.schema(schema)
+						.strict(true)
+						.build())
+				.build();
+	}
+
+	/**
+	 * Extracts the text of the first output message from an AI API response.
+	 *
+	 * @param response the response returned by the AI API
+	 * @return the output text
+	 */
+	private static String outputText(Response response) {
 		JsonField<List<ResponseOutputItem>> items = response._output();
 
 		Optional<? extends List<ResponseOutputItem>> output = items.asKnown();
 
-		JsonField<String> item = output.get().get(0).message().get().content().get(0).asOutputText()._text(); 
-		
-		// Log after receiving response content.
-		logger.info("AI API call completed.");
+		JsonField<String> item = output.get().get(0).message().get().content().get(0).asOutputText()._text();
 		return item.toString();
 	}
 }
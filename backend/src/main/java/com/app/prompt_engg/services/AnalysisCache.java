@@ -0,0 +1,158 @@
+package com.app.prompt_engg.services;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.app.prompt_engg.models.ScenarioAnalysisResponse;
+
+/**
+ * Bounded in-memory cache of completed analyses, keyed on the hash of the normalized prompt.
+ * Entries are evicted least-recently-used once the cache is full, and expire after a fixed TTL.
+ */
+@Component
+public class AnalysisCache {
+
+	private final int maxSize;
+	private final long ttlNanos;
+	private final LongSupplier ticker;
+
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	@Autowired
+	public AnalysisCache(@Value("${analysis.cache.max-size:1000}") int maxSize,
+			@Value("${analysis.cache.ttl:PT1H}") Duration ttl) {
+		this(maxSize, ttl, System::nanoTime);
+	}
+
+	AnalysisCache(int maxSize, Duration ttl, LongSupplier ticker) {
+		this.maxSize = maxSize;
+		this.ttlNanos = ttl.toNanos();
+		this.ticker = ticker;
+	}
+
+	/**
+	 * Looks up a cached analysis, dropping it if its TTL has passed.
+	 *
+	 * @param key the prompt hash
+	 * @return the cached analysis, if present and not expired
+	 */
+	public Optional<ScenarioAnalysisResponse> get(String key) {
+		if (maxSize <= 0) {
+			misses.incrementAndGet();
+			return Optional.empty();
+		}
+		synchronized (entries) {
+			Entry entry = entries.get(key);
+			if (entry != null && isExpired(entry, ticker.getAsLong())) {
+				entries.remove(key);
+				evictions.incrementAndGet();
+				entry = null;
+			}
+			if (entry == null) {
+				misses.incrementAndGet();
+				return Optional.empty();
+			}
+			hits.incrementAndGet();
+			return Optional.of(entry.value);
+		}
+	}
+
+	/**
+	 * Stores an analysis, evicting expired entries first and then the least recently used ones
+	 * until the cache is back within its size bound.
+	 *
+	 * @param key the prompt hash
+	 * @param value the analysis to cache
+	 */
+	public void put(String key, ScenarioAnalysisResponse value) {
+		if (maxSize <= 0) {
+			return;
+		}
+		long now = ticker.getAsLong();
+		synchronized (entries) {
+			entries.put(key, new Entry(value, now));
+			if (entries.size() > maxSize) {
+				evictExpired(now);
+			}
+			Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+			while (entries.size() > maxSize && it.hasNext()) {
+				it.next();
+				it.remove();
+				evictions.incrementAndGet();
+			}
+		}
+	}
+
+	public void invalidateAll() {
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	/**
+	 * Hashes a normalized prompt into a fixed-length cache key.
+	 *
+	 * @param normalizedPrompt the prompt built from the normalized request
+	 * @return the hex-encoded SHA-256 of the prompt
+	 */
+	public static String key(String normalizedPrompt) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			return HexFormat.of().formatHex(digest.digest(normalizedPrompt.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 not available", e);
+		}
+	}
+
+	private void evictExpired(long now) {
+		Iterator<Entry> it = entries.values().iterator();
+		while (it.hasNext()) {
+			if (isExpired(it.next(), now)) {
+				it.remove();
+				evictions.incrementAndGet();
+			}
+		}
+	}
+
+	private boolean isExpired(Entry entry, long now) {
+		return now - entry.storedAt >= ttlNanos;
+	}
+
+	private record Entry(ScenarioAnalysisResponse value, long storedAt) {
+	}
+}
@@ -0,0 +1,359 @@
+package com.app.prompt_engg.services;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import com.app.prompt_engg.exceptions.InvalidScenarioException;
+import com.app.prompt_engg.exceptions.JobNotFoundException;
+import com.app.prompt_engg.exceptions.TooManyRequestsException;
+import com.app.prompt_engg.exceptions.UpstreamUnavailableException;
+import com.app.prompt_engg.models.AnalysisJob;
+import com.app.prompt_engg.models.ScenarioAnalysisRequest;
+import com.app.prompt_engg.models.ScenarioAnalysisResponse;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs analyses as jobs, so that no HTTP connection is held open while one is generated. Submitted
+ * jobs wait in a bounded priority queue, higher priorities first and in submission order within a
+ * priority, and are executed by a fixed pool of workers. Clients poll for the result, optionally
+ * waiting for it to complete; finished jobs are kept for a configurable time to live. A job refused
+ * because the service or the upstream is saturated is not failed but queued again after a backoff,
+ * up to a configurable number of attempts.
+ */
+@Service
+public class AnalysisJobService {
+
+	private static final Logger logger = LoggerFactory.getLogger(AnalysisJobService.class);
+
+	private final AiService aiService;
+	private final AdmissionControl admission;
+	private final AnalysisMetrics metrics;
+	private final int workers;
+	private final int maxQueueSize;
+	private final long ttlNanos;
+	private final Duration maxWait;
+	private final int maxAttempts;
+	private final long retryBackoffMillis;
+	private final LongSupplier nanoClock;
+	private final ThreadPoolExecutor executor;
+	private final ScheduledExecutorService retries;
+
+	private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+	private final ArrayDeque<Job> finished = new ArrayDeque<>();
+	private final AtomicInteger queued = new AtomicInteger();
+	private final AtomicInteger running = new AtomicInteger();
+	private final AtomicLong sequence = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicLong retried = new AtomicLong();
+
+	@Autowired
+	public AnalysisJobService(AiService aiService, AdmissionControl admission, AnalysisMetrics metrics,
+			@Value("${analysis.jobs.workers:4}") int workers,
+			@Value("${analysis.jobs.max-queue-size:1000}") int maxQueueSize,
+			@Value("${analysis.jobs.ttl:PT1H}") Duration ttl,
+			@Value("${analysis.jobs.max-wait:PT25S}") Duration maxWait,
+			@Value("${analysis.jobs.max-attempts:5}") int maxAttempts,
+			@Value("${analysis.jobs.retry-backoff:PT2S}") Duration retryBackoff) {
+		this(aiService, admission, metrics, workers, maxQueueSize, ttl, maxWait, maxAttempts, retryBackoff, System::nanoTime);
+	}
+
+	AnalysisJobService(AiService aiService, AdmissionControl admission, AnalysisMetrics metrics, int workers,
+			int maxQueueSize, Duration ttl, Duration maxWait, int maxAttempts, Duration retryBackoff, LongSupplier nanoClock) {
+		this.aiService = aiService;
+		this.admission = admission;
+		this.metrics = metrics;
+		this.workers = Math.max(1, workers);
+		this.maxQueueSize = maxQueueSize;
+		this.ttlNanos = ttl.toNanos();
+		this.maxWait = maxWait;
+		this.maxAttempts = Math.max(1, maxAttempts);
+		this.retryBackoffMillis = retryBackoff.toMillis();
+		this.nanoClock = nanoClock;
+		// Jobs are passed to execute() rather than submit(), so the queue orders them and not FutureTasks.
+		this.executor = new ThreadPoolExecutor(this.workers, this.workers, 0, TimeUnit.MILLISECONDS,
+				new PriorityBlockingQueue<>(), new CustomizableThreadFactory("analysis-job-"));
+		CustomizableThreadFactory retryThreads = new CustomizableThreadFactory("analysis-job-retry-");
+		retryThreads.setDaemon(true);
+		this.retries = new ScheduledThreadPoolExecutor(1, retryThreads);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		retries.shutdownNow();
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Queues an analysis job. The request is checked against the admission limits first, so a
+	 * malformed or oversized request is rejected immediately rather than failing later as a job.
+	 *
+	 * @param request a ScenarioAnalysisRequest containing the scenario and constraints
+	 * @param priority the job's priority; higher priorities run first
+	 * @return the queued job
+	 * @throws InvalidScenarioException if the request is invalid, or a PayloadTooLargeException if it
+	 *         exceeds the admission limits
+	 * @throws TooManyRequestsException if the queue is full
+	 */
+	public AnalysisJob submit(ScenarioAnalysisRequest request, int priority) {
+		expire();
+		AdmissionControl.Admission admitted = admission.admit(request);
+		if (!reserveQueueSlot()) {
+			rejected.incrementAndGet();
+			TooManyRequestsException rejection = new TooManyRequestsException("Too many analysis jobs queued, please retry shortly");
+			metrics.recordError(rejection);
+			throw rejection;
+		}
+		if (admitted.truncated()) {
+			metrics.recordTruncation();
+		}
+		// The job runs the admitted request, so it is not admitted again once accepted.
+		Job job = new Job(UUID.randomUUID().toString(), admitted, priority, sequence.incrementAndGet(),
+				nanoClock.getAsLong(), MDC.getCopyOfContextMap());
+		jobs.put(job.id, job);
+		executor.execute(job);
+		logger.info("Queued analysis job {} with priority {}", job.id, priority);
+		return job.snapshot();
+	}
+
+	/**
+	 * Looks up a job, waiting for it to finish if it is still queued or running.
+	 *
+	 * @param id the job ID
+	 * @param wait how long to wait for the job to finish, capped at the configured maximum; zero
+	 *        returns the current state immediately
+	 * @return a future completing with the job once it has finished or the wait has elapsed
+	 * @throws JobNotFoundException if the job is unknown or has expired
+	 */
+	public CompletableFuture<AnalysisJob> await(String id, Duration wait) {
+		expire();
+		Job job = jobs.get(id);
+		if (job == null) {
+			throw new JobNotFoundException("Unknown or expired analysis job: " + id);
+		}
+		long waitMillis = Math.min(wait.toMillis(), maxWait.toMillis());
+		if (waitMillis <= 0 || job.done.isDone()) {
+			return CompletableFuture.completedFuture(job.snapshot());
+		}
+		return job.done.copy()
+				.completeOnTimeout(null, waitMillis, TimeUnit.MILLISECONDS)
+				.thenApply(ignored -> job.snapshot());
+	}
+
+	private boolean reserveQueueSlot() {
+		while (true) {
+			int current = queued.get();
+			if (current >= maxQueueSize) {
+				return false;
+			}
+			if (queued.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Drops finished jobs whose time to live has passed. Jobs finish in the order they are appended
+	 * and share one time to live, so only the head of the queue needs checking.
+	 */
+	private synchronized void expire() {
+		long now = nanoClock.getAsLong();
+		Job head;
+		while ((head = finished.peek()) != null && now - head.finishedAt >= ttlNanos) {
+			finished.poll();
+			jobs.remove(head.id);
+		}
+	}
+
+	/**
+	 * Queues a job again once its backoff has passed, doubling the configured backoff with each
+	 * attempt but waiting at least as long as the refusal asked. The job keeps its sequence, so it
+	 * runs before jobs of the same priority submitted after it.
+	 */
+	private void retry(Job job, long retryAfterSeconds) {
+		long backoff = retryBackoffMillis << Math.min(job.attempts - 1, 16);
+		long delay = Math.max(backoff, TimeUnit.SECONDS.toMillis(retryAfterSeconds));
+		retried.incrementAndGet();
+		// Counted as queued while it waits, so the queue depth shows it; it was admitted when submitted.
+		queued.incrementAndGet();
+		try {
+			retries.schedule(() -> {
+				try {
+					executor.execute(job);
+				} catch (RejectedExecutionException e) {
+					logger.debug("Dropped retry of analysis job {} on shutdown", job.id);
+				}
+			}, delay, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			logger.debug("Dropped retry of analysis job {} on shutdown", job.id);
+		}
+	}
+
+	private synchronized void finish(Job job) {
+		job.finishedAt = nanoClock.getAsLong();
+		finished.add(job);
+	}
+
+	/**
+	 * @return the jobs waiting for a worker
+	 */
+	public int getQueued() {
+		return queued.get();
+	}
+
+	/**
+	 * @return the jobs being executed
+	 */
+	public int getRunning() {
+		return running.get();
+	}
+
+	public int getWorkers() {
+		return workers;
+	}
+
+	/**
+	 * @return the fraction of workers busy with a job
+	 */
+	public double getUtilisation() {
+		return (double) running.get() / workers;
+	}
+
+	/**
+	 * @return the jobs kept, whether queued, running or finished and not yet expired
+	 */
+	public int size() {
+		return jobs.size();
+	}
+
+	/**
+	 * @return the jobs rejected because the queue was full
+	 */
+	public long getRejected() {
+		return rejected.get();
+	}
+
+	/**
+	 * @return the times a job was queued again after being refused by a saturated service or upstream
+	 */
+	public long getRetried() {
+		return retried.get();
+	}
+
+	private final class Job implements Runnable, Comparable<Job> {
+		private final String id;
+		private final AdmissionControl.Admission admitted;
+		private final int priority;
+		private final long sequence;
+		private final long submittedAt;
+		private final Map<String, String> mdc;
+		private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+		private volatile AnalysisJob.Status status = AnalysisJob.Status.QUEUED;
+		private volatile ScenarioAnalysisResponse response;
+		private volatile String error;
+		private int attempts;
+		private long finishedAt;
+
+		private Job(String id, AdmissionControl.Admission admitted, int priority, long sequence, long submittedAt,
+				Map<String, String> mdc) {
+			this.id = id;
+			this.admitted = admitted;
+			this.priority = priority;
+			this.sequence = sequence;
+			this.submittedAt = submittedAt;
+			this.mdc = mdc;
+		}
+
+		@Override
+		public void run() {
+			queued.decrementAndGet();
+			running.incrementAndGet();
+			metrics.recordJobWait(nanoClock.getAsLong() - submittedAt);
+			if (mdc != null) {
+				MDC.setContextMap(mdc);
+			}
+			status = AnalysisJob.Status.RUNNING;
+			attempts++;
+			boolean requeued = false;
+			try {
+				response = aiService.generateAnalysisAsync(admitted).join();
+				status = AnalysisJob.Status.SUCCEEDED;
+			} catch (RuntimeException e) {
+				RuntimeException cause = e instanceof CompletionException && e.getCause() instanceof RuntimeException unwrapped
+						? unwrapped : e;
+				if (cause instanceof TooManyRequestsException refusal) {
+					requeued = refused(refusal, refusal.getRetryAfterSeconds());
+				} else if (cause instanceof UpstreamUnavailableException refusal) {
+					requeued = refused(refusal, refusal.getRetryAfterSeconds());
+				} else {
+					failed(cause);
+				}
+			} finally {
+				running.decrementAndGet();
+				MDC.clear();
+			}
+			if (!requeued) {
+				finish(this);
+				done.complete(null);
+			}
+		}
+
+		/**
+		 * Handles a refusal by a saturated service or upstream, which is transient: the job is queued
+		 * again unless it has used up its attempts, and fails otherwise.
+		 *
+		 * @return whether the job was queued again
+		 */
+		private boolean refused(RuntimeException e, long retryAfterSeconds) {
+			if (attempts >= maxAttempts) {
+				failed(e);
+				return false;
+			}
+			logger.info("Analysis job {} refused on attempt {}, retrying: {}", id, attempts, e.getMessage());
+			status = AnalysisJob.Status.QUEUED;
+			retry(this, retryAfterSeconds);
+			return true;
+		}
+
+		private void failed(RuntimeException e) {
+			logger.warn("Analysis job {} failed: {}", id, e.getMessage());
+			error = String.valueOf(e.getMessage());
+			status = AnalysisJob.Status.FAILED;
+		}
+
+		@Override
+		public int compareTo(Job other) {
+			int byPriority = Integer.compare(other.priority, priority);
+			return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+		}
+
+		private AnalysisJob snapshot() {
+			// Status is written last, so the result it announces is already visible.
+			AnalysisJob.Status current = status;
+			return new AnalysisJob(id, current, response, error);
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package com.app.prompt_engg.services;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Records timings, token usage and failures of the analysis pipeline. Each stage is an
+ * {@link Observation}, so it is exported both as an {@code analysis.stage} timer tagged with the
+ * stage name and as a child span of the request trace.
+ */
+@Component
+public class AnalysisMetrics {
+
+	private final MeterRegistry meterRegistry;
+	private final ObservationRegistry observationRegistry;
+
+	public AnalysisMetrics(MeterRegistry meterRegistry, ObservationRegistry observationRegistry) {
+		this.meterRegistry = meterRegistry;
+		this.observationRegistry = observationRegistry;
+	}
+
+	/**
+	 * Creates an unstarted observation for a pipeline stage.
+	 *
+	 * @param stage the stage name, e.g. {@code prompt_build}, {@code upstream} or {@code parse}
+	 * @return the observation
+	 */
+	public Observation stage(String stage) {
+		return Observation.createNotStarted("analysis.stage", observationRegistry)
+				.contextualName("analysis " + stage)
+				.lowCardinalityKeyValue("stage", stage);
+	}
+
+	public <T> T observe(String stage, Supplier<T> action) {
+		return stage(stage).observe(action);
+	}
+
+	/**
+	 * Observes an asynchronous stage from the moment it is started until its future completes.
+	 *
+	 * @param stage the stage name
+	 * @param action starts the stage
+	 * @return a future completing as the one returned by the action does; cancelling it cancels that one
+	 */
+	public <T> CompletableFuture<T> observeAsync(String stage, Supplier<CompletableFuture<T>> action) {
+		Observation observation = stage(stage).start();
+		CompletableFuture<T> future;
+		try (Observation.Scope scope = observation.openScope()) {
+			future = action.get();
+		} catch (RuntimeException e) {
+			observation.error(e);
+			observation.stop();
+			throw e;
+		}
+		return Cancellation.propagate(future.whenComplete((result, e) -> {
+			if (e != null) {
+				observation.error(e);
+			}
+			observation.stop();
+		}), future);
+	}
+
+	/**
+	 * Records the token usage reported by the upstream API for one call.
+	 *
+	 * @param inputTokens the prompt tokens
+	 * @param cachedInputTokens the prompt tokens served from the upstream's prompt cache
+	 * @param outputTokens the generated tokens
+	 */
+	public void recordTokens(long inputTokens, long cachedInputTokens, long outputTokens) {
+		tokens("input").record(inputTokens);
+		tokens("cached_input").record(cachedInputTokens);
+		tokens("output").record(outputTokens);
+	}
+
+	/**
+	 * Counts a failed analysis by the type of its cause.
+	 *
+	 * @param failure the exception that ended the analysis
+	 */
+	public void recordError(Throwable failure) {
+		meterRegistry.counter("analysis.errors", "type", failure.getClass().getSimpleName()).increment();
+	}
+
+	/**
+	 * Counts hedged upstream calls.
+	 *
+	 * @param outcome {@code sent} when a hedge is sent, {@code won} when it answers first
+	 */
+	public void recordHedge(String outcome) {
+		meterRegistry.counter("analysis.upstream.hedges", "outcome", outcome).increment();
+	}
+
+	/**
+	 * Counts fallback answers served while the upstream circuit breaker is open.
+	 *
+	 * @param type {@code stale} for an expired stored analysis, {@code degraded} for a placeholder
+	 */
+	public void recordFallback(String type) {
+		meterRegistry.counter("analysis.fallbacks", "type", type).increment();
+	}
+
+	/**
+	 * Counts a finished analysis request by whether the caller received it or gave up on it first.
+	 *
+	 * @param cancelled true if the caller cancelled the request, for instance by disconnecting
+	 */
+	public void recordRequest(boolean cancelled) {
+		meterRegistry.counter("analysis.requests", "outcome", cancelled ? "cancelled" : "completed").increment();
+	}
+
+	/**
+	 * Counts an analysis generated in section mode that is missing some of its sections.
+	 *
+	 * @param failedSections the number of sections whose upstream call failed
+	 */
+	public void recordPartial(int failedSections) {
+		meterRegistry.counter("analysis.sections.partial").increment();
+		meterRegistry.counter("analysis.sections.failed").increment(failedSections);
+	}
+
+	/**
+	 * Counts a request whose scenario was truncated to fit the admission limits.
+	 */
+	public void recordTruncation() {
+		meterRegistry.counter("analysis.admission.truncated").increment();
+	}
+
+	/**
+	 * Records how long an analysis job waited in the queue before a worker picked it up.
+	 *
+	 * @param waitNanos the time from submission to the start of execution
+	 */
+	public void recordJobWait(long waitNanos) {
+		meterRegistry.timer("analysis.jobs.wait").record(waitNanos, TimeUnit.NANOSECONDS);
+	}
+
+	private DistributionSummary tokens(String type) {
+		return DistributionSummary.builder("analysis.upstream.tokens")
+				.baseUnit("tokens")
+				.tag("type", type)
+				.register(meterRegistry);
+	}
+}
@@ -0,0 +1,61 @@
+package com.app.prompt_engg.services;
+
+import java.util.List;
+
+import com.app.prompt_engg.models.ScenarioAnalysisResponse;
+
+/**
+ * The independent parts of an analysis that are generated by concurrent upstream calls in section
+ * mode ({@code analysis.sections.enabled}). Each section asks for a subset of the analysis keys and
+ * copies them from its parsed output into the merged analysis.
+ */
+public enum AnalysisSection {
+
+	OVERVIEW(List.of("summary", "disclaimer")),
+	PITFALLS(List.of("pitfalls_or_risks")),
+	STRATEGIES(List.of("proposed_strategies")),
+	RESOURCES(List.of("recommended_resources"));
+
+	private final List<String> keys;
+
+	AnalysisSection(List<String> keys) {
+		this.keys = keys;
+	}
+
+	/**
+	 * @return the analysis keys this section generates
+	 */
+	public List<String> getKeys() {
+		return keys;
+	}
+
+	/**
+	 * The instruction appended to the prompt, restricting the answer to this section's keys. The
+	 * shared instructions still list all the keys, as they are kept identical for every call so the
+	 * upstream can cache them, so the restriction explicitly overrides them.
+	 *
+	 * @return the instruction appended to the prompt
+	 */
+	public String instruction() {
+		return "This request overrides the keys listed in the instructions: answer only with a JSON object with the keys: "
+				+ String.join(", ", keys) + ", and leave out every other key.";
+	}
+
+	/**
+	 * Copies this section's fields from its parsed output into the merged analysis.
+	 *
+	 * @param from the analysis parsed from this section's output
+	 * @param to the merged analysis
+	 */
+	void copy(ScenarioAnalysisResponse from, ScenarioAnalysisResponse to) {
+		switch (this) {
+			case OVERVIEW -> {
+				to.setScenarioSummary(from.getScenarioSummary());
+				to.setDisclaimer(from.getDisclaimer());
+			}
+			case PITFALLS -> to.setPotentialPitfalls(from.getPotentialPitfalls());
+			case STRATEGIES -> to.setProposedStrategies(from.getProposedStrategies());
+			case RESOURCES -> to.setRecommendedResources(from.getRecommendedResources());
+		}
+	}
+}
@@ -0,0 +1,683 @@
+package com.app.prompt_engg.services;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+import java.util.function.LongSupplier;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import com.app.prompt_engg.models.ScenarioAnalysisResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Persistent store of completed analyses, keyed by prompt hash, that survives restarts.
+ *
+ * Analyses are appended to a log file ({@code analyses.log}); each record holds the 32-byte key,
+ * the time it was stored, the JSON payload and a CRC. A memory-mapped open-addressing hash table
+ * ({@code analyses.idx}) maps keys to their latest record, with its storage time and length, so a
+ * lookup is one probe sequence in memory plus one positional read. The index header records how
+ * much of the log it covers; if that does not match the log on startup (for example after a crash)
+ * the index is rebuilt by scanning the log, dropping any torn record at its tail.
+ *
+ * Lookups share a read lock and only appends and file swaps take it exclusively; JSON is
+ * (de)serialized outside the lock. Growing the index and compaction run on a background thread:
+ * compaction copies the live records of a snapshot into fresh files without holding the lock, then
+ * briefly takes it to copy the records appended meanwhile and swap the files in. Compaction starts
+ * once superseded and expired records make up half of the log; expired records are counted by a
+ * scan of the index on startup and at most hourly as analyses are written.
+ */
+@Component
+public class AnalysisStore {
+
+	private static final Logger logger = LoggerFactory.getLogger(AnalysisStore.class);
+
+	static final String LOG_FILE = "analyses.log";
+	static final String INDEX_FILE = "analyses.idx";
+
+	private static final long MAGIC = 0x414E414C59534932L;
+	private static final int HEADER_SIZE = 32;
+	private static final int SLOT_SIZE = 32;
+	private static final int KEY_SIZE = 32;
+	private static final int RECORD_HEADER_SIZE = KEY_SIZE + Long.BYTES + Integer.BYTES + Integer.BYTES;
+	// Past this load the index is grown in the background, past the hard limit by the writer itself.
+	private static final double MAX_LOAD = 0.7;
+	private static final double HARD_MAX_LOAD = 0.9;
+	private static final long MIN_COMPACTION_BYTES = 1 << 20;
+	private static final long EXPIRY_SCAN_INTERVAL_MILLIS = Duration.ofHours(1).toMillis();
+
+	private final boolean enabled;
+	private final Path directory;
+	private final long ttlMillis;
+	private final int initialSlots;
+	private final ObjectMapper mapper;
+	private final LongSupplier clock;
+	private final Executor maintenance;
+
+	// Lookups share it; appends and file swaps hold it exclusively.
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private Table table;
+
+	private final AtomicBoolean maintenanceScheduled = new AtomicBoolean();
+	// Bytes of expired records as of the last scan of the index.
+	private volatile long expiredBytes;
+	private volatile long lastExpiryScan;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	@Autowired
+	public AnalysisStore(@Value("${analysis.store.enabled:false}") boolean enabled,
+			@Value("${analysis.store.directory:data/analysis-store}") Path directory,
+			@Value("${analysis.store.ttl:P30D}") Duration ttl,
+			@Value("${analysis.store.index-slots:65536}") int initialSlots,
+			ObjectMapper mapper) {
+		this(enabled, directory, ttl, initialSlots, mapper, System::currentTimeMillis, maintenanceExecutor());
+	}
+
+	AnalysisStore(boolean enabled, Path directory, Duration ttl, int initialSlots, ObjectMapper mapper, LongSupplier clock,
+			Executor maintenance) {
+		this.enabled = enabled;
+		this.directory = directory;
+		this.ttlMillis = ttl.toMillis();
+		this.initialSlots = Math.max(16, initialSlots);
+		this.mapper = mapper;
+		this.clock = clock;
+		this.maintenance = maintenance;
+	}
+
+	private static ExecutorService maintenanceExecutor() {
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("analysis-store-maintenance-");
+		threadFactory.setDaemon(true);
+		return Executors.newSingleThreadExecutor(threadFactory);
+	}
+
+	/**
+	 * Opens the log and its index, rebuilding the index if it is missing or stale.
+	 *
+	 * @throws IOException if the store files cannot be opened
+	 */
+	@PostConstruct
+	public void open() throws IOException {
+		if (!enabled) {
+			return;
+		}
+		lock.writeLock().lock();
+		try {
+			Files.createDirectories(directory);
+			FileChannel log = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+			table = Table.open(log, directory.resolve(INDEX_FILE));
+			if (table == null) {
+				logger.info("Rebuilding analysis store index from {}", directory.resolve(LOG_FILE));
+				table = Table.rebuild(log, directory, initialSlots);
+			}
+			logger.info("Opened analysis store with {} entries ({} bytes of log)", table.used, log.size());
+		} finally {
+			lock.writeLock().unlock();
+		}
+		scheduleMaintenance();
+	}
+
+	@PreDestroy
+	public void close() throws IOException {
+		if (maintenance instanceof ExecutorService executor) {
+			// Let a running compaction finish its swap rather than abandon it.
+			executor.shutdown();
+			try {
+				executor.awaitTermination(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		lock.writeLock().lock();
+		try {
+			if (table == null) {
+				return;
+			}
+			table.index.force();
+			table.log.force(true);
+			table.log.close();
+			table = null;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Looks up a stored analysis.
+	 *
+	 * @param key the prompt hash
+	 * @return the analysis, if stored and not expired
+	 */
+	public Optional<ScenarioAnalysisResponse> get(String key) {
+		return read(key, false);
+	}
+
+	/**
+	 * Looks up a stored analysis even if it has expired, as long as it has not been compacted away.
+	 * Used as a fallback when the AI API is unavailable; does not count as a hit or miss.
+	 *
+	 * @param key the prompt hash
+	 * @return the most recent analysis stored for the key, if any
+	 */
+	public Optional<ScenarioAnalysisResponse> getStale(String key) {
+		return read(key, true);
+	}
+
+	private Optional<ScenarioAnalysisResponse> read(String key, boolean allowExpired) {
+		boolean counted = !allowExpired;
+		byte[] payload;
+		lock.readLock().lock();
+		try {
+			if (table == null) {
+				return Optional.empty();
+			}
+			int slot = table.findSlot(HexFormat.of().parseHex(key));
+			long position = table.position(slot);
+			if (position < 0 || (!allowExpired && isExpired(table.storedAt(slot)))) {
+				countMiss(counted);
+				return Optional.empty();
+			}
+			payload = table.read(position + RECORD_HEADER_SIZE, table.length(slot)).array();
+		} catch (IOException e) {
+			logger.warn("Failed to read analysis {} from store: {}", key, e.getMessage());
+			countMiss(counted);
+			return Optional.empty();
+		} finally {
+			lock.readLock().unlock();
+		}
+		try {
+			ScenarioAnalysisResponse analysis = mapper.readValue(payload, ScenarioAnalysisResponse.class);
+			if (counted) {
+				hits.incrementAndGet();
+			}
+			return Optional.of(analysis);
+		} catch (IOException e) {
+			logger.warn("Failed to parse analysis {} from store: {}", key, e.getMessage());
+			countMiss(counted);
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Appends an analysis to the log and points the index at it, replacing any earlier record for the
+	 * same key. Write failures are logged rather than thrown.
+	 *
+	 * @param key the prompt hash
+	 * @param value the analysis
+	 */
+	public void put(String key, ScenarioAnalysisResponse value) {
+		if (!enabled) {
+			return;
+		}
+		ByteBuffer record;
+		try {
+			record = record(HexFormat.of().parseHex(key), clock.getAsLong(), mapper.writeValueAsBytes(value));
+		} catch (IOException e) {
+			logger.warn("Failed to serialize analysis {} for store: {}", key, e.getMessage());
+			return;
+		}
+		boolean maintain;
+		lock.writeLock().lock();
+		try {
+			if (table == null) {
+				return;
+			}
+			if (table.used + 1 > table.slotCount * HARD_MAX_LOAD) {
+				// The background growth has fallen behind; probing a full table would never end.
+				table = table.resize(directory, table.slotCount * 2);
+			}
+			table.append(record);
+			maintain = maintenanceDue(table);
+		} catch (IOException e) {
+			// The in-memory cache still has the analysis; it just will not survive a restart.
+			logger.warn("Failed to write analysis {} to store: {}", key, e.getMessage());
+			return;
+		} finally {
+			lock.writeLock().unlock();
+		}
+		if (maintain) {
+			scheduleMaintenance();
+		}
+	}
+
+	/**
+	 * Rewrites the log with only the latest, unexpired record for each key. The live records are
+	 * copied without holding the lock; records appended meanwhile are copied when the new files are
+	 * swapped in.
+	 *
+	 * @throws IOException if the store files cannot be rewritten
+	 */
+	public void compact() throws IOException {
+		Table source;
+		long snapshotEnd;
+		long[] live;
+		lock.readLock().lock();
+		try {
+			source = table;
+			if (source == null) {
+				return;
+			}
+			snapshotEnd = source.indexedLength();
+			live = source.livePositions(this::isExpired);
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		Path compactedLog = directory.resolve(LOG_FILE + ".compact");
+		Path compactedIndex = directory.resolve(INDEX_FILE + ".compact");
+		FileChannel out = FileChannel.open(compactedLog, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		boolean swapped = false;
+		try {
+			Table compacted = Table.create(out, compactedIndex, Math.max(initialSlots, Integer.highestOneBit(Math.max(1, live.length)) * 4));
+			for (long position : live) {
+				compacted.append(source.readRecord(position));
+			}
+			lock.writeLock().lock();
+			try {
+				if (table != source) {
+					// Closed, or compacted by another caller, in the meantime.
+					return;
+				}
+				for (long position = snapshotEnd; position < source.indexedLength(); ) {
+					ByteBuffer record = source.readRecord(position);
+					position += record.remaining();
+					compacted.append(record);
+				}
+				out.force(true);
+				compacted.index.force();
+				// Without an index, a crash between the moves leaves a log that is simply re-indexed.
+				Files.deleteIfExists(directory.resolve(INDEX_FILE));
+				Files.move(compactedLog, directory.resolve(LOG_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				Files.move(compactedIndex, directory.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				source.log.close();
+				table = compacted;
+				expiredBytes = 0;
+				swapped = true;
+				logger.info("Compacted analysis store from {} to {} bytes", source.indexedLength(), compacted.indexedLength());
+			} finally {
+				lock.writeLock().unlock();
+			}
+		} finally {
+			if (!swapped) {
+				out.close();
+				Files.deleteIfExists(compactedLog);
+				Files.deleteIfExists(compactedIndex);
+			}
+		}
+	}
+
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return table == null ? 0 : table.used;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	private void countMiss(boolean counted) {
+		if (counted) {
+			misses.incrementAndGet();
+		}
+	}
+
+	/**
+	 * @return true if the index should grow, the log be compacted, or the expired records be recounted
+	 */
+	private boolean maintenanceDue(Table current) {
+		return current.used > current.slotCount * MAX_LOAD || compactionDue(current)
+				|| clock.getAsLong() - lastExpiryScan >= EXPIRY_SCAN_INTERVAL_MILLIS;
+	}
+
+	private boolean compactionDue(Table current) {
+		long size = current.indexedLength();
+		return size >= MIN_COMPACTION_BYTES && (current.deadBytes + expiredBytes) * 2 >= size;
+	}
+
+	private void scheduleMaintenance() {
+		if (!maintenanceScheduled.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			maintenance.execute(this::maintain);
+		} catch (RejectedExecutionException e) {
+			// Shutting down.
+			maintenanceScheduled.set(false);
+		}
+	}
+
+	/**
+	 * Grows the index if it is too full, recounts the expired records, and compacts the log if half of
+	 * it is dead.
+	 */
+	private void maintain() {
+		try {
+			boolean compact;
+			lock.writeLock().lock();
+			try {
+				if (table == null) {
+					return;
+				}
+				if (table.used > table.slotCount * MAX_LOAD) {
+					table = table.resize(directory, table.slotCount * 2);
+				}
+			} finally {
+				lock.writeLock().unlock();
+			}
+			lock.readLock().lock();
+			try {
+				if (table == null) {
+					return;
+				}
+				expiredBytes = table.expiredBytes(this::isExpired);
+				lastExpiryScan = clock.getAsLong();
+				compact = compactionDue(table);
+			} finally {
+				lock.readLock().unlock();
+			}
+			if (compact) {
+				compact();
+			}
+		} catch (IOException | RuntimeException e) {
+			logger.warn("Analysis store maintenance failed: {}", e.getMessage());
+		} finally {
+			maintenanceScheduled.set(false);
+		}
+	}
+
+	private boolean isExpired(long storedAt) {
+		return clock.getAsLong() - storedAt >= ttlMillis;
+	}
+
+	private static ByteBuffer record(byte[] key, long storedAt, byte[] payload) {
+		ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length);
+		return record.put(key).putLong(storedAt).putInt(payload.length).putInt(crc(key, payload)).put(payload).flip();
+	}
+
+	private static long tag(byte[] key) {
+		long tag = ByteBuffer.wrap(key).getLong();
+		return tag == 0 ? 1 : tag;
+	}
+
+	private static int crc(byte[] key, byte[] payload) {
+		CRC32 crc = new CRC32();
+		crc.update(key);
+		crc.update(payload);
+		return (int) crc.getValue();
+	}
+
+	/**
+	 * A log and the index of its latest records. The index header holds the magic number, the slot
+	 * count, the number of used slots, the indexed length of the log and the dead bytes; each slot
+	 * holds the key's tag, the record's position plus one (zero marks an empty slot), the time it was
+	 * stored and its payload length.
+	 */
+	private static final class Table {
+
+		private final FileChannel log;
+		private final MappedByteBuffer index;
+		private final int slotCount;
+		private int used;
+		private long deadBytes;
+
+		private Table(FileChannel log, MappedByteBuffer index, int slotCount) {
+			this.log = log;
+			this.index = index;
+			this.slotCount = slotCount;
+		}
+
+		/**
+		 * Maps the existing index file if it matches the log.
+		 *
+		 * @return the table, or null if the index is missing or stale
+		 */
+		static Table open(FileChannel log, Path indexPath) throws IOException {
+			if (!Files.exists(indexPath) || Files.size(indexPath) < HEADER_SIZE) {
+				return null;
+			}
+			try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+				MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+				int slots = mapped.getInt(8);
+				if (mapped.getLong(0) != MAGIC || slots <= 0 || channel.size() != HEADER_SIZE + (long) slots * SLOT_SIZE
+						|| mapped.getLong(16) != log.size()) {
+					return null;
+				}
+				Table table = new Table(log, mapped, slots);
+				table.used = mapped.getInt(12);
+				table.deadBytes = mapped.getLong(24);
+				return table;
+			}
+		}
+
+		/**
+		 * Creates an empty index of the given size for the log, replacing any file at the path.
+		 */
+		static Table create(FileChannel log, Path indexPath, int slots) throws IOException {
+			Files.deleteIfExists(indexPath);
+			MappedByteBuffer mapped;
+			try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+					StandardOpenOption.WRITE)) {
+				mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) slots * SLOT_SIZE);
+			}
+			mapped.putLong(0, MAGIC);
+			mapped.putInt(8, slots);
+			return new Table(log, mapped, slots);
+		}
+
+		/**
+		 * Builds a fresh index by scanning the log, truncating any torn tail record, and atomically
+		 * replaces the index file with it.
+		 */
+		static Table rebuild(FileChannel log, Path directory, int slots) throws IOException {
+			Path rebuilt = directory.resolve(INDEX_FILE + ".rebuild");
+			Table table = create(log, rebuilt, slots);
+			long position = 0;
+			long size = log.size();
+			while (position + RECORD_HEADER_SIZE <= size) {
+				ByteBuffer header = table.read(position, RECORD_HEADER_SIZE);
+				int length = header.getInt(KEY_SIZE + Long.BYTES);
+				if (length < 0 || position + RECORD_HEADER_SIZE + length > size) {
+					break;
+				}
+				byte[] key = Arrays.copyOfRange(header.array(), 0, KEY_SIZE);
+				ByteBuffer payload = table.read(position + RECORD_HEADER_SIZE, length);
+				if (crc(key, payload.array()) != header.getInt(KEY_SIZE + Long.BYTES + Integer.BYTES)) {
+					break;
+				}
+				table.indexRecord(key, position, header.getLong(KEY_SIZE), length);
+				position += RECORD_HEADER_SIZE + length;
+			}
+			if (position < size) {
+				logger.warn("Truncating {} bytes of incomplete records from analysis store log", size - position);
+				log.truncate(position);
+			}
+			table.index.putLong(16, position);
+			Files.move(rebuilt, directory.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			return table;
+		}
+
+		/**
+		 * Copies the index into a larger one over the same log. Only the slots are rehashed; the log
+		 * is not read.
+		 */
+		Table resize(Path directory, int slots) throws IOException {
+			Path resized = directory.resolve(INDEX_FILE + ".rebuild");
+			Table table = create(log, resized, slots);
+			for (int slot = 0; slot < slotCount; slot++) {
+				int offset = HEADER_SIZE + slot * SLOT_SIZE;
+				long tag = index.getLong(offset);
+				if (tag == 0) {
+					continue;
+				}
+				// Keys are unique here, so the first empty slot is the key's slot.
+				int target = (int) Math.floorMod(tag, (long) slots);
+				while (table.index.getLong(HEADER_SIZE + target * SLOT_SIZE) != 0) {
+					target = (target + 1) % slots;
+				}
+				table.index.put(HEADER_SIZE + target * SLOT_SIZE, index, offset, SLOT_SIZE);
+			}
+			table.used = used;
+			table.deadBytes = deadBytes;
+			table.index.putInt(12, used);
+			table.index.putLong(16, indexedLength());
+			table.index.putLong(24, deadBytes);
+			Files.move(resized, directory.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			return table;
+		}
+
+		/**
+		 * Appends a complete record to the log and indexes it.
+		 */
+		void append(ByteBuffer record) throws IOException {
+			long position = indexedLength();
+			int size = record.remaining();
+			byte[] key = new byte[KEY_SIZE];
+			record.get(record.position(), key);
+			long storedAt = record.getLong(record.position() + KEY_SIZE);
+			int length = record.getInt(record.position() + KEY_SIZE + Long.BYTES);
+			long writePosition = position;
+			while (record.hasRemaining()) {
+				writePosition += log.write(record, writePosition);
+			}
+			indexRecord(key, position, storedAt, length);
+			index.putLong(16, position + size);
+		}
+
+		/**
+		 * Points the key's slot at the record, counting the record it replaces as dead.
+		 */
+		private void indexRecord(byte[] key, long position, long storedAt, int length) throws IOException {
+			int slot = findSlot(key);
+			if (position(slot) >= 0) {
+				deadBytes += RECORD_HEADER_SIZE + length(slot);
+			} else {
+				used++;
+			}
+			int offset = HEADER_SIZE + slot * SLOT_SIZE;
+			index.putLong(offset, tag(key));
+			index.putLong(offset + 8, position + 1);
+			index.putLong(offset + 16, storedAt);
+			index.putInt(offset + 24, length);
+			index.putInt(12, used);
+			index.putLong(24, deadBytes);
+		}
+
+		/**
+		 * Linear probing from the key's home slot.
+		 *
+		 * @return the slot holding the key, or the empty slot where it would be inserted
+		 */
+		int findSlot(byte[] key) throws IOException {
+			long tag = tag(key);
+			int slot = (int) Math.floorMod(tag, (long) slotCount);
+			while (true) {
+				long slotTag = index.getLong(HEADER_SIZE + slot * SLOT_SIZE);
+				if (slotTag == 0) {
+					return slot;
+				}
+				if (slotTag == tag && Arrays.equals(read(position(slot), KEY_SIZE).array(), key)) {
+					return slot;
+				}
+				slot = (slot + 1) % slotCount;
+			}
+		}
+
+		/**
+		 * @return the log position of the slot's record, or -1 if the slot is empty
+		 */
+		long position(int slot) {
+			return index.getLong(HEADER_SIZE + slot * SLOT_SIZE + 8) - 1;
+		}
+
+		long storedAt(int slot) {
+			return index.getLong(HEADER_SIZE + slot * SLOT_SIZE + 16);
+		}
+
+		int length(int slot) {
+			return index.getInt(HEADER_SIZE + slot * SLOT_SIZE + 24);
+		}
+
+		long indexedLength() {
+			return index.getLong(16);
+		}
+
+		/**
+		 * @return the positions of the indexed records that have not expired, in log order
+		 */
+		long[] livePositions(LongPredicate expired) {
+			return IntStream.range(0, slotCount)
+					.filter(slot -> position(slot) >= 0 && !expired.test(storedAt(slot)))
+					.mapToLong(this::position)
+					.sorted()
+					.toArray();
+		}
+
+		/**
+		 * @return the bytes held by indexed records that have expired
+		 */
+		long expiredBytes(LongPredicate expired) {
+			long bytes = 0;
+			for (int slot = 0; slot < slotCount; slot++) {
+				if (position(slot) >= 0 && expired.test(storedAt(slot))) {
+					bytes += RECORD_HEADER_SIZE + length(slot);
+				}
+			}
+			return bytes;
+		}
+
+		ByteBuffer readRecord(long position) throws IOException {
+			int length = read(position + KEY_SIZE + Long.BYTES, Integer.BYTES).getInt(0);
+			return read(position, RECORD_HEADER_SIZE + length);
+		}
+
+		ByteBuffer read(long position, int length) throws IOException {
+			ByteBuffer buffer = ByteBuffer.allocate(length);
+			while (buffer.hasRemaining()) {
+				if (log.read(buffer, position + buffer.position()) < 0) {
+					throw new EOFException("Unexpected end of analysis store log");
+				}
+			}
+			return buffer.flip();
+		}
+	}
+}
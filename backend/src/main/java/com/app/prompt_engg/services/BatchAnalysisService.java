@@ -0,0 +1,128 @@
+package com.app.prompt_engg.services;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.app.prompt_engg.exceptions.InvalidScenarioException;
+import com.app.prompt_engg.models.BatchAnalysisResult;
+import com.app.prompt_engg.models.ScenarioAnalysisRequest;
+import com.app.prompt_engg.models.ScenarioAnalysisResponse;
+
+/**
+ * Service class for analysing many scenarios in one call.
+ */
+@Service
+public class BatchAnalysisService {
+
+	private static final Logger logger = LoggerFactory.getLogger(BatchAnalysisService.class);
+
+	@Autowired
+	private AiService aiService;
+
+	@Value("${analysis.batch.max-size:500}")
+	private int maxSize;
+
+	@Value("${analysis.batch.max-concurrency:8}")
+	private int maxConcurrency;
+
+	/**
+	 * Analyses a batch of scenarios. Requests that build the same prompt are analysed once, the
+	 * distinct ones run concurrently up to the configured limit, and a failing item does not affect
+	 * the others.
+	 *
+	 * @param requests the scenarios to analyse
+	 * @return a future completing with one result per request, in input order
+	 * @throws InvalidScenarioException if the batch is empty or larger than the configured maximum
+	 */
+	public CompletableFuture<List<BatchAnalysisResult>> analyseBatch(List<ScenarioAnalysisRequest> requests) {
+		if (requests == null || requests.isEmpty()) {
+			throw new InvalidScenarioException("Unable to process request, batch is empty");
+		}
+		if (requests.size() > maxSize) {
+			throw new InvalidScenarioException("Unable to process request, batch exceeds " + maxSize + " scenarios");
+		}
+
+		// Coalesce identical prompts so each is sent upstream only once.
+		Map<String, Task> unique = new LinkedHashMap<>();
+		List<CompletableFuture<ScenarioAnalysisResponse>> perItem = new ArrayList<>(requests.size());
+		for (ScenarioAnalysisRequest request : requests) {
+			String key;
+			try {
+				key = aiService.cacheKey(request);
+			} catch (RuntimeException e) {
+				// Malformed items are rejected by generateAnalysisAsync with the usual message.
+				key = "invalid-" + perItem.size();
+			}
+			perItem.add(unique.computeIfAbsent(key, k -> new Task(request)).result);
+		}
+		logger.info("Analysing batch of {} scenarios ({} distinct)", requests.size(), unique.size());
+
+		Deque<Task> pending = new ArrayDeque<>(unique.values());
+		for (int i = 0; i < Math.min(maxConcurrency, unique.size()); i++) {
+			launchNext(pending);
+		}
+
+		return CompletableFuture.allOf(perItem.toArray(CompletableFuture[]::new)).handle((ignored, e) -> {
+			List<BatchAnalysisResult> results = new ArrayList<>(perItem.size());
+			for (int i = 0; i < perItem.size(); i++) {
+				CompletableFuture<ScenarioAnalysisResponse> item = perItem.get(i);
+				try {
+					results.add(BatchAnalysisResult.success(i, item.join()));
+				} catch (CompletionException failure) {
+					Throwable cause = failure.getCause() != null ? failure.getCause() : failure;
+					results.add(BatchAnalysisResult.failure(i, cause.getMessage()));
+				}
+			}
+			return results;
+		});
+	}
+
+	/**
+	 * Starts the next pending task; each finished task starts another, so at most
+	 * {@code maxConcurrency} run at once.
+	 */
+	private void launchNext(Deque<Task> pending) {
+		Task task;
+		synchronized (pending) {
+			task = pending.poll();
+		}
+		if (task == null) {
+			return;
+		}
+		CompletableFuture<ScenarioAnalysisResponse> analysis;
+		try {
+			analysis = aiService.generateAnalysisAsync(task.request);
+		} catch (RuntimeException e) {
+			analysis = CompletableFuture.failedFuture(e);
+		}
+		analysis.whenComplete((response, e) -> {
+			if (e != null) {
+				task.result.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+			} else {
+				task.result.complete(response);
+			}
+			launchNext(pending);
+		});
+	}
+
+	private static final class Task {
+		private final ScenarioAnalysisRequest request;
+		private final CompletableFuture<ScenarioAnalysisResponse> result = new CompletableFuture<>();
+
+		private Task(ScenarioAnalysisRequest request) {
+			this.request = request;
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package com.app.prompt_engg.services;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Carries cancellation upstream through future chains. A CompletableFuture derived from another one
+ * with thenApply, whenComplete or thenCompose does not cancel its source when it is cancelled, so
+ * without these links a caller giving up would leave the upstream call running and billed.
+ */
+final class Cancellation {
+
+	private Cancellation() {
+	}
+
+	/**
+	 * Runs an action once the future is cancelled.
+	 *
+	 * @param future the future a caller may cancel
+	 * @param action the action, typically cancelling the work the future depends on
+	 * @return the same future
+	 */
+	static <T> CompletableFuture<T> onCancel(CompletableFuture<T> future, Runnable action) {
+		future.whenComplete((value, e) -> {
+			if (future.isCancelled()) {
+				action.run();
+			}
+		});
+		return future;
+	}
+
+	/**
+	 * Cancels the source once the dependent future is cancelled.
+	 *
+	 * @param dependent the future derived from the source
+	 * @param source the future whose work the dependent waits for
+	 * @return the dependent future
+	 */
+	static <T> CompletableFuture<T> propagate(CompletableFuture<T> dependent, CompletableFuture<?> source) {
+		return onCancel(dependent, () -> source.cancel(true));
+	}
+
+	/**
+	 * Like {@link CompletableFuture#thenCompose}, but cancelling the result also cancels the first
+	 * future and, once it has been started, the second one.
+	 *
+	 * @param first the first stage
+	 * @param next starts the second stage from the result of the first
+	 * @return a future completing with the result of the second stage
+	 */
+	static <T, U> CompletableFuture<U> thenCompose(CompletableFuture<T> first, Function<? super T, CompletableFuture<U>> next) {
+		AtomicBoolean cancelled = new AtomicBoolean();
+		AtomicReference<CompletableFuture<U>> started = new AtomicReference<>();
+		CompletableFuture<U> result = first.thenCompose(value -> {
+			CompletableFuture<U> second = next.apply(value);
+			started.set(second);
+			// The result may have been cancelled while the second stage was being started.
+			if (cancelled.get()) {
+				second.cancel(true);
+			}
+			return second;
+		});
+		return onCancel(result, () -> {
+			cancelled.set(true);
+			first.cancel(true);
+			CompletableFuture<U> second = started.get();
+			if (second != null) {
+				second.cancel(true);
+			}
+		});
+	}
+}
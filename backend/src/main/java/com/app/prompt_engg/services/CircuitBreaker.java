@@ -0,0 +1,219 @@
+package com.app.prompt_engg.services;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Circuit breaker around the upstream AI API.
+ *
+ * While closed, the outcomes of the most recent calls are kept in a sliding window; once the window
+ * holds enough calls and either the failure rate or the rate of slow calls reaches its threshold,
+ * the breaker opens and calls are refused without touching the upstream. After the open duration
+ * it lets a few probe calls through (half-open): if they all succeed in time it closes again,
+ * otherwise it reopens.
+ */
+@Component
+public class CircuitBreaker {
+
+	private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final int windowSize;
+	private final int minimumCalls;
+	private final double failureRateThreshold;
+	private final long slowCallNanos;
+	private final double slowCallRateThreshold;
+	private final long openNanos;
+	private final int halfOpenProbes;
+	private final LongSupplier nanoClock;
+
+	private final boolean[] failed;
+	private final boolean[] slow;
+	private int calls;
+	private int next;
+	private int failures;
+	private int slowCalls;
+
+	private State state = State.CLOSED;
+	private long openedAt;
+	private int probesInFlight;
+	private int probeSuccesses;
+
+	private final AtomicLong rejected = new AtomicLong();
+
+	@Autowired
+	public CircuitBreaker(@Value("${analysis.circuit-breaker.window-size:50}") int windowSize,
+			@Value("${analysis.circuit-breaker.minimum-calls:10}") int minimumCalls,
+			@Value("${analysis.circuit-breaker.failure-rate-threshold:0.5}") double failureRateThreshold,
+			@Value("${analysis.circuit-breaker.slow-call-duration:PT20S}") Duration slowCallDuration,
+			@Value("${analysis.circuit-breaker.slow-call-rate-threshold:0.8}") double slowCallRateThreshold,
+			@Value("${analysis.circuit-breaker.open-duration:PT30S}") Duration openDuration,
+			@Value("${analysis.circuit-breaker.half-open-probes:3}") int halfOpenProbes) {
+		this(windowSize, minimumCalls, failureRateThreshold, slowCallDuration, slowCallRateThreshold, openDuration,
+				halfOpenProbes, System::nanoTime);
+	}
+
+	CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, Duration slowCallDuration,
+			double slowCallRateThreshold, Duration openDuration, int halfOpenProbes, LongSupplier nanoClock) {
+		this.windowSize = Math.max(1, windowSize);
+		this.minimumCalls = Math.max(1, Math.min(minimumCalls, this.windowSize));
+		this.failureRateThreshold = failureRateThreshold;
+		this.slowCallNanos = slowCallDuration.toNanos();
+		this.slowCallRateThreshold = slowCallRateThreshold;
+		this.openNanos = openDuration.toNanos();
+		this.halfOpenProbes = Math.max(1, halfOpenProbes);
+		this.nanoClock = nanoClock;
+		this.failed = new boolean[this.windowSize];
+		this.slow = new boolean[this.windowSize];
+	}
+
+	/**
+	 * Asks to make an upstream call. Every permitted call must be followed by exactly one of
+	 * {@link #onSuccess}, {@link #onFailure} or {@link #onIgnored}.
+	 *
+	 * @return true if the call may go ahead, false if the breaker is open or all probes are taken
+	 */
+	public synchronized boolean tryAcquirePermission() {
+		if (state == State.OPEN && nanoClock.getAsLong() - openedAt >= openNanos) {
+			transition(State.HALF_OPEN);
+		}
+		boolean permitted = switch (state) {
+			case CLOSED -> true;
+			case OPEN -> false;
+			case HALF_OPEN -> {
+				if (probesInFlight + probeSuccesses < halfOpenProbes) {
+					probesInFlight++;
+					yield true;
+				}
+				yield false;
+			}
+		};
+		if (!permitted) {
+			rejected.incrementAndGet();
+		}
+		return permitted;
+	}
+
+	/**
+	 * @return true if calls are currently refused without probing
+	 */
+	public synchronized boolean isOpen() {
+		return state == State.OPEN && nanoClock.getAsLong() - openedAt < openNanos;
+	}
+
+	/**
+	 * Records a successful call, which counts as slow if it took longer than the slow-call duration.
+	 *
+	 * @param durationNanos how long the call took
+	 */
+	public synchronized void onSuccess(long durationNanos) {
+		record(false, durationNanos >= slowCallNanos);
+	}
+
+	/**
+	 * Records a call that failed because of the upstream, such as a timeout or a server error.
+	 *
+	 * @param durationNanos how long the call took
+	 */
+	public synchronized void onFailure(long durationNanos) {
+		record(true, durationNanos >= slowCallNanos);
+	}
+
+	/**
+	 * Releases a permission whose call ended in a way that says nothing about the upstream's health,
+	 * such as a rejected request or a cancellation.
+	 */
+	public synchronized void onIgnored() {
+		if (state == State.HALF_OPEN && probesInFlight > 0) {
+			probesInFlight--;
+		}
+	}
+
+	/**
+	 * Forces the breaker closed and clears its window.
+	 */
+	public synchronized void reset() {
+		transition(State.CLOSED);
+	}
+
+	public synchronized State getState() {
+		return state;
+	}
+
+	public synchronized double getFailureRate() {
+		return calls == 0 ? 0 : (double) failures / calls;
+	}
+
+	public synchronized double getSlowCallRate() {
+		return calls == 0 ? 0 : (double) slowCalls / calls;
+	}
+
+	public synchronized int getBufferedCalls() {
+		return calls;
+	}
+
+	public long getRejected() {
+		return rejected.get();
+	}
+
+	private void record(boolean callFailed, boolean callSlow) {
+		switch (state) {
+			case CLOSED -> {
+				if (calls == windowSize) {
+					failures -= failed[next] ? 1 : 0;
+					slowCalls -= slow[next] ? 1 : 0;
+				} else {
+					calls++;
+				}
+				failed[next] = callFailed;
+				slow[next] = callSlow;
+				failures += callFailed ? 1 : 0;
+				slowCalls += callSlow ? 1 : 0;
+				next = (next + 1) % windowSize;
+				if (calls >= minimumCalls && ((double) failures / calls >= failureRateThreshold
+						|| (double) slowCalls / calls >= slowCallRateThreshold)) {
+					transition(State.OPEN);
+				}
+			}
+			case HALF_OPEN -> {
+				probesInFlight = Math.max(0, probesInFlight - 1);
+				if (callFailed || callSlow) {
+					transition(State.OPEN);
+				} else if (++probeSuccesses >= halfOpenProbes) {
+					transition(State.CLOSED);
+				}
+			}
+			case OPEN -> {
+				// A call that started before the breaker opened; the breaker has already decided.
+			}
+		}
+	}
+
+	private void transition(State target) {
+		if (state != target) {
+			logger.warn("Upstream circuit breaker {} -> {} (failure rate {}, slow call rate {})", state, target,
+					getFailureRate(), getSlowCallRate());
+		}
+		state = target;
+		probesInFlight = 0;
+		probeSuccesses = 0;
+		if (target == State.OPEN) {
+			openedAt = nanoClock.getAsLong();
+		} else if (target == State.CLOSED) {
+			calls = 0;
+			next = 0;
+			failures = 0;
+			slowCalls = 0;
+		}
+	}
+}
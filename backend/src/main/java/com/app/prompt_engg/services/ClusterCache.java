@@ -0,0 +1,244 @@
+package com.app.prompt_engg.services;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.app.prompt_engg.models.ScenarioAnalysisResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Shares completed analyses between the replicas of a static cluster. Each cache key is owned by one
+ * replica, chosen by consistent hashing over the configured peers, so every analysis is generated
+ * and kept once for the whole cluster: a replica that misses locally on a key owned by another one
+ * asks the owner over its {@code /internal/cache} endpoint before calling the upstream, and pushes
+ * the analyses it generates for such keys to their owner. Peer failures are treated as misses.
+ * Peers authenticate with a shared token, which must be set for the cluster cache to be enabled.
+ */
+@Component
+public class ClusterCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(ClusterCache.class);
+
+	/**
+	 * Header carrying the shared cluster token on internal cache requests.
+	 */
+	public static final String TOKEN_HEADER = "X-Cluster-Token";
+
+	private final boolean enabled;
+	private final String self;
+	private final TreeMap<Long, String> ring = new TreeMap<>();
+	private final Duration timeout;
+	private final String token;
+	private final ObjectMapper objectMapper;
+	private final HttpClient client;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong errors = new AtomicLong();
+	private final AtomicLong pushes = new AtomicLong();
+
+	@Autowired
+	public ClusterCache(@Value("${analysis.cluster.enabled:false}") boolean enabled,
+			@Value("${analysis.cluster.self:}") String self,
+			@Value("${analysis.cluster.peers:}") List<String> peers,
+			@Value("${analysis.cluster.virtual-nodes:128}") int virtualNodes,
+			@Value("${analysis.cluster.timeout:PT0.5S}") Duration timeout,
+			@Value("${analysis.cluster.token:}") String token,
+			ObjectMapper objectMapper) {
+		this.self = normalize(self);
+		this.timeout = timeout;
+		this.token = token;
+		this.objectMapper = objectMapper;
+		for (String peer : peers) {
+			String node = normalize(peer);
+			if (node.isEmpty()) {
+				continue;
+			}
+			// Virtual nodes spread each peer around the ring, so ownership stays even.
+			for (int i = 0; i < virtualNodes; i++) {
+				ring.put(hash(node + "#" + i), node);
+			}
+		}
+		if (enabled && !ring.containsValue(this.self)) {
+			throw new IllegalArgumentException("analysis.cluster.self (" + self + ") must be one of analysis.cluster.peers");
+		}
+		// Without a token anyone who can reach a replica could read its analyses and overwrite them.
+		if (enabled && token.isBlank()) {
+			throw new IllegalArgumentException("analysis.cluster.token must be set when analysis.cluster.enabled=true");
+		}
+		long peerCount = ring.values().stream().distinct().count();
+		this.enabled = enabled && peerCount > 1;
+		this.client = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(timeout)
+				.build();
+		if (this.enabled) {
+			logger.info("Sharing the analysis cache with {} peers as {}", peerCount - 1, this.self);
+		}
+	}
+
+	/**
+	 * @param key the prompt hash
+	 * @return the base URL of the replica that owns the key
+	 */
+	public String owner(String key) {
+		Map.Entry<Long, String> entry = ring.ceilingEntry(hash(key));
+		return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+	}
+
+	/**
+	 * @param key the prompt hash
+	 * @return true if the key is owned by another replica
+	 */
+	public boolean isRemote(String key) {
+		return enabled && !owner(key).equals(self);
+	}
+
+	/**
+	 * @param key the prompt hash
+	 * @return true if the cluster cache is enabled and the key is owned by this replica
+	 */
+	public boolean isOwned(String key) {
+		return enabled && owner(key).equals(self);
+	}
+
+	/**
+	 * Fetches an analysis from the replica that owns the key.
+	 *
+	 * @param key the prompt hash of a key owned by another replica
+	 * @return a future completing with the owner's analysis, or empty if the owner has none or
+	 *         cannot be reached in time; it never completes exceptionally
+	 */
+	public CompletableFuture<Optional<ScenarioAnalysisResponse>> fetch(String key) {
+		String owner = owner(key);
+		HttpRequest request = request(owner, key).GET().build();
+		return client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).handle((response, e) -> {
+			if (e != null) {
+				errors.incrementAndGet();
+				logger.debug("Cache peer {} unavailable: {}", owner, e.toString());
+				return Optional.empty();
+			}
+			if (response.statusCode() == 404) {
+				misses.incrementAndGet();
+				return Optional.empty();
+			}
+			if (response.statusCode() != 200) {
+				errors.incrementAndGet();
+				logger.debug("Cache peer {} answered {}", owner, response.statusCode());
+				return Optional.empty();
+			}
+			try {
+				ScenarioAnalysisResponse analysis = objectMapper.readValue(response.body(), ScenarioAnalysisResponse.class);
+				hits.incrementAndGet();
+				return Optional.of(analysis);
+			} catch (IOException parseFailure) {
+				errors.incrementAndGet();
+				logger.debug("Unreadable analysis from cache peer {}: {}", owner, parseFailure.getMessage());
+				return Optional.empty();
+			}
+		});
+	}
+
+	/**
+	 * Hands an analysis generated here to the replica that owns its key, without waiting for it.
+	 * Does nothing for keys owned by this replica.
+	 *
+	 * @param key the prompt hash
+	 * @param analysis the analysis
+	 */
+	public void push(String key, ScenarioAnalysisResponse analysis) {
+		if (!isRemote(key)) {
+			return;
+		}
+		String owner = owner(key);
+		byte[] body;
+		try {
+			body = objectMapper.writeValueAsBytes(analysis);
+		} catch (JsonProcessingException e) {
+			errors.incrementAndGet();
+			return;
+		}
+		HttpRequest request = request(owner, key)
+				.header("Content-Type", "application/json")
+				.PUT(HttpRequest.BodyPublishers.ofByteArray(body))
+				.build();
+		pushes.incrementAndGet();
+		client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, e) -> {
+			if (e != null || response.statusCode() / 100 != 2) {
+				errors.incrementAndGet();
+				logger.debug("Could not push analysis to cache peer {}", owner);
+			}
+		});
+	}
+
+	/**
+	 * @param presented the token sent by a peer, or null
+	 * @return true if internal cache requests carrying this token are accepted; none are without a
+	 *         configured token
+	 */
+	public boolean isAuthorized(String presented) {
+		return !token.isEmpty() && presented != null
+				&& MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8), presented.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	public long getErrors() {
+		return errors.get();
+	}
+
+	public long getPushes() {
+		return pushes.get();
+	}
+
+	private HttpRequest.Builder request(String owner, String key) {
+		return HttpRequest.newBuilder(URI.create(owner + "/internal/cache/" + key))
+				.timeout(timeout)
+				.header(TOKEN_HEADER, token);
+	}
+
+	private static String normalize(String url) {
+		String trimmed = url == null ? "" : url.strip();
+		return trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+	}
+
+	private static long hash(String value) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			return ByteBuffer.wrap(digest.digest(value.getBytes(StandardCharsets.UTF_8))).getLong();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 not available", e);
+		}
+	}
+}
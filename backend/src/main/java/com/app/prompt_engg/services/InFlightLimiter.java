@@ -0,0 +1,42 @@
+package com.app.prompt_engg.services;
+
+import java.util.concurrent.Semaphore;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caps the number of upstream AI calls in flight at any time.
+ */
+@Component
+public class InFlightLimiter {
+
+	private final int maxInFlight;
+	private final Semaphore permits;
+
+	public InFlightLimiter(@Value("${analysis.async.max-in-flight:1000}") int maxInFlight) {
+		this.maxInFlight = maxInFlight;
+		this.permits = new Semaphore(maxInFlight);
+	}
+
+	/**
+	 * Claims a slot for an upstream call without waiting.
+	 *
+	 * @return true if a slot was claimed, false if the limit is reached
+	 */
+	public boolean tryAcquire() {
+		return permits.tryAcquire();
+	}
+
+	public void release() {
+		permits.release();
+	}
+
+	public int getInFlight() {
+		return maxInFlight - permits.availablePermits();
+	}
+
+	public int getMaxInFlight() {
+		return maxInFlight;
+	}
+}
@@ -0,0 +1,239 @@
+package com.app.prompt_engg.services;
+
+/**
+ * Push parser for the analysis JSON produced by the model. Text is fed in arbitrary chunks as it is
+ * streamed, and the listener is notified as soon as each top-level value or list item is complete,
+ * without waiting for the closing brace. Anything before the first '{' (such as a markdown fence) is
+ * skipped.
+ */
+public class IncrementalAnalysisParser {
+
+	/**
+	 * Receives sections of the analysis as they complete.
+	 */
+	public interface Listener {
+
+		/**
+		 * Called when a scalar section such as {@code summary} or {@code disclaimer} is complete.
+		 *
+		 * @param section the canonical section name
+		 * @param value the section text
+		 */
+		void onValue(String section, String value);
+
+		/**
+		 * Called when an item of a list section such as {@code pitfalls_or_risks} is complete.
+		 *
+		 * @param section the canonical section name
+		 * @param item the item text
+		 */
+		void onItem(String section, String item);
+	}
+
+	private enum State {
+		BEFORE_OBJECT, EXPECT_KEY, KEY, EXPECT_COLON, EXPECT_VALUE, STRING_VALUE, ARRAY, ARRAY_STRING, RAW, DONE
+	}
+
+	private final Listener listener;
+	private final StringBuilder buffer = new StringBuilder();
+
+	private State state = State.BEFORE_OBJECT;
+	private String section;
+
+	private boolean escaping;
+	private int unicodeDigits = -1;
+	private int unicodeValue;
+
+	private State rawParent;
+	private int rawDepth;
+	private boolean rawInString;
+	private boolean rawEscaping;
+
+	public IncrementalAnalysisParser(Listener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Consumes the next chunk of model output.
+	 *
+	 * @param chunk the text delta
+	 */
+	public void feed(CharSequence chunk) {
+		for (int i = 0; i < chunk.length(); i++) {
+			accept(chunk.charAt(i));
+		}
+	}
+
+	/**
+	 * @return true once the closing brace of the top-level object has been seen
+	 */
+	public boolean isComplete() {
+		return state == State.DONE;
+	}
+
+	/**
+	 * Maps the key aliases the model uses for the summary onto a single section name.
+	 *
+	 * @param key the key as emitted by the model
+	 * @return the canonical section name
+	 */
+	public static String canonicalSection(String key) {
+		return switch (key) {
+			case "short_summary", "short" -> "summary";
+			default -> key;
+		};
+	}
+
+	private void accept(char c) {
+		switch (state) {
+			case BEFORE_OBJECT -> {
+				if (c == '{') {
+					state = State.EXPECT_KEY;
+				}
+			}
+			case EXPECT_KEY -> {
+				if (c == '"') {
+					buffer.setLength(0);
+					state = State.KEY;
+				} else if (c == '}') {
+					state = State.DONE;
+				}
+			}
+			case KEY -> {
+				if (readString(c)) {
+					section = canonicalSection(buffer.toString());
+					state = State.EXPECT_COLON;
+				}
+			}
+			case EXPECT_COLON -> {
+				if (c == ':') {
+					state = State.EXPECT_VALUE;
+				}
+			}
+			case EXPECT_VALUE -> {
+				if (c == '"') {
+					buffer.setLength(0);
+					state = State.STRING_VALUE;
+				} else if (c == '[') {
+					state = State.ARRAY;
+				} else if (!Character.isWhitespace(c)) {
+					startRaw(c, State.EXPECT_KEY);
+				}
+			}
+			case STRING_VALUE -> {
+				if (readString(c)) {
+					listener.onValue(section, buffer.toString());
+					state = State.EXPECT_KEY;
+				}
+			}
+			case ARRAY -> {
+				if (c == '"') {
+					buffer.setLength(0);
+					state = State.ARRAY_STRING;
+				} else if (c == ']') {
+					state = State.EXPECT_KEY;
+				} else if (c != ',' && !Character.isWhitespace(c)) {
+					startRaw(c, State.ARRAY);
+				}
+			}
+			case ARRAY_STRING -> {
+				if (readString(c)) {
+					listener.onItem(section, buffer.toString());
+					state = State.ARRAY;
+				}
+			}
+			case RAW -> readRaw(c);
+			case DONE -> {
+				// Ignore trailing text such as a closing markdown fence.
+			}
+		}
+	}
+
+	/**
+	 * Appends one character of a JSON string literal to the buffer, decoding escapes.
+	 *
+	 * @return true if the character was the closing quote
+	 */
+	private boolean readString(char c) {
+		if (unicodeDigits >= 0) {
+			unicodeValue = unicodeValue * 16 + Math.max(Character.digit(c, 16), 0);
+			if (++unicodeDigits == 4) {
+				buffer.append((char) unicodeValue);
+				unicodeDigits = -1;
+			}
+			return false;
+		}
+		if (escaping) {
+			escaping = false;
+			switch (c) {
+				case 'n' -> buffer.append('\n');
+				case 't' -> buffer.append('\t');
+				case 'r' -> buffer.append('\r');
+				case 'b' -> buffer.append('\b');
+				case 'f' -> buffer.append('\f');
+				case 'u' -> {
+					unicodeDigits = 0;
+					unicodeValue = 0;
+				}
+				default -> buffer.append(c);
+			}
+			return false;
+		}
+		if (c == '\\') {
+			escaping = true;
+			return false;
+		}
+		if (c == '"') {
+			return true;
+		}
+		buffer.append(c);
+		return false;
+	}
+
+	/**
+	 * Starts capturing a non-string value (number, literal, nested object or array) verbatim.
+	 */
+	private void startRaw(char c, State parent) {
+		buffer.setLength(0);
+		rawParent = parent;
+		rawDepth = 0;
+		rawInString = false;
+		rawEscaping = false;
+		state = State.RAW;
+		readRaw(c);
+	}
+
+	private void readRaw(char c) {
+		if (rawInString) {
+			buffer.append(c);
+			if (rawEscaping) {
+				rawEscaping = false;
+			} else if (c == '\\') {
+				rawEscaping = true;
+			} else if (c == '"') {
+				rawInString = false;
+			}
+			return;
+		}
+		if (rawDepth == 0 && (c == ',' || c == '}' || c == ']')) {
+			String value = buffer.toString().strip();
+			if (rawParent == State.ARRAY) {
+				listener.onItem(section, value);
+			} else {
+				listener.onValue(section, value);
+			}
+			state = rawParent;
+			// The delimiter belongs to the enclosing structure.
+			accept(c);
+			return;
+		}
+		if (c == '"') {
+			rawInString = true;
+		} else if (c == '{' || c == '[') {
+			rawDepth++;
+		} else if (c == '}' || c == ']') {
+			rawDepth--;
+		}
+		buffer.append(c);
+	}
+}
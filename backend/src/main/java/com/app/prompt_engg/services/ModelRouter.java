@@ -0,0 +1,121 @@
+package com.app.prompt_engg.services;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import com.app.prompt_engg.models.ScenarioAnalysisRequest;
+
+/**
+ * Chooses the model for each request. Rules are configured as {@code openai.routing.rules[i].*} and
+ * checked in order; the first rule whose limits the request fits decides the model, and requests
+ * matching no rule go to {@code openai.routing.default-model}. This lets small scenarios go to a
+ * cheaper, faster model while large ones keep the default.
+ */
+@Component
+public class ModelRouter {
+
+	/**
+	 * A routing rule. Unset limits match any request.
+	 */
+	public static class Rule {
+
+		private String model;
+		private Integer maxScenarioChars;
+		private Integer maxConstraints;
+		private String template;
+
+		public Rule() {
+		}
+
+		public Rule(String model, Integer maxScenarioChars, Integer maxConstraints, String template) {
+			this.model = model;
+			this.maxScenarioChars = maxScenarioChars;
+			this.maxConstraints = maxConstraints;
+			this.template = template;
+		}
+
+		boolean matches(ScenarioAnalysisRequest request) {
+			String scenario = request.getScenario() == null ? "" : request.getScenario();
+			return (maxScenarioChars == null || scenario.length() <= maxScenarioChars)
+					&& (maxConstraints == null || request.getConstraints().size() <= maxConstraints)
+					&& (template == null || template.equals(request.getTemplate()));
+		}
+
+		public String getModel() {
+			return model;
+		}
+
+		public void setModel(String model) {
+			this.model = model;
+		}
+
+		public Integer getMaxScenarioChars() {
+			return maxScenarioChars;
+		}
+
+		public void setMaxScenarioChars(Integer maxScenarioChars) {
+			this.maxScenarioChars = maxScenarioChars;
+		}
+
+		public Integer getMaxConstraints() {
+			return maxConstraints;
+		}
+
+		public void setMaxConstraints(Integer maxConstraints) {
+			this.maxConstraints = maxConstraints;
+		}
+
+		public String getTemplate() {
+			return template;
+		}
+
+		public void setTemplate(String template) {
+			this.template = template;
+		}
+	}
+
+	/**
+	 * The model chosen for a request, and the model a hedged second attempt goes to.
+	 */
+	public record Route(String model, String hedgeModel) {
+	}
+
+	private final String defaultModel;
+	private final String hedgeModel;
+	private final List<Rule> rules;
+
+	@Autowired
+	public ModelRouter(@Value("${openai.routing.default-model:gpt-4o}") String defaultModel,
+			@Value("${openai.hedging.model:}") String hedgeModel, Environment environment) {
+		this(defaultModel, hedgeModel, Binder.get(environment)
+				.bind("openai.routing.rules", Bindable.listOf(Rule.class))
+				.orElse(List.of()));
+	}
+
+	public ModelRouter(String defaultModel, String hedgeModel, List<Rule> rules) {
+		this.defaultModel = defaultModel;
+		this.hedgeModel = hedgeModel == null || hedgeModel.isBlank() ? null : hedgeModel;
+		this.rules = List.copyOf(rules);
+	}
+
+	/**
+	 * Routes a validated request.
+	 *
+	 * @param request the request
+	 * @return the model to call, and the hedge model (the same model unless one is configured)
+	 */
+	public Route route(ScenarioAnalysisRequest request) {
+		String model = rules.stream()
+				.filter(rule -> rule.getModel() != null && rule.matches(request))
+				.map(Rule::getModel)
+				.findFirst()
+				.orElse(defaultModel);
+		return new Route(model, hedgeModel != null ? hedgeModel : model);
+	}
+}
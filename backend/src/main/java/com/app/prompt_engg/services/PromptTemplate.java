@@ -0,0 +1,112 @@
+package com.app.prompt_engg.services;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A prompt template parsed once into literal text and {@code [scenarios]} / {@code [constraints]}
+ * placeholders, so that rendering is a single pass into an exactly sized buffer. User text is
+ * inserted verbatim and never rescanned, so a scenario that itself contains a placeholder token is
+ * not expanded.
+ */
+public final class PromptTemplate {
+
+	static final String SCENARIOS = "[scenarios]";
+	static final String CONSTRAINTS = "[constraints]";
+
+	private enum Kind {
+		LITERAL, SCENARIOS, CONSTRAINTS
+	}
+
+	private record Segment(Kind kind, String text) {
+	}
+
+	private final String name;
+	private final List<Segment> segments;
+	private final int literalLength;
+	private final int scenarioSlots;
+	private final int constraintSlots;
+
+	private PromptTemplate(String name, List<Segment> segments) {
+		this.name = name;
+		this.segments = segments;
+		this.literalLength = segments.stream().filter(s -> s.kind == Kind.LITERAL).mapToInt(s -> s.text.length()).sum();
+		this.scenarioSlots = (int) segments.stream().filter(s -> s.kind == Kind.SCENARIOS).count();
+		this.constraintSlots = (int) segments.stream().filter(s -> s.kind == Kind.CONSTRAINTS).count();
+	}
+
+	/**
+	 * Splits the template text into segments.
+	 *
+	 * @param name the template name
+	 * @param template the template text
+	 * @return the parsed template
+	 */
+	public static PromptTemplate parse(String name, String template) {
+		List<Segment> segments = new ArrayList<>();
+		int position = 0;
+		while (position < template.length()) {
+			int scenario = template.indexOf(SCENARIOS, position);
+			int constraints = template.indexOf(CONSTRAINTS, position);
+			int next = scenario < 0 ? constraints : constraints < 0 ? scenario : Math.min(scenario, constraints);
+			if (next < 0) {
+				break;
+			}
+			if (next > position) {
+				segments.add(new Segment(Kind.LITERAL, template.substring(position, next)));
+			}
+			if (next == scenario) {
+				segments.add(new Segment(Kind.SCENARIOS, null));
+				position = next + SCENARIOS.length();
+			} else {
+				segments.add(new Segment(Kind.CONSTRAINTS, null));
+				position = next + CONSTRAINTS.length();
+			}
+		}
+		if (position < template.length()) {
+			segments.add(new Segment(Kind.LITERAL, template.substring(position)));
+		}
+		return new PromptTemplate(name, List.copyOf(segments));
+	}
+
+	/**
+	 * Renders the template for a scenario and its constraints, which are joined with ", ".
+	 *
+	 * @param scenario the scenario text
+	 * @param constraints the constraints
+	 * @return the prompt
+	 */
+	public String render(String scenario, List<String> constraints) {
+		int constraintsLength = Math.max(0, constraints.size() - 1) * 2;
+		for (String constraint : constraints) {
+			constraintsLength += constraint.length();
+		}
+		StringBuilder out = new StringBuilder(literalLength + scenarioSlots * scenario.length() + constraintSlots * constraintsLength);
+		for (Segment segment : segments) {
+			switch (segment.kind) {
+				case LITERAL -> out.append(segment.text);
+				case SCENARIOS -> out.append(scenario);
+				case CONSTRAINTS -> {
+					for (int i = 0; i < constraints.size(); i++) {
+						if (i > 0) {
+							out.append(", ");
+						}
+						out.append(constraints.get(i));
+					}
+				}
+			}
+		}
+		return out.toString();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return how many times the scenario is inserted into the prompt
+	 */
+	int getScenarioSlots() {
+		return scenarioSlots;
+	}
+}
@@ -0,0 +1,75 @@
+package com.app.prompt_engg.services;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import com.app.prompt_engg.exceptions.InvalidScenarioException;
+
+/**
+ * The named prompt templates, parsed once at startup. {@code openai.prompt} is the {@code default}
+ * template; further templates are configured as {@code openai.templates.<name>=...} and selected per
+ * request by name. The templates render only the per-request input; the static instructions in
+ * {@code openai.instructions} are shared by all of them and sent ahead of it, so that every request
+ * starts with the same prefix and the upstream can serve it from its prompt cache.
+ */
+@Component
+public class PromptTemplates {
+
+	public static final String DEFAULT = "default";
+
+	private final String instructions;
+	private final Map<String, PromptTemplate> templates;
+
+	@Autowired
+	public PromptTemplates(@Value("${openai.instructions:}") String instructions,
+			@Value("${openai.prompt}") String defaultTemplate, Environment environment) {
+		this(instructions, defaultTemplate, Binder.get(environment)
+				.bind("openai.templates", Bindable.mapOf(String.class, String.class))
+				.orElse(Map.of()));
+	}
+
+	public PromptTemplates(String defaultTemplate, Map<String, String> namedTemplates) {
+		this("", defaultTemplate, namedTemplates);
+	}
+
+	public PromptTemplates(String instructions, String defaultTemplate, Map<String, String> namedTemplates) {
+		this.instructions = instructions.strip();
+		Map<String, PromptTemplate> parsed = new HashMap<>();
+		namedTemplates.forEach((name, template) -> parsed.put(name, PromptTemplate.parse(name, template)));
+		parsed.put(DEFAULT, PromptTemplate.parse(DEFAULT, defaultTemplate));
+		this.templates = Map.copyOf(parsed);
+	}
+
+	/**
+	 * Looks up a template by name.
+	 *
+	 * @param name the template name, or null for the default template
+	 * @return the template
+	 * @throws InvalidScenarioException if no template has that name
+	 */
+	public PromptTemplate get(String name) {
+		if (name == null || name.isBlank()) {
+			return templates.get(DEFAULT);
+		}
+		PromptTemplate template = templates.get(name);
+		if (template == null) {
+			throw new InvalidScenarioException("Unable to process request, unknown prompt template: " + name);
+		}
+		return template;
+	}
+
+	/**
+	 * @return the static instructions sent ahead of every prompt, or an empty string if the
+	 *         templates carry their instructions themselves
+	 */
+	public String getInstructions() {
+		return instructions;
+	}
+}
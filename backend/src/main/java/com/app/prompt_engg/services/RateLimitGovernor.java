@@ -0,0 +1,444 @@
+package com.app.prompt_engg.services;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.app.prompt_engg.exceptions.TooManyRequestsException;
+import com.app.prompt_engg.exceptions.UpstreamUnavailableException;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Client-side governor that keeps upstream calls within the requests-per-minute and
+ * tokens-per-minute budgets of the OpenAI account.
+ *
+ * Both budgets are token buckets holding one minute's worth of capacity. A call reserves one request
+ * and an estimate of its tokens; when the buckets cannot cover it, the call waits in a per-client
+ * queue and queues are served round robin, so one busy client cannot starve the others. Calls are
+ * shed with a {@link TooManyRequestsException} when the queues are full and with an
+ * {@link UpstreamUnavailableException} when they wait too long.
+ *
+ * The governor adapts to the upstream: the rate-limit headers of each response cap the budgets and
+ * the remaining capacity, and a 429 from the upstream halves the effective rate and pauses dispatch
+ * until the advertised reset, after which the rate recovers gradually as calls succeed.
+ */
+@Component
+public class RateLimitGovernor {
+
+	private static final Logger logger = LoggerFactory.getLogger(RateLimitGovernor.class);
+
+	private static final long MINUTE_NANOS = TimeUnit.MINUTES.toNanos(1);
+	private static final double MIN_RATE_FACTOR = 0.1;
+	private static final double RATE_RECOVERY_STEP = 0.02;
+	private static final double OUTPUT_TOKENS_WEIGHT = 0.1;
+	private static final Pattern DURATION_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|h|m|s)");
+
+	/**
+	 * A call waiting for budget.
+	 */
+	private record Waiter(String clientId, double tokens, long deadline, CompletableFuture<Void> future) {
+	}
+
+	private final long configuredRequestsPerMinute;
+	private final long configuredTokensPerMinute;
+	private final int maxQueueSize;
+	private final int maxQueuePerClient;
+	private final long maxQueueWaitNanos;
+	private final LongSupplier nanoClock;
+	private final ScheduledExecutorService dispatcher;
+
+	private long requestsPerMinute;
+	private long tokensPerMinute;
+	private double rateFactor = 1.0;
+	private double requestCredit;
+	private double tokenCredit;
+	private long lastRefill;
+	private long pausedUntil;
+	private double expectedOutputTokens;
+
+	private final Map<String, ArrayDeque<Waiter>> queues = new HashMap<>();
+	private final ArrayDeque<String> rotation = new ArrayDeque<>();
+	private int queued;
+	private ScheduledFuture<?> scheduledDispatch;
+
+	private final AtomicLong shed = new AtomicLong();
+
+	@Autowired
+	public RateLimitGovernor(@Value("${openai.rate-limit.requests-per-minute:500}") long requestsPerMinute,
+			@Value("${openai.rate-limit.tokens-per-minute:30000}") long tokensPerMinute,
+			@Value("${openai.rate-limit.max-queue-size:200}") int maxQueueSize,
+			@Value("${openai.rate-limit.max-queue-per-client:20}") int maxQueuePerClient,
+			@Value("${openai.rate-limit.max-queue-wait:PT10S}") Duration maxQueueWait,
+			@Value("${openai.rate-limit.expected-output-tokens:800}") int expectedOutputTokens) {
+		this(requestsPerMinute, tokensPerMinute, maxQueueSize, maxQueuePerClient, maxQueueWait, expectedOutputTokens,
+				System::nanoTime);
+	}
+
+	RateLimitGovernor(long requestsPerMinute, long tokensPerMinute, int maxQueueSize, int maxQueuePerClient,
+			Duration maxQueueWait, int expectedOutputTokens, LongSupplier nanoClock) {
+		this.configuredRequestsPerMinute = requestsPerMinute;
+		this.configuredTokensPerMinute = tokensPerMinute;
+		this.requestsPerMinute = requestsPerMinute;
+		this.tokensPerMinute = tokensPerMinute;
+		this.maxQueueSize = maxQueueSize;
+		this.maxQueuePerClient = maxQueuePerClient;
+		this.maxQueueWaitNanos = maxQueueWait.toNanos();
+		this.expectedOutputTokens = expectedOutputTokens;
+		this.nanoClock = nanoClock;
+		this.requestCredit = requestsPerMinute;
+		this.tokenCredit = tokensPerMinute;
+		this.lastRefill = nanoClock.getAsLong();
+		this.pausedUntil = lastRefill;
+		this.dispatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "rate-limit-dispatcher");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		dispatcher.shutdownNow();
+	}
+
+	/**
+	 * Estimates the tokens a call will consume: the prompt's tokens plus the average output size
+	 * seen so far.
+	 *
+	 * @param promptTokens the tokens of the prompt to send
+	 * @return the estimated total tokens
+	 */
+	public synchronized int estimateTokens(int promptTokens) {
+		return promptTokens + (int) expectedOutputTokens;
+	}
+
+	/**
+	 * Reserves budget for one upstream call, waiting in the client's queue if necessary.
+	 *
+	 * @param clientId the calling client, used for fair queueing
+	 * @param tokens the estimated tokens of the call
+	 * @return a future completing once the call may be sent, or exceptionally with an
+	 *         {@link UpstreamUnavailableException} if it waited longer than the maximum queue wait
+	 * @throws TooManyRequestsException if the queue, or the client's share of it, is full
+	 */
+	public CompletableFuture<Void> acquire(String clientId, int tokens) {
+		CompletableFuture<Void> future = new CompletableFuture<>();
+		synchronized (this) {
+			long now = nanoClock.getAsLong();
+			refill(now);
+			if (queued == 0 && canDispatch(now, tokens)) {
+				consume(tokens);
+				return CompletableFuture.completedFuture(null);
+			}
+			ArrayDeque<Waiter> queue = queues.get(clientId);
+			if (queued >= maxQueueSize || (queue != null && queue.size() >= maxQueuePerClient)) {
+				shed.incrementAndGet();
+				throw new TooManyRequestsException("Upstream rate limit reached, please retry shortly",
+						retryAfterSeconds(now, tokens));
+			}
+			if (queue == null) {
+				queue = new ArrayDeque<>();
+				queues.put(clientId, queue);
+				rotation.addLast(clientId);
+			}
+			queue.addLast(new Waiter(clientId, tokens, now + maxQueueWaitNanos, future));
+			queued++;
+			scheduleDispatch(now);
+		}
+		return future;
+	}
+
+	/**
+	 * Reserves budget for an optional upstream call, such as a hedge, only if it is available right
+	 * away and no other call is waiting for it.
+	 *
+	 * @param tokens the estimated tokens of the call
+	 * @return true if the call may be sent
+	 */
+	public synchronized boolean tryAcquire(int tokens) {
+		long now = nanoClock.getAsLong();
+		refill(now);
+		if (queued == 0 && canDispatch(now, tokens)) {
+			consume(tokens);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Records the output size of a completed call to refine later estimates.
+	 *
+	 * @param outputTokens the output tokens reported by the upstream
+	 */
+	public synchronized void recordUsage(long outputTokens) {
+		expectedOutputTokens += OUTPUT_TOKENS_WEIGHT * (outputTokens - expectedOutputTokens);
+	}
+
+	/**
+	 * Adapts to the rate-limit headers of a successful response, and lets the effective rate recover
+	 * after an earlier 429.
+	 *
+	 * @param header looks up a response header by name, returning null if absent
+	 */
+	public synchronized void onResponse(Function<String, String> header) {
+		refill(nanoClock.getAsLong());
+		Long limitRequests = parseLong(header.apply("x-ratelimit-limit-requests"));
+		Long limitTokens = parseLong(header.apply("x-ratelimit-limit-tokens"));
+		Long remainingRequests = parseLong(header.apply("x-ratelimit-remaining-requests"));
+		Long remainingTokens = parseLong(header.apply("x-ratelimit-remaining-tokens"));
+		if (limitRequests != null) {
+			requestsPerMinute = Math.min(configuredRequestsPerMinute, limitRequests);
+		}
+		if (limitTokens != null) {
+			tokensPerMinute = Math.min(configuredTokensPerMinute, limitTokens);
+		}
+		if (remainingRequests != null) {
+			requestCredit = Math.min(requestCredit, remainingRequests);
+		}
+		if (remainingTokens != null) {
+			tokenCredit = Math.min(tokenCredit, remainingTokens);
+		}
+		rateFactor = Math.min(1.0, rateFactor + RATE_RECOVERY_STEP);
+	}
+
+	/**
+	 * Backs off after the upstream rejected a call with a 429: halves the effective rate, drains the
+	 * buckets and pauses dispatch until the reset the upstream advertised.
+	 *
+	 * @param header looks up a response header by name, returning null if absent
+	 * @return how long callers should wait before retrying
+	 */
+	public synchronized Duration onRateLimited(Function<String, String> header) {
+		long now = nanoClock.getAsLong();
+		Duration retryAfter = retryAfter(header);
+		rateFactor = Math.max(MIN_RATE_FACTOR, rateFactor / 2);
+		requestCredit = 0;
+		tokenCredit = 0;
+		lastRefill = now;
+		pausedUntil = Math.max(pausedUntil, now + retryAfter.toNanos());
+		logger.warn("Upstream rate limit hit, pausing for {} ms at {}% of budget", retryAfter.toMillis(),
+				Math.round(rateFactor * 100));
+		scheduleDispatch(now);
+		return retryAfter;
+	}
+
+	/**
+	 * Sends as many queued calls as the budget allows, one per client in turn, and fails those that
+	 * have waited too long.
+	 */
+	void dispatch() {
+		List<Waiter> ready = new ArrayList<>();
+		List<Waiter> expired = new ArrayList<>();
+		long retryAfterSeconds;
+		synchronized (this) {
+			scheduledDispatch = null;
+			long now = nanoClock.getAsLong();
+			refill(now);
+			removeExpired(now, expired);
+			while (!rotation.isEmpty()) {
+				String clientId = rotation.peekFirst();
+				ArrayDeque<Waiter> queue = queues.get(clientId);
+				Waiter head = queue.peekFirst();
+				if (!canDispatch(now, head.tokens())) {
+					break;
+				}
+				consume(head.tokens());
+				queue.pollFirst();
+				queued--;
+				ready.add(head);
+				rotation.pollFirst();
+				if (queue.isEmpty()) {
+					queues.remove(clientId);
+				} else {
+					rotation.addLast(clientId);
+				}
+			}
+			retryAfterSeconds = retryAfterSeconds(now, 0);
+			if (queued > 0) {
+				scheduleDispatch(now);
+			}
+		}
+		for (Waiter waiter : expired) {
+			waiter.future().completeExceptionally(new UpstreamUnavailableException(
+					"Upstream rate limit reached, please retry later", retryAfterSeconds));
+		}
+		for (Waiter waiter : ready) {
+			waiter.future().complete(null);
+		}
+	}
+
+	public synchronized int getQueued() {
+		return queued;
+	}
+
+	public synchronized double getRateFactor() {
+		return rateFactor;
+	}
+
+	public long getShed() {
+		return shed.get();
+	}
+
+	private void removeExpired(long now, List<Waiter> expired) {
+		Iterator<String> clients = rotation.iterator();
+		while (clients.hasNext()) {
+			String clientId = clients.next();
+			ArrayDeque<Waiter> queue = queues.get(clientId);
+			int before = queue.size();
+			queue.removeIf(waiter -> {
+				if (waiter.future().isDone()) {
+					// Cancelled by the caller; it no longer needs the budget.
+					return true;
+				}
+				if (now - waiter.deadline() >= 0) {
+					expired.add(waiter);
+					return true;
+				}
+				return false;
+			});
+			queued -= before - queue.size();
+			if (queue.isEmpty()) {
+				queues.remove(clientId);
+				clients.remove();
+			}
+		}
+		shed.addAndGet(expired.size());
+	}
+
+	private boolean canDispatch(long now, double tokens) {
+		return now - pausedUntil >= 0 && requestCredit >= 1 && tokenCredit >= capped(tokens);
+	}
+
+	private void consume(double tokens) {
+		requestCredit -= 1;
+		tokenCredit -= capped(tokens);
+	}
+
+	/**
+	 * Caps a reservation at the bucket capacity, so that a call larger than the budget can still run
+	 * once the bucket is full.
+	 */
+	private double capped(double tokens) {
+		return Math.min(tokens, tokensPerMinute * rateFactor);
+	}
+
+	private void refill(long now) {
+		long elapsed = now - lastRefill;
+		if (elapsed <= 0) {
+			return;
+		}
+		lastRefill = now;
+		double requestCapacity = requestsPerMinute * rateFactor;
+		double tokenCapacity = tokensPerMinute * rateFactor;
+		requestCredit = Math.min(requestCapacity, requestCredit + requestCapacity * elapsed / MINUTE_NANOS);
+		tokenCredit = Math.min(tokenCapacity, tokenCredit + tokenCapacity * elapsed / MINUTE_NANOS);
+	}
+
+	/**
+	 * @return nanoseconds until a call of the given size fits the budget
+	 */
+	private long nanosUntilAvailable(long now, double tokens) {
+		double requestCapacity = requestsPerMinute * rateFactor;
+		double tokenCapacity = tokensPerMinute * rateFactor;
+		long requestWait = requestCredit >= 1 ? 0 : (long) ((1 - requestCredit) * MINUTE_NANOS / requestCapacity);
+		long tokenWait = tokenCredit >= capped(tokens) ? 0 : (long) ((capped(tokens) - tokenCredit) * MINUTE_NANOS / tokenCapacity);
+		return Math.max(Math.max(requestWait, tokenWait), pausedUntil - now);
+	}
+
+	private long retryAfterSeconds(long now, double tokens) {
+		Waiter head = rotation.isEmpty() ? null : queues.get(rotation.peekFirst()).peekFirst();
+		long wait = nanosUntilAvailable(now, head != null ? Math.max(head.tokens(), tokens) : tokens);
+		return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1));
+	}
+
+	private void scheduleDispatch(long now) {
+		if (queued == 0 || dispatcher.isShutdown()) {
+			return;
+		}
+		Waiter head = queues.get(rotation.peekFirst()).peekFirst();
+		long delay = Math.max(TimeUnit.MILLISECONDS.toNanos(1), nanosUntilAvailable(now, head.tokens()));
+		long expiry = Math.max(0, head.deadline() - now);
+		delay = Math.min(delay, Math.max(TimeUnit.MILLISECONDS.toNanos(1), expiry));
+		if (scheduledDispatch != null) {
+			if (scheduledDispatch.getDelay(TimeUnit.NANOSECONDS) <= delay) {
+				return;
+			}
+			scheduledDispatch.cancel(false);
+		}
+		scheduledDispatch = dispatcher.schedule(this::dispatch, delay, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Reads the retry delay from {@code retry-after-ms}, {@code retry-after} or the
+	 * {@code x-ratelimit-reset-*} headers, defaulting to one second.
+	 */
+	static Duration retryAfter(Function<String, String> header) {
+		Long millis = parseLong(header.apply("retry-after-ms"));
+		if (millis != null) {
+			return Duration.ofMillis(millis);
+		}
+		Long seconds = parseLong(header.apply("retry-after"));
+		if (seconds != null) {
+			return Duration.ofSeconds(seconds);
+		}
+		Duration requestsReset = parseDuration(header.apply("x-ratelimit-reset-requests"));
+		Duration tokensReset = parseDuration(header.apply("x-ratelimit-reset-tokens"));
+		Duration reset = requestsReset.compareTo(tokensReset) >= 0 ? requestsReset : tokensReset;
+		return reset.isZero() ? Duration.ofSeconds(1) : reset;
+	}
+
+	/**
+	 * Parses the duration format of the {@code x-ratelimit-reset-*} headers, such as {@code 20ms},
+	 * {@code 1s} or {@code 6m0s}.
+	 */
+	static Duration parseDuration(String value) {
+		if (value == null) {
+			return Duration.ZERO;
+		}
+		Duration duration = Duration.ZERO;
+		Matcher matcher = DURATION_PART.matcher(value);
+		while (matcher.find()) {
+			double amount = Double.parseDouble(matcher.group(1));
+			long millis = switch (matcher.group(2)) {
+				case "h" -> (long) (amount * 3_600_000);
+				case "m" -> (long) (amount * 60_000);
+				case "s" -> (long) (amount * 1_000);
+				default -> (long) amount;
+			};
+			duration = duration.plusMillis(millis);
+		}
+		return duration;
+	}
+
+	private static Long parseLong(String value) {
+		if (value == null) {
+			return null;
+		}
+		try {
+			return Long.parseLong(value.strip());
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,335 @@
+package com.app.prompt_engg.services;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.app.prompt_engg.config.ReactiveCorrelationIdFilter;
+import com.app.prompt_engg.models.ScenarioAnalysisRequest;
+import com.app.prompt_engg.models.ScenarioAnalysisResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+/**
+ * Reactive variant of {@link AiService}, active with the {@code reactive} profile. Caching, rate
+ * limiting, routing, hedging and the circuit breaker are shared with the servlet variant; the
+ * upstream calls go through a non-blocking {@link WebClient} to the Responses API instead of the
+ * OpenAI SDK, and results are exposed as {@link Mono} and {@link Flux}.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveAiService extends AiService {
+
+	private static final Logger logger = LoggerFactory.getLogger(ReactiveAiService.class);
+
+	private static final ParameterizedTypeReference<ServerSentEvent<String>> EVENT_TYPE = new ParameterizedTypeReference<>() {
+	};
+
+	/**
+	 * A named event of a streamed analysis, with the same names and payloads as the servlet stream.
+	 */
+	public record AnalysisEvent(String name, Object data) {
+	}
+
+	@Autowired
+	@Qualifier("openAIWebClient")
+	private WebClient webClient;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Value("${openai.structured-output:false}")
+	private boolean structuredOutput;
+
+	@Value("${openai.client.max-retries:2}")
+	private int maxRetries;
+
+	/**
+	 * Generates an analysis when subscribed to. Admission, hashing and the cache and store lookups
+	 * block, so the analysis is started on the bounded elastic scheduler rather than the event loop.
+	 *
+	 * @param request a ScenarioAnalysisRequest containing the scenario and constraints
+	 * @return a Mono emitting the analysis, or failing as {@link #generateAnalysisAsync} does;
+	 *         cancelling it abandons the upstream call
+	 */
+	public Mono<ScenarioAnalysisResponse> analyse(ScenarioAnalysisRequest request) {
+		return start(() -> generateAnalysisAsync(request));
+	}
+
+	/**
+	 * Generates an analysis of an admitted request when subscribed to, as {@link #analyse} does.
+	 *
+	 * @param admitted the admitted request, from {@link #admit}
+	 * @return a Mono emitting the analysis; cancelling it abandons the upstream call
+	 */
+	public Mono<ScenarioAnalysisResponse> analyse(AdmissionControl.Admission admitted) {
+		return start(() -> generateAnalysisAsync(admitted));
+	}
+
+	private Mono<ScenarioAnalysisResponse> start(Supplier<CompletableFuture<ScenarioAnalysisResponse>> analysis) {
+		return Mono.deferContextual(context -> Mono.fromFuture(() -> ReactiveCorrelationIdFilter.withMdc(context, analysis)))
+				.subscribeOn(Schedulers.boundedElastic());
+	}
+
+	/**
+	 * Streams an analysis when subscribed to: one event per completed section or list item, then a
+	 * {@code complete} event carrying the full analysis, or an {@code error} event if generation fails
+	 * once started. As for {@link #analyse}, the analysis is started off the event loop.
+	 *
+	 * @param request a ScenarioAnalysisRequest containing the scenario and constraints
+	 * @return a Flux of events, failing before any event with an InvalidScenarioException or a
+	 *         TooManyRequestsException if the analysis cannot be started
+	 */
+	public Flux<AnalysisEvent> analyseStream(ScenarioAnalysisRequest request) {
+		return stream(listener -> streamAnalysis(request, listener));
+	}
+
+	/**
+	 * Streams an analysis of an admitted request when subscribed to, as {@link #analyseStream} does.
+	 *
+	 * @param admitted the admitted request, from {@link #admit}
+	 * @return a Flux of events
+	 */
+	public Flux<AnalysisEvent> analyseStream(AdmissionControl.Admission admitted) {
+		return stream(listener -> streamAnalysis(admitted, listener));
+	}
+
+	private Flux<AnalysisEvent> stream(Function<IncrementalAnalysisParser.Listener, CompletableFuture<ScenarioAnalysisResponse>> start) {
+		return Flux.deferContextual(context -> ReactiveCorrelationIdFilter.withMdc(context, () -> {
+			Sinks.Many<AnalysisEvent> events = Sinks.many().unicast().onBackpressureBuffer();
+			CompletableFuture<ScenarioAnalysisResponse> analysis = start.apply(new IncrementalAnalysisParser.Listener() {
+				@Override
+				public void onValue(String section, String value) {
+					events.tryEmitNext(new AnalysisEvent(section, Map.of("value", value)));
+				}
+
+				@Override
+				public void onItem(String section, String item) {
+					events.tryEmitNext(new AnalysisEvent(section, Map.of("item", item)));
+				}
+			});
+			analysis.whenComplete((response, e) -> {
+				if (e != null) {
+					Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+					events.tryEmitNext(new AnalysisEvent("error", Map.of("message", String.valueOf(cause.getMessage()))));
+				} else {
+					events.tryEmitNext(new AnalysisEvent("complete", response));
+				}
+				events.tryEmitComplete();
+			});
+			return events.asFlux().doOnCancel(() -> analysis.cancel(false));
+		})).subscribeOn(Schedulers.boundedElastic());
+	}
+
+	/**
+	 * Calls the Responses API with the given prompt, retrying connection failures and server errors
+	 * with exponential backoff.
+	 *
+	 * @param prompt the prompt string for the AI API
+	 * @param model the model to generate the analysis with
+	 * @return a future completing with the output text; cancelling it cancels the HTTP exchange
+	 */
+	@Override
+	protected CompletableFuture<String> callApiAsync(String prompt, String model) {
+		logger.debug("Sending request to AI API.");
+		return call(requestBody(prompt, model, false));
+	}
+
+	/**
+	 * Calls the Responses API for one section of the analysis, with the section's output format and
+	 * the section output-token cap, retrying as {@link #callApiAsync} does.
+	 */
+	@Override
+	protected CompletableFuture<String> callSectionAsync(String prompt, String model, AnalysisSection section) {
+		logger.debug("Sending request for section {} to AI API.", section);
+		return call(sectionRequestBody(prompt, model, section));
+	}
+
+	private CompletableFuture<String> call(Map<String, Object> body) {
+		return webClient.post()
+				.uri("/responses")
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(body)
+				.retrieve()
+				.toEntity(JsonNode.class)
+				.retryWhen(Retry.backoff(maxRetries, Duration.ofMillis(500))
+						.filter(ReactiveAiService::isTransient)
+						.onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+				.map(entity -> {
+					logger.debug("AI API call completed.");
+					recordRateLimits(entity.getHeaders()::getFirst);
+					JsonNode response = entity.getBody();
+					if (response == null) {
+						throw new IllegalStateException("Upstream response is empty");
+					}
+					recordUsage(response.path("usage"));
+					return outputText(response);
+				})
+				.toFuture();
+	}
+
+	/**
+	 * Calls the Responses API in streaming mode, passing each text delta to the consumer.
+	 *
+	 * @param prompt the prompt string for the AI API
+	 * @param model the model to generate the analysis with
+	 * @param onDelta receives each chunk of output text as it arrives
+	 * @return a future completing with the full output text once the stream ends
+	 */
+	@Override
+	protected CompletableFuture<String> streamApi(String prompt, String model, Consumer<String> onDelta) {
+		logger.debug("Sending streaming request to AI API.");
+		StringBuilder text = new StringBuilder();
+		return webClient.post()
+				.uri("/responses")
+				.contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.TEXT_EVENT_STREAM)
+				.bodyValue(requestBody(prompt, model, true))
+				.retrieve()
+				.bodyToFlux(EVENT_TYPE)
+				.<Void>handle((event, sink) -> {
+					if (event.data() == null) {
+						return;
+					}
+					try {
+						JsonNode data = objectMapper.readTree(event.data());
+						switch (data.path("type").asText()) {
+							case "response.output_text.delta" -> {
+								String delta = data.path("delta").asText();
+								text.append(delta);
+								onDelta.accept(delta);
+							}
+							case "response.completed" -> recordUsage(data.path("response").path("usage"));
+							case "response.failed", "error" -> sink.error(new IllegalStateException(
+									"Upstream stream failed: " + data.findPath("message").asText()));
+							default -> {
+							}
+						}
+					} catch (IOException e) {
+						sink.error(e);
+					}
+				})
+				.then(Mono.fromSupplier(() -> {
+					logger.debug("AI API stream completed.");
+					return text.toString();
+				}))
+				.toFuture();
+	}
+
+	@Override
+	protected boolean isRejectedByUpstream(Throwable e) {
+		return (e instanceof WebClientResponseException response && response.getStatusCode().is4xxClientError())
+				|| super.isRejectedByUpstream(e);
+	}
+
+	@Override
+	protected Function<String, String> rateLimitHeaders(Throwable e) {
+		if (e instanceof WebClientResponseException response && response.getStatusCode().value() == 429) {
+			return response.getHeaders()::getFirst;
+		}
+		return super.rateLimitHeaders(e);
+	}
+
+	/**
+	 * Builds the Responses API request body, with the same options as the SDK request of the servlet variant.
+	 */
+	Map<String, Object> requestBody(String prompt, String model, boolean stream) {
+		Map<String, Object> body = new LinkedHashMap<>();
+		body.put("model", model);
+		if (!instructions().isEmpty()) {
+			body.put("instructions", instructions());
+		}
+		body.put("input", prompt);
+		if (stream) {
+			body.put("stream", true);
+		}
+		if (structuredOutput) {
+			body.put("text", Map.of("format", Map.of(
+					"type", "json_schema",
+					"name", ANALYSIS_FORMAT_NAME,
+					"schema", analysisSchema(),
+					"strict", true)));
+		}
+		return body;
+	}
+
+	/**
+	 * Builds the request body of a section call in section mode.
+	 */
+	Map<String, Object> sectionRequestBody(String prompt, String model, AnalysisSection section) {
+		Map<String, Object> body = requestBody(prompt, model, false);
+		body.put("max_output_tokens", sectionMaxOutputTokens());
+		if (structuredOutput) {
+			body.put("text", Map.of("format", Map.of(
+					"type", "json_schema",
+					"name", sectionFormatName(section),
+					"schema", analysisSchema(section.getKeys()),
+					"strict", true)));
+		}
+		return body;
+	}
+
+	private void recordUsage(JsonNode usage) {
+		if (!usage.isMissingNode()) {
+			recordUsage(usage.path("input_tokens").asLong(), usage.path("input_tokens_details").path("cached_tokens").asLong(),
+					usage.path("output_tokens").asLong());
+		}
+	}
+
+	/**
+	 * Extracts the text of the first output message from a Responses API response body.
+	 *
+	 * @param response the response body
+	 * @return the output text
+	 * @throws IllegalStateException if the response contains no output text
+	 */
+	static String outputText(JsonNode response) {
+		for (JsonNode item : response.path("output")) {
+			if ("message".equals(item.path("type").asText())) {
+				for (JsonNode content : item.path("content")) {
+					if ("output_text".equals(content.path("type").asText())) {
+						return content.path("text").asText();
+					}
+				}
+			}
+		}
+		throw new IllegalStateException("Upstream response contains no output text");
+	}
+
+	/**
+	 * @return true for failures worth retrying: connection errors, request timeouts, conflicts and server errors
+	 */
+	private static boolean isTransient(Throwable e) {
+		if (e instanceof WebClientResponseException response) {
+			int status = response.getStatusCode().value();
+			return status == 408 || status == 409 || status >= 500;
+		}
+		return e instanceof WebClientRequestException;
+	}
+}
@@ -0,0 +1,154 @@
+package com.app.prompt_engg.services;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cuts upstream tail latency by hedging: if a call has not answered by the recent p95 latency of its
+ * model, a second call is sent to the hedge model and whichever answers first wins. Latencies are
+ * tracked per model over a sliding window of recent successful calls; until enough have been seen,
+ * the configured minimum delay is used.
+ */
+@Component
+public class RequestHedger {
+
+	private static final Logger logger = LoggerFactory.getLogger(RequestHedger.class);
+
+	private static final int WINDOW_SIZE = 256;
+	private static final int RECOMPUTE_EVERY = 16;
+
+	/**
+	 * Ring buffer of recent latencies, with the percentile recomputed every few samples.
+	 */
+	private static class LatencyWindow {
+		private final long[] samples = new long[WINDOW_SIZE];
+		private int count;
+		private int next;
+		private volatile long percentileNanos = -1;
+
+		synchronized void record(long nanos, double percentile, int minSamples) {
+			samples[next] = nanos;
+			next = (next + 1) % WINDOW_SIZE;
+			count = Math.min(count + 1, WINDOW_SIZE);
+			if (count >= minSamples && (count < WINDOW_SIZE || next % RECOMPUTE_EVERY == 0)) {
+				long[] sorted = Arrays.copyOf(samples, count);
+				Arrays.sort(sorted);
+				percentileNanos = sorted[Math.min(count - 1, (int) Math.ceil(percentile * count) - 1)];
+			}
+		}
+	}
+
+	private final boolean enabled;
+	private final double percentile;
+	private final long minDelayNanos;
+	private final int minSamples;
+	private final AnalysisMetrics metrics;
+	private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+
+	@Autowired
+	public RequestHedger(@Value("${openai.hedging.enabled:false}") boolean enabled,
+			@Value("${openai.hedging.percentile:0.95}") double percentile,
+			@Value("${openai.hedging.min-delay:PT1S}") Duration minDelay,
+			@Value("${openai.hedging.min-samples:20}") int minSamples,
+			AnalysisMetrics metrics) {
+		this.enabled = enabled;
+		this.percentile = percentile;
+		this.minDelayNanos = minDelay.toNanos();
+		this.minSamples = Math.max(1, minSamples);
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Calls the route's model, hedging to the route's hedge model if the call is slow.
+	 *
+	 * @param route the models to call
+	 * @param call starts an upstream call to the given model
+	 * @param admitHedge asked before sending the hedge, so that it only goes out if the upstream
+	 *        budget allows it
+	 * @return a future completing with the first successful answer, or with the failure of the
+	 *         primary call if it fails before a hedge is sent, or of the last call to fail otherwise
+	 */
+	public <T> CompletableFuture<T> execute(ModelRouter.Route route, Function<String, CompletableFuture<T>> call,
+			BooleanSupplier admitHedge) {
+		CompletableFuture<T> primary = timed(route.model(), call);
+		if (!enabled) {
+			return primary;
+		}
+
+		CompletableFuture<T> result = Cancellation.propagate(new CompletableFuture<>(), primary);
+		// Attempts still running; the last one to fail fails the result.
+		AtomicInteger pending = new AtomicInteger(1);
+		primary.whenComplete((value, e) -> settle(result, pending, value, e));
+
+		long delay = hedgeDelayNanos(route.model());
+		CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS).execute(() -> {
+			if (result.isDone() || !admitHedge.getAsBoolean()) {
+				return;
+			}
+			// Claim a slot for the hedge unless the primary has failed in the meantime.
+			if (pending.getAndUpdate(n -> n == 0 ? 0 : n + 1) == 0) {
+				return;
+			}
+			logger.debug("Hedging upstream call to {} after {} ms", route.hedgeModel(), TimeUnit.NANOSECONDS.toMillis(delay));
+			metrics.recordHedge("sent");
+			CompletableFuture<T> hedge;
+			try {
+				hedge = timed(route.hedgeModel(), call);
+			} catch (RuntimeException e) {
+				settle(result, pending, null, e);
+				return;
+			}
+			hedge.whenComplete((value, e) -> {
+				if (e == null && result.complete(value)) {
+					metrics.recordHedge("won");
+					primary.cancel(false);
+				} else {
+					settle(result, pending, value, e);
+				}
+			});
+			result.whenComplete((value, e) -> hedge.cancel(false));
+		});
+		return result;
+	}
+
+	/**
+	 * @return how long to wait for the model before hedging
+	 */
+	long hedgeDelayNanos(String model) {
+		LatencyWindow window = latencies.get(model);
+		long p = window == null ? -1 : window.percentileNanos;
+		return Math.max(minDelayNanos, p);
+	}
+
+	private <T> CompletableFuture<T> timed(String model, Function<String, CompletableFuture<T>> call) {
+		long start = System.nanoTime();
+		CompletableFuture<T> future = call.apply(model);
+		return Cancellation.propagate(future.whenComplete((value, e) -> {
+			if (e == null) {
+				latencies.computeIfAbsent(model, m -> new LatencyWindow())
+						.record(System.nanoTime() - start, percentile, minSamples);
+			}
+		}), future);
+	}
+
+	private static <T> void settle(CompletableFuture<T> result, AtomicInteger pending, T value, Throwable e) {
+		if (e == null) {
+			result.complete(value);
+		} else if (pending.decrementAndGet() == 0) {
+			result.completeExceptionally(e);
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package com.app.prompt_engg.services;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.app.prompt_engg.models.ScenarioAnalysisResponse;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Reads the model's analysis JSON straight into a {@link ScenarioAnalysisResponse} with a streaming
+ * Jackson parser, without building an intermediate tree. Unknown keys are skipped, missing lists
+ * become empty lists and a missing summary or disclaimer stays null. The summary may be keyed
+ * {@code summary}, {@code short_summary} or {@code short}; if several are present they are
+ * preferred in that order.
+ */
+public final class ScenarioAnalysisReader {
+
+	private static final JsonFactory FACTORY = new JsonFactory();
+
+	private ScenarioAnalysisReader() {
+	}
+
+	/**
+	 * Reads the first JSON object in the text, ignoring anything around it such as a markdown
+	 * fence or a sentence of preamble. The text is parsed in place: the parser starts at the
+	 * opening brace and stops at the matching closing one, so nothing is copied out of it first.
+	 *
+	 * @param text the model output
+	 * @return the analysis
+	 * @throws IOException if the text contains no well-formed JSON object
+	 */
+	public static ScenarioAnalysisResponse read(String text) throws IOException {
+		int start = text.indexOf('{');
+		if (start < 0) {
+			throw new JsonParseException(null, "No JSON object found in API response");
+		}
+		StringReader reader = new StringReader(text);
+		reader.skip(start);
+		try (JsonParser parser = FACTORY.createParser(reader)) {
+			return read(parser);
+		}
+	}
+
+	private static ScenarioAnalysisResponse read(JsonParser parser) throws IOException {
+		if (parser.nextToken() != JsonToken.START_OBJECT) {
+			throw new JsonParseException(parser, "Expected a JSON object");
+		}
+		ScenarioAnalysisResponse response = new ScenarioAnalysisResponse(null, List.of(), List.of(), List.of(), null);
+		int summaryRank = Integer.MAX_VALUE;
+
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String key = parser.currentName();
+			parser.nextToken();
+			switch (key) {
+				case "summary", "short_summary", "short" -> {
+					int rank = key.equals("summary") ? 0 : key.equals("short_summary") ? 1 : 2;
+					String summary = readText(parser);
+					if (rank < summaryRank) {
+						response.setScenarioSummary(summary);
+						summaryRank = rank;
+					}
+				}
+				case "pitfalls_or_risks" -> response.setPotentialPitfalls(readList(parser));
+				case "proposed_strategies" -> response.setProposedStrategies(readList(parser));
+				case "recommended_resources" -> response.setRecommendedResources(readList(parser));
+				case "disclaimer" -> response.setDisclaimer(readText(parser));
+				default -> parser.skipChildren();
+			}
+		}
+		return response;
+	}
+
+	private static String readText(JsonParser parser) throws IOException {
+		if (parser.currentToken().isScalarValue()) {
+			return parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getText();
+		}
+		parser.skipChildren();
+		return null;
+	}
+
+	private static List<String> readList(JsonParser parser) throws IOException {
+		if (parser.currentToken() != JsonToken.START_ARRAY) {
+			// Tolerate a single value where a list was expected.
+			String single = readText(parser);
+			return single == null ? List.of() : List.of(single);
+		}
+		List<String> items = new ArrayList<>();
+		while (parser.nextToken() != JsonToken.END_ARRAY) {
+			String item = readText(parser);
+			if (item != null) {
+				items.add(item);
+			}
+		}
+		return items;
+	}
+}
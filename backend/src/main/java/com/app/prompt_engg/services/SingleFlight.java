@@ -0,0 +1,104 @@
+package com.app.prompt_engg.services;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import com.app.prompt_engg.models.ScenarioAnalysisResponse;
+
+/**
+ * Coalesces concurrent analyses of the same prompt: the first caller starts the upstream call and
+ * every caller arriving while it is in flight shares its outcome. Each caller may cancel its own
+ * future; the upstream call is cancelled once every caller sharing it has done so.
+ */
+@Component
+public class SingleFlight {
+
+	private final ConcurrentMap<String, Flight> inFlight = new ConcurrentHashMap<>();
+
+	private final AtomicLong coalesced = new AtomicLong();
+
+	private final AtomicLong cancelled = new AtomicLong();
+
+	private static final class Flight {
+		private final CompletableFuture<ScenarioAnalysisResponse> shared = new CompletableFuture<>();
+		// Callers still waiting for the outcome; zero once the last one has cancelled.
+		private final AtomicInteger waiters = new AtomicInteger(1);
+		// Set before any caller receives a future it could cancel.
+		private volatile CompletableFuture<ScenarioAnalysisResponse> upstream;
+	}
+
+	/**
+	 * Runs the call for the key unless one is already in flight, in which case its result is shared.
+	 *
+	 * @param key the prompt hash
+	 * @param call starts the upstream analysis; only invoked by the first caller
+	 * @return a future completing with the shared analysis; cancelling it withdraws this caller
+	 */
+	public CompletableFuture<ScenarioAnalysisResponse> execute(String key,
+			Supplier<CompletableFuture<ScenarioAnalysisResponse>> call) {
+		Flight flight = new Flight();
+		while (true) {
+			Flight existing = inFlight.putIfAbsent(key, flight);
+			if (existing == null) {
+				break;
+			}
+			// Join unless every caller of the existing flight has just cancelled it.
+			if (existing.waiters.getAndUpdate(n -> n == 0 ? 0 : n + 1) > 0) {
+				coalesced.incrementAndGet();
+				return waiter(key, existing);
+			}
+			inFlight.remove(key, existing);
+		}
+
+		CompletableFuture<ScenarioAnalysisResponse> upstream;
+		try {
+			upstream = call.get();
+		} catch (RuntimeException e) {
+			inFlight.remove(key, flight);
+			flight.shared.completeExceptionally(e);
+			throw e;
+		}
+		flight.upstream = upstream;
+		upstream.whenComplete((response, e) -> {
+			// Unregister first so that later callers go through the cache instead.
+			inFlight.remove(key, flight);
+			if (e != null) {
+				flight.shared.completeExceptionally(e);
+			} else {
+				flight.shared.complete(response);
+			}
+		});
+		return waiter(key, flight);
+	}
+
+	private CompletableFuture<ScenarioAnalysisResponse> waiter(String key, Flight flight) {
+		return Cancellation.onCancel(flight.shared.copy(), () -> {
+			if (flight.waiters.decrementAndGet() == 0) {
+				inFlight.remove(key, flight);
+				cancelled.incrementAndGet();
+				flight.upstream.cancel(true);
+			}
+		});
+	}
+
+	public int getInFlight() {
+		return inFlight.size();
+	}
+
+	public long getCoalesced() {
+		return coalesced.get();
+	}
+
+	/**
+	 * @return the upstream analyses cancelled because every caller waiting for them cancelled
+	 */
+	public long getCancelled() {
+		return cancelled.get();
+	}
+}
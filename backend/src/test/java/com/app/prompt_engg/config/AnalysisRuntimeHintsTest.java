@@ -0,0 +1,35 @@
+package com.app.prompt_engg.config;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import com.app.prompt_engg.models.ScenarioAnalysisResponse;
+import com.openai.models.responses.Response;
+
+class AnalysisRuntimeHintsTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    @Test
+    void testRegistersAnalysisBindings() {
+        new AnalysisRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        Assertions.assertTrue(RuntimeHintsPredicates.reflection().onType(ScenarioAnalysisResponse.class)
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS).test(hints));
+        Assertions.assertTrue(RuntimeHintsPredicates.reflection()
+                .onMethod(ScenarioAnalysisResponse.class, "getScenarioSummary").test(hints));
+    }
+
+    @Test
+    void testRegistersOpenAIModelsAndResources() {
+        new AnalysisRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        Assertions.assertTrue(RuntimeHintsPredicates.reflection()
+                .onType(Response.class).test(hints));
+        Assertions.assertTrue(RuntimeHintsPredicates.resource()
+                .forResource("com/knuddels/jtokkit/o200k_base.tiktoken").test(hints));
+    }
+}
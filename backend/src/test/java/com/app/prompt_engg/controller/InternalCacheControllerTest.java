@@ -0,0 +1,107 @@
+package com.app.prompt_engg.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.app.prompt_engg.controllers.InternalCacheController;
+import com.app.prompt_engg.models.ScenarioAnalysisResponse;
+import com.app.prompt_engg.services.AnalysisCache;
+import com.app.prompt_engg.services.AnalysisStore;
+import com.app.prompt_engg.services.ClusterCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Unit tests for {@link InternalCacheController}, bound to a MockMvc without a server.
+ */
+public class InternalCacheControllerTest {
+
+    private static final List<String> PEERS = List.of("http://node-a:8080", "http://node-b:8080");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private ClusterCache cluster;
+
+    private AnalysisCache cache;
+
+    private AnalysisStore store;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void setup() {
+        cluster = new ClusterCache(true, PEERS.get(0), PEERS, 128, Duration.ofSeconds(1), "secret", objectMapper);
+        cache = mock(AnalysisCache.class);
+        store = mock(AnalysisStore.class);
+        InternalCacheController controller = new InternalCacheController();
+        ReflectionTestUtils.setField(controller, "cluster", cluster);
+        ReflectionTestUtils.setField(controller, "cache", cache);
+        ReflectionTestUtils.setField(controller, "store", store);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    private String key(boolean owned) {
+        return IntStream.range(0, 100).mapToObj(i -> AnalysisCache.key("prompt " + i))
+                .filter(key -> cluster.isOwned(key) == owned)
+                .findFirst().orElseThrow();
+    }
+
+    /**
+     * Tests a peer handing over an analysis for a key this replica owns.
+     * Verifies that it is cached and stored.
+     */
+    @Test
+    public void testPut_StoresOwnedKey() throws Exception {
+        String key = key(true);
+
+        mockMvc.perform(put("/internal/cache/" + key)
+                .header(ClusterCache.TOKEN_HEADER, "secret")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new ScenarioAnalysisResponse())))
+                .andExpect(status().isNoContent());
+        verify(store).put(anyString(), any(ScenarioAnalysisResponse.class));
+    }
+
+    /**
+     * Tests a peer handing over an analysis for a key owned by another replica.
+     * Verifies that a 409 Conflict response is returned and nothing is cached.
+     */
+    @Test
+    public void testPut_RejectsKeyOwnedElsewhere() throws Exception {
+        mockMvc.perform(put("/internal/cache/" + key(false))
+                .header(ClusterCache.TOKEN_HEADER, "secret")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new ScenarioAnalysisResponse())))
+                .andExpect(status().isConflict());
+        verify(cache, never()).put(anyString(), any(ScenarioAnalysisResponse.class));
+        verify(store, never()).put(anyString(), any(ScenarioAnalysisResponse.class));
+    }
+
+    /**
+     * Tests a request without the cluster token.
+     * Verifies that a 403 Forbidden response is returned.
+     */
+    @Test
+    public void testPut_RejectsMissingToken() throws Exception {
+        mockMvc.perform(put("/internal/cache/" + key(true))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new ScenarioAnalysisResponse())))
+                .andExpect(status().isForbidden());
+        verify(store, never()).put(anyString(), any(ScenarioAnalysisResponse.class));
+    }
+}
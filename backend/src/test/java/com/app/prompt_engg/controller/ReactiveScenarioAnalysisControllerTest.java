@@ -0,0 +1,180 @@
+package com.app.prompt_engg.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.app.prompt_engg.controllers.ReactiveScenarioAnalysisController;
+import com.app.prompt_engg.exceptions.GlobalExceptionHandler;
+import com.app.prompt_engg.exceptions.InvalidScenarioException;
+import com.app.prompt_engg.models.AnalysisJob;
+import com.app.prompt_engg.models.ScenarioAnalysisRequest;
+import com.app.prompt_engg.models.ScenarioAnalysisResponse;
+import com.app.prompt_engg.services.AdmissionControl;
+import com.app.prompt_engg.services.AnalysisJobService;
+import com.app.prompt_engg.services.ReactiveAiService;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Unit tests for {@link ReactiveScenarioAnalysisController}, bound to a WebTestClient without a server.
+ */
+public class ReactiveScenarioAnalysisControllerTest {
+
+    private ReactiveAiService aiService;
+
+    private AnalysisJobService jobService;
+
+    private WebTestClient client;
+
+    ScenarioAnalysisRequest request = new ScenarioAnalysisRequest();
+
+    @BeforeEach
+    public void setup() {
+        aiService = mock(ReactiveAiService.class);
+        ReactiveScenarioAnalysisController controller = new ReactiveScenarioAnalysisController();
+        jobService = mock(AnalysisJobService.class);
+        ReflectionTestUtils.setField(controller, "aiService", aiService);
+        ReflectionTestUtils.setField(controller, "jobService", jobService);
+        client = WebTestClient.bindToController(controller)
+                .controllerAdvice(new GlobalExceptionHandler())
+                .build();
+
+        request.setScenario("Our team has a new client project with a tight deadline and limited budget.");
+        request.setConstraints(List.of("Budget: $10,000"));
+        when(aiService.admit(any(ScenarioAnalysisRequest.class)))
+                .thenAnswer(invocation -> new AdmissionControl.Admission(invocation.getArgument(0), "prompt", 10, false));
+    }
+
+    /**
+     * Tests the normal scenario analysis.
+     * Verifies that the analysis emitted by the service is returned as JSON.
+     */
+    @Test
+    public void testAnalyseScenario() {
+        ScenarioAnalysisResponse expectedResponse = new ScenarioAnalysisResponse("Sample summary",
+                List.of("Risk of burnout"), List.of("Use agile methodology"), List.of("Jira"), "Sample disclaimer");
+        when(aiService.analyse(any(AdmissionControl.Admission.class))).thenReturn(Mono.just(expectedResponse));
+
+        client.post().uri("/analyser")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.scenarioSummary").isEqualTo("Sample summary")
+                .jsonPath("$.potentialPitfalls.length()").isEqualTo(1);
+    }
+
+    /**
+     * Tests the scenario analysis of a prompt the client already holds.
+     * Verifies that a matching If-None-Match returns 304 without generating an analysis.
+     */
+    @Test
+    public void testAnalyseScenario_NotModified() {
+        when(aiService.etag(any(AdmissionControl.Admission.class))).thenReturn("W/\"abc\"");
+
+        client.post().uri("/analyser")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("If-None-Match", "W/\"abc\"")
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals("ETag", "W/\"abc\"");
+        verify(aiService, never()).analyse(any(AdmissionControl.Admission.class));
+    }
+
+    /**
+     * Tests the scenario analysis with invalid input.
+     * Verifies that a request refused by admission is mapped to a 400 Bad Request response.
+     */
+    @Test
+    public void testAnalyseScenario_InvalidInput() {
+        when(aiService.admit(any(ScenarioAnalysisRequest.class)))
+                .thenThrow(new InvalidScenarioException("Bad request"));
+
+        client.post().uri("/analyser")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new ScenarioAnalysisRequest())
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    /**
+     * Tests the submission of an analysis job.
+     * Verifies that a 202 Accepted response with the job's URL is returned at once.
+     */
+    @Test
+    public void testSubmitJob() {
+        when(jobService.submit(any(ScenarioAnalysisRequest.class), eq(0)))
+                .thenReturn(new AnalysisJob("job-1", AnalysisJob.Status.QUEUED, null, null));
+
+        client.post().uri("/analyser/jobs")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isAccepted()
+                .expectHeader().valueEquals("Location", "/analyser/jobs/job-1")
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("QUEUED");
+    }
+
+    /**
+     * Tests the submission of an analysis job.
+     * Verifies that the job is submitted off the event loop, as submission tokenizes the request.
+     */
+    @Test
+    public void testSubmitJob_SubmitsOffTheEventLoop() {
+        AtomicReference<String> thread = new AtomicReference<>();
+        when(jobService.submit(any(ScenarioAnalysisRequest.class), eq(0))).thenAnswer(invocation -> {
+            thread.set(Thread.currentThread().getName());
+            return new AnalysisJob("job-1", AnalysisJob.Status.QUEUED, null, null);
+        });
+
+        client.post().uri("/analyser/jobs")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isAccepted();
+        Assertions.assertTrue(thread.get().startsWith("boundedElastic"), thread.get());
+    }
+
+    /**
+     * Tests the streamed scenario analysis.
+     * Verifies that each service event becomes a named Server-Sent Event.
+     */
+    @Test
+    public void testAnalyseScenarioStream() {
+        when(aiService.analyseStream(any(AdmissionControl.Admission.class))).thenReturn(Flux.just(
+                new ReactiveAiService.AnalysisEvent("summary", Map.of("value", "Sample summary")),
+                new ReactiveAiService.AnalysisEvent("error", Map.of("message", "failed"))));
+
+        client.post().uri("/analyser/stream")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .value(body -> {
+                    Assertions.assertTrue(body.contains("event:summary"));
+                    Assertions.assertTrue(body.contains("\"value\":\"Sample summary\""));
+                    Assertions.assertTrue(body.contains("event:error"));
+                });
+    }
+}
@@ -1,14 +1,25 @@
 package com.app.prompt_engg.controller;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,12 +28,20 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import com.app.prompt_engg.controllers.ScenarioAnalysisController;
 import com.app.prompt_engg.exceptions.InvalidScenarioException;
+import com.app.prompt_engg.exceptions.JobNotFoundException;
+import com.app.prompt_engg.exceptions.PayloadTooLargeException;
+import com.app.prompt_engg.exceptions.TooManyRequestsException;
+import com.app.prompt_engg.exceptions.UpstreamUnavailableException;
+import com.app.prompt_engg.models.AnalysisJob;
 import com.app.prompt_engg.models.ScenarioAnalysisRequest;
 import com.app.prompt_engg.models.ScenarioAnalysisResponse;
+import com.app.prompt_engg.services.AdmissionControl;
 import com.app.prompt_engg.services.AiService;
+import com.app.prompt_engg.services.AnalysisJobService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
@@ -38,6 +57,9 @@ public class ScenarioAnalysisControllerTest {
     
     @MockBean
     private AiService aiService;
+
+    @MockBean
+    private AnalysisJobService jobService;
     
     @Autowired
     private ObjectMapper objectMapper;
@@ -63,6 +85,9 @@ public class ScenarioAnalysisControllerTest {
         expectedResponse.setPotentialPitfalls(List.of("Risk of burnout"));
         expectedResponse.setProposedStrategies(List.of("Use agile methodology"));
         expectedResponse.setRecommendedResources(List.of("Jira", "Trello"));
+
+        when(aiService.admit(any(ScenarioAnalysisRequest.class)))
+                .thenAnswer(invocation -> new AdmissionControl.Admission(invocation.getArgument(0), "prompt", 10, false));
     }
     /**
      * Tests the normal scenario analysis.
@@ -71,12 +96,17 @@ public class ScenarioAnalysisControllerTest {
     @Test
     public void testAnalyseScenario() throws Exception {
 
-        when(aiService.generateAnalysis(any(ScenarioAnalysisRequest.class))).thenReturn(expectedResponse);
+        when(aiService.generateAnalysisAsync(any(AdmissionControl.Admission.class)))
+                .thenReturn(CompletableFuture.completedFuture(expectedResponse));
 
-        mockMvc.perform(
+        MvcResult result = mockMvc.perform(
                 post("/analyser")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.disclaimer").isNotEmpty())
                 .andExpect(jsonPath("$.scenarioSummary").isNotEmpty())
@@ -85,6 +115,73 @@ public class ScenarioAnalysisControllerTest {
                 .andExpect(jsonPath("$.recommendedResources.length()").value(org.hamcrest.Matchers.greaterThan(0)));
     }
 
+    /**
+     * Tests the scenario analysis with an ETag.
+     * Verifies that the analysis carries the ETag of its prompt.
+     */
+    @Test
+    public void testAnalyseScenario_SetsETag() throws Exception {
+
+        when(aiService.etag(any(AdmissionControl.Admission.class))).thenReturn("W/\"abc\"");
+        when(aiService.generateAnalysisAsync(any(AdmissionControl.Admission.class)))
+                .thenReturn(CompletableFuture.completedFuture(expectedResponse));
+
+        MvcResult result = mockMvc.perform(
+                post("/analyser")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"abc\""));
+    }
+
+    /**
+     * Tests the scenario analysis of a prompt the client already holds.
+     * Verifies that a matching If-None-Match returns 304 without generating an analysis.
+     */
+    @Test
+    public void testAnalyseScenario_NotModified() throws Exception {
+
+        when(aiService.etag(any(AdmissionControl.Admission.class))).thenReturn("W/\"abc\"");
+
+        MvcResult result = mockMvc.perform(
+                post("/analyser")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("If-None-Match", "W/\"other\", \"abc\"")
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "W/\"abc\""));
+        verify(aiService, never()).generateAnalysisAsync(any(AdmissionControl.Admission.class));
+    }
+
+    /**
+     * Tests a client that disconnects while its analysis is generated.
+     * Verifies that the analysis is cancelled once the request ends without its result.
+     */
+    @Test
+    public void testAnalyseScenario_CancelsAnalysisOnDisconnect() throws Exception {
+        CompletableFuture<ScenarioAnalysisResponse> analysis = new CompletableFuture<>();
+        when(aiService.generateAnalysisAsync(any(AdmissionControl.Admission.class))).thenReturn(analysis);
+
+        MvcResult result = mockMvc.perform(
+                post("/analyser")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // The container completes the async request when the client goes away.
+        result.getRequest().getAsyncContext().complete();
+
+        Assertions.assertTrue(analysis.isCancelled());
+    }
+
     /**
      * Tests the scenario analysis with invalid input.
      * Verifies that missing required input triggers a 400 Bad Request response.
@@ -93,7 +190,7 @@ public class ScenarioAnalysisControllerTest {
     public void testAnalyseScenario_InvalidInput() throws Exception {
         ScenarioAnalysisRequest emptyRequest = new ScenarioAnalysisRequest();
         
-        when(aiService.generateAnalysis(any(ScenarioAnalysisRequest.class)))
+        when(aiService.admit(any(ScenarioAnalysisRequest.class)))
         .thenThrow(new InvalidScenarioException("Bad request"));
 
         mockMvc.perform(
@@ -103,6 +200,23 @@ public class ScenarioAnalysisControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    /**
+     * Tests the scenario analysis with an oversized input.
+     * Verifies that a request over the admission limits triggers a 413 Payload Too Large response.
+     */
+    @Test
+    public void testAnalyseScenario_PayloadTooLarge() throws Exception {
+
+        when(aiService.admit(any(ScenarioAnalysisRequest.class)))
+                .thenThrow(new PayloadTooLargeException("Too large"));
+
+        mockMvc.perform(
+                post("/analyser")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isPayloadTooLarge());
+    }
+
     /**
      * Tests the scenario analysis when the service throws an exception.
      * Verifies that an internal server error (500) is returned.
@@ -110,7 +224,7 @@ public class ScenarioAnalysisControllerTest {
     @Test
     public void testAnalyseScenario_ServiceException() throws Exception {
 
-        when(aiService.generateAnalysis(any(ScenarioAnalysisRequest.class)))
+        when(aiService.generateAnalysisAsync(any(AdmissionControl.Admission.class)))
                 .thenThrow(new RuntimeException("Test exception"));
 
         mockMvc.perform(
@@ -119,4 +233,125 @@ public class ScenarioAnalysisControllerTest {
                 .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isInternalServerError());
     }
+
+    /**
+     * Tests the scenario analysis when the service reports that it is saturated.
+     * Verifies that a 429 Too Many Requests response with Retry-After is returned.
+     */
+    @Test
+    public void testAnalyseScenario_TooManyRequests() throws Exception {
+
+        when(aiService.generateAnalysisAsync(any(AdmissionControl.Admission.class)))
+                .thenThrow(new TooManyRequestsException("Busy"));
+
+        mockMvc.perform(
+                post("/analyser")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+    }
+
+    /**
+     * Tests the scenario analysis when the upstream rate limit does not admit the call in time.
+     * Verifies that a 503 Service Unavailable response with the governor's Retry-After is returned.
+     */
+    @Test
+    public void testAnalyseScenario_UpstreamRateLimited() throws Exception {
+
+        when(aiService.generateAnalysisAsync(any(AdmissionControl.Admission.class)))
+                .thenReturn(CompletableFuture.failedFuture(new UpstreamUnavailableException("Rate limited", 7)));
+
+        MvcResult result = mockMvc.perform(
+                post("/analyser")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "7"));
+    }
+
+    /**
+     * Tests the submission of an analysis job.
+     * Verifies that a 202 Accepted response with the job's URL is returned at once.
+     */
+    @Test
+    public void testSubmitJob() throws Exception {
+
+        when(jobService.submit(any(ScenarioAnalysisRequest.class), eq(5)))
+                .thenReturn(new AnalysisJob("job-1", AnalysisJob.Status.QUEUED, null, null));
+
+        mockMvc.perform(
+                post("/analyser/jobs?priority=5")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/analyser/jobs/job-1"))
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+    }
+
+    /**
+     * Tests the submission of an analysis job while the job queue is full.
+     * Verifies that a 429 Too Many Requests response is returned.
+     */
+    @Test
+    public void testSubmitJob_QueueFull() throws Exception {
+
+        when(jobService.submit(any(ScenarioAnalysisRequest.class), anyInt()))
+                .thenThrow(new TooManyRequestsException("Queue full"));
+
+        mockMvc.perform(
+                post("/analyser/jobs")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    /**
+     * Tests long polling for a finished analysis job.
+     * Verifies that the job is returned with its analysis.
+     */
+    @Test
+    public void testGetJob() throws Exception {
+
+        when(jobService.await("job-1", Duration.ofSeconds(20))).thenReturn(CompletableFuture.completedFuture(
+                new AnalysisJob("job-1", AnalysisJob.Status.SUCCEEDED, expectedResponse, null)));
+
+        MvcResult result = mockMvc.perform(get("/analyser/jobs/job-1?wait=20"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("SUCCEEDED"))
+                .andExpect(jsonPath("$.response.scenarioSummary").value("Sample summary"));
+    }
+
+    /**
+     * Tests polling for an unknown or expired analysis job.
+     * Verifies that a 404 Not Found response is returned.
+     */
+    @Test
+    public void testGetJob_NotFound() throws Exception {
+
+        when(jobService.await(eq("missing"), any(Duration.class)))
+                .thenThrow(new JobNotFoundException("Unknown or expired analysis job: missing"));
+
+        mockMvc.perform(get("/analyser/jobs/missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    /**
+     * Tests the internal cache endpoint while the cluster cache is disabled.
+     * Verifies that peers get a 404 Not Found response.
+     */
+    @Test
+    public void testInternalCache_NotFoundWhenClusterDisabled() throws Exception {
+
+        mockMvc.perform(get("/internal/cache/" + "0".repeat(64)))
+                .andExpect(status().isNotFound());
+    }
 }
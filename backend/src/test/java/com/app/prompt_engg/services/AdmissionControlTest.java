@@ -0,0 +1,132 @@
+package com.app.prompt_engg.services;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.app.prompt_engg.exceptions.InvalidScenarioException;
+import com.app.prompt_engg.exceptions.PayloadTooLargeException;
+import com.app.prompt_engg.models.ScenarioAnalysisRequest;
+
+class AdmissionControlTest {
+
+    private final PromptTemplates templates = new PromptTemplates("Scenario: [scenarios] Constraints: [constraints]",
+            Map.of("twice", "[scenarios] again: [scenarios] with [constraints]"));
+
+    private AdmissionControl admission(int maxScenarioChars, int maxPromptTokens, boolean truncate) {
+        return new AdmissionControl(templates, maxScenarioChars, 3, 50, maxPromptTokens, truncate, "o200k_base");
+    }
+
+    private static ScenarioAnalysisRequest request(String scenario, String... constraints) {
+        ScenarioAnalysisRequest request = new ScenarioAnalysisRequest();
+        request.setScenario(scenario);
+        request.setConstraints(Arrays.asList(constraints));
+        return request;
+    }
+
+    @Test
+    void testAdmit_RendersPromptAndCountsTokens() {
+        ScenarioAnalysisRequest request = request("A small team with a tight deadline", "Budget: $10,000");
+
+        AdmissionControl.Admission admitted = admission(1_000, 1_000, false).admit(request);
+
+        Assertions.assertSame(request, admitted.request());
+        Assertions.assertEquals("Scenario: A small team with a tight deadline Constraints: Budget: $10,000", admitted.prompt());
+        Assertions.assertTrue(admitted.promptTokens() > 5 && admitted.promptTokens() < admitted.prompt().length());
+        Assertions.assertFalse(admitted.truncated());
+    }
+
+    @Test
+    void testAdmit_CompactsWhitespaceAndRepeatedConstraints() {
+        ScenarioAnalysisRequest request = request("  A small team\n\n with   a tight deadline ", "Budget: $10,000", " budget:  $10,000",
+                "  ");
+
+        AdmissionControl.Admission admitted = admission(1_000, 1_000, false).admit(request);
+
+        Assertions.assertEquals("Scenario: A small team with a tight deadline Constraints: Budget: $10,000", admitted.prompt());
+        Assertions.assertEquals("A small team with a tight deadline", admitted.request().getScenario());
+        Assertions.assertEquals(List.of("Budget: $10,000"), admitted.request().getConstraints());
+        Assertions.assertFalse(admitted.truncated());
+    }
+
+    @Test
+    void testAdmit_CountsStaticInstructionsTowardsTokenLimit() {
+        PromptTemplates withInstructions = new PromptTemplates("Analyse the scenario and answer in JSON. ".repeat(10),
+                "Scenario: [scenarios] Constraints: [constraints]", Map.of());
+        ScenarioAnalysisRequest request = request("A small team with a tight deadline", "Budget: $10,000");
+
+        AdmissionControl.Admission plain = admission(1_000, 1_000, false).admit(request);
+        AdmissionControl.Admission admitted = new AdmissionControl(withInstructions, 1_000, 3, 50, 1_000, false, "o200k_base")
+                .admit(request);
+
+        Assertions.assertEquals(plain.prompt(), admitted.prompt());
+        Assertions.assertTrue(admitted.promptTokens() > plain.promptTokens() + 50);
+        Assertions.assertThrows(PayloadTooLargeException.class,
+                () -> new AdmissionControl(withInstructions, 1_000, 3, 50, 50, false, "o200k_base").admit(request));
+    }
+
+    @Test
+    void testAdmit_RejectsMalformedRequests() {
+        AdmissionControl admission = admission(1_000, 1_000, false);
+        ScenarioAnalysisRequest nullConstraints = new ScenarioAnalysisRequest();
+        nullConstraints.setScenario("A scenario");
+
+        Assertions.assertThrows(InvalidScenarioException.class, () -> admission.admit(null));
+        Assertions.assertThrows(InvalidScenarioException.class, () -> admission.admit(nullConstraints));
+        Assertions.assertThrows(InvalidScenarioException.class, () -> admission.admit(request("A scenario", "ok", null)));
+        Assertions.assertThrows(InvalidScenarioException.class, () -> admission.admit(request("A scenario", " ", "")));
+    }
+
+    @Test
+    void testAdmit_RejectsTooManyOrTooLongConstraints() {
+        AdmissionControl admission = admission(1_000, 1_000, true);
+
+        Assertions.assertThrows(PayloadTooLargeException.class, () -> admission.admit(request("A scenario", "a", "b", "c", "d")));
+        Assertions.assertThrows(PayloadTooLargeException.class, () -> admission.admit(request("A scenario", "x".repeat(51))));
+    }
+
+    @Test
+    void testAdmit_RejectsOversizedScenarioWithoutTruncation() {
+        AdmissionControl admission = admission(100, 1_000, false);
+
+        Assertions.assertThrows(PayloadTooLargeException.class, () -> admission.admit(request("x".repeat(101), "c")));
+        Assertions.assertThrows(PayloadTooLargeException.class,
+                () -> admission(10_000, 20, false).admit(request("word ".repeat(100), "c")));
+    }
+
+    @Test
+    void testAdmit_TruncatesScenarioToFitTokenLimit() {
+        String scenario = "The team is building a new product under a tight deadline. ".repeat(50);
+
+        AdmissionControl.Admission admitted = admission(2_000, 100, true).admit(request(scenario, "Budget: $10,000"));
+
+        Assertions.assertTrue(admitted.truncated());
+        Assertions.assertTrue(admitted.promptTokens() <= 100);
+        Assertions.assertTrue(admitted.request().getScenario().length() < 2_000);
+        Assertions.assertTrue(scenario.startsWith(admitted.request().getScenario()));
+        Assertions.assertEquals(List.of("Budget: $10,000"), admitted.request().getConstraints());
+    }
+
+    @Test
+    void testAdmit_TruncatesEveryScenarioSlot() {
+        String scenario = "word ".repeat(200);
+        ScenarioAnalysisRequest request = request(scenario, "c");
+        request.setTemplate("twice");
+
+        AdmissionControl.Admission admitted = admission(10_000, 60, true).admit(request);
+
+        Assertions.assertTrue(admitted.promptTokens() <= 60);
+        Assertions.assertEquals("twice", admitted.request().getTemplate());
+    }
+
+    @Test
+    void testAdmit_RejectsWhenConstraintsAloneExceedTokenLimit() {
+        AdmissionControl admission = admission(10_000, 5, true);
+
+        Assertions.assertThrows(PayloadTooLargeException.class,
+                () -> admission.admit(request("A scenario", "Budget of ten thousand dollars and six weeks")));
+    }
+}
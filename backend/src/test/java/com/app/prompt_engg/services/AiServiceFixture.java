@@ -0,0 +1,113 @@
+package com.app.prompt_engg.services;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Wires an {@link AiService} outside a Spring context, with collaborators that let every request
+ * through and run it on the calling thread. Tests replace the collaborators they exercise and
+ * call {@link #wire} again to apply them.
+ */
+class AiServiceFixture {
+
+    private final AnalysisMetrics metrics;
+
+    private PromptTemplates templates = new PromptTemplates("Scenario: [scenarios] Constraints: [constraints]", Map.of());
+
+    private AdmissionControl admission;
+
+    private AnalysisCache cache = new AnalysisCache(100, Duration.ofMinutes(5));
+
+    private AnalysisStore store = new AnalysisStore(false, Path.of("unused"), Duration.ofDays(1), 16, new ObjectMapper());
+
+    private InFlightLimiter inFlightLimiter = new InFlightLimiter(10);
+
+    private ModelRouter router = new ModelRouter("model", "", List.of());
+
+    private RateLimitGovernor governor = new RateLimitGovernor(1000, 1_000_000, 10, 10, Duration.ofSeconds(1), 100);
+
+    private final RequestHedger hedger;
+
+    private final CircuitBreaker breaker = new CircuitBreaker(10, 2, 0.5, Duration.ofSeconds(20), 0.8, Duration.ofMinutes(1), 1);
+
+    private final SingleFlight singleFlight = new SingleFlight();
+
+    private final ClusterCache cluster = new ClusterCache(false, "", List.of(), 128, Duration.ofMillis(500), "", new ObjectMapper());
+
+    private boolean sectionsEnabled;
+
+    AiServiceFixture(AnalysisMetrics metrics) {
+        this.metrics = metrics;
+        this.hedger = new RequestHedger(false, 0.95, Duration.ofSeconds(1), 20, metrics);
+    }
+
+    AiServiceFixture templates(PromptTemplates templates) {
+        this.templates = templates;
+        return this;
+    }
+
+    AiServiceFixture cache(AnalysisCache cache) {
+        this.cache = cache;
+        return this;
+    }
+
+    AiServiceFixture store(AnalysisStore store) {
+        this.store = store;
+        return this;
+    }
+
+    AiServiceFixture inFlightLimiter(InFlightLimiter inFlightLimiter) {
+        this.inFlightLimiter = inFlightLimiter;
+        return this;
+    }
+
+    AiServiceFixture router(ModelRouter router) {
+        this.router = router;
+        return this;
+    }
+
+    AiServiceFixture governor(RateLimitGovernor governor) {
+        this.governor = governor;
+        return this;
+    }
+
+    AiServiceFixture sectionsEnabled(boolean sectionsEnabled) {
+        this.sectionsEnabled = sectionsEnabled;
+        return this;
+    }
+
+    /**
+     * Sets the collaborators on the service, in place of the injection Spring would do.
+     *
+     * @param service the service to wire
+     * @return the service
+     */
+    <S extends AiService> S wire(S service) {
+        // Admission control budgets tokens for the templates, so it is built from them unless replaced.
+        if (admission == null) {
+            admission = new AdmissionControl(templates, 2_000, 5, 100, 1_000, false, "o200k_base");
+        }
+        ReflectionTestUtils.setField(service, "metrics", metrics);
+        ReflectionTestUtils.setField(service, "templates", templates);
+        ReflectionTestUtils.setField(service, "admission", admission);
+        ReflectionTestUtils.setField(service, "cache", cache);
+        ReflectionTestUtils.setField(service, "store", store);
+        ReflectionTestUtils.setField(service, "inFlightLimiter", inFlightLimiter);
+        ReflectionTestUtils.setField(service, "router", router);
+        ReflectionTestUtils.setField(service, "hedger", hedger);
+        ReflectionTestUtils.setField(service, "governor", governor);
+        ReflectionTestUtils.setField(service, "breaker", breaker);
+        ReflectionTestUtils.setField(service, "singleFlight", singleFlight);
+        ReflectionTestUtils.setField(service, "cluster", cluster);
+        ReflectionTestUtils.setField(service, "analysisExecutor", (Executor) Runnable::run);
+        ReflectionTestUtils.setField(service, "sectionsEnabled", sectionsEnabled);
+        return service;
+    }
+}
@@ -1,17 +1,30 @@
 package com.app.prompt_engg.services;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 
 import com.app.prompt_engg.exceptions.InvalidScenarioException;
+import com.app.prompt_engg.exceptions.PayloadTooLargeException;
+import com.app.prompt_engg.exceptions.TooManyRequestsException;
 import com.app.prompt_engg.models.ScenarioAnalysisRequest;
 import com.app.prompt_engg.models.ScenarioAnalysisResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -20,25 +33,81 @@ class AiServiceTest {
     // Subclass the AiService to override callApi for testing
     class TestAiService extends AiService {
         private String fakeApiResponse;
+        private int apiCalls;
+        private String lastModel;
+        private RuntimeException fakeFailure;
+        private final List<AnalysisSection> failingSections = new ArrayList<>();
+        private final List<String> sectionPrompts = Collections.synchronizedList(new ArrayList<>());
 
         public void setFakeApiResponse(String fakeApiResponse) {
             this.fakeApiResponse = fakeApiResponse;
         }
 
+        public int getApiCalls() {
+            return apiCalls;
+        }
+
+        public String getLastModel() {
+            return lastModel;
+        }
+
+        public void setFakeFailure(RuntimeException fakeFailure) {
+            this.fakeFailure = fakeFailure;
+        }
+
         @Override
-        protected String callApi(String prompt) {
-            return fakeApiResponse;
+        protected CompletableFuture<String> callApiAsync(String prompt, String model) {
+            apiCalls++;
+            lastModel = model;
+            if (fakeFailure != null) {
+                return CompletableFuture.failedFuture(fakeFailure);
+            }
+            return CompletableFuture.completedFuture(fakeApiResponse);
+        }
+
+        @Override
+        protected CompletableFuture<String> callSectionAsync(String prompt, String model, AnalysisSection section) {
+            apiCalls++;
+            sectionPrompts.add(prompt);
+            if (failingSections.contains(section)) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Section failed"));
+            }
+            // Answer each section with the full fake response; merging keeps only the section's keys.
+            return CompletableFuture.completedFuture(fakeApiResponse);
+        }
+
+        @Override
+        protected CompletableFuture<String> streamApi(String prompt, String model, Consumer<String> onDelta) {
+            apiCalls++;
+            lastModel = model;
+            // Deliver the fake response in small chunks, as the streaming API would.
+            for (int i = 0; i < fakeApiResponse.length(); i += 7) {
+                onDelta.accept(fakeApiResponse.substring(i, Math.min(i + 7, fakeApiResponse.length())));
+            }
+            return CompletableFuture.completedFuture(fakeApiResponse);
         }
     }
 
     private TestAiService service;
 
+    private SimpleMeterRegistry meterRegistry;
+
+    private AiServiceFixture fixture;
+
     @BeforeEach
     void setup() {
         service = new TestAiService();
+        meterRegistry = new SimpleMeterRegistry();
         // set a dummy API key so that production code does not complain.
         // Reflection or setter may be used if needed.
         // Here we assume it's not used since callApi is overridden.
+        fixture = new AiServiceFixture(new AnalysisMetrics(meterRegistry, ObservationRegistry.NOOP))
+                .templates(new PromptTemplates(
+                        "Scenario: [scenarios] Constraints: [constraints]",
+                        Map.of("short", "[scenarios] / [constraints]")))
+                .router(new ModelRouter("large-model", "",
+                        List.of(new ModelRouter.Rule("small-model", 20, 1, null))));
+        fixture.wire(service);
     }
 
     @Test
@@ -115,4 +184,337 @@ class AiServiceTest {
         Assertions.assertEquals(List.of("resource1"), response.getRecommendedResources());
         Assertions.assertEquals("Test disclaimer", response.getDisclaimer());
     }
+
+    private static final String FULL_RESPONSE = "{\"summary\":\"Sum\",\"pitfalls_or_risks\":[\"p\"],"
+            + "\"proposed_strategies\":[\"s\"],\"recommended_resources\":[\"r\"],\"disclaimer\":\"d\"}";
+
+    private static ScenarioAnalysisRequest validRequest() {
+        ScenarioAnalysisRequest request = new ScenarioAnalysisRequest();
+        request.setScenario("A valid scenario");
+        request.setConstraints(List.of("constraint1"));
+        return request;
+    }
+
+    @Test
+    void testGenerateAnalysis_InvalidApiResponseCountsError() {
+        service.setFakeApiResponse("Invalid JSON Response");
+
+        Assertions.assertThrows(Exception.class, () -> {
+            service.generateAnalysis(validRequest());
+        });
+        Assertions.assertEquals(1, meterRegistry.find("analysis.errors").counter().count());
+    }
+
+    @Test
+    void testGenerateAnalysis_NullConstraints() {
+        ScenarioAnalysisRequest request = new ScenarioAnalysisRequest();
+        request.setScenario("A valid scenario");
+        Assertions.assertThrows(InvalidScenarioException.class, () -> {
+            service.generateAnalysis(request);
+        });
+    }
+
+    @Test
+    void testGenerateAnalysis_RejectsOversizedScenarioBeforeCallingApi() {
+        ScenarioAnalysisRequest request = new ScenarioAnalysisRequest();
+        request.setScenario("x".repeat(500_000));
+        request.setConstraints(List.of("constraint1"));
+        service.setFakeApiResponse("{\"summary\":\"unused\"}");
+
+        Assertions.assertThrows(PayloadTooLargeException.class, () -> {
+            service.generateAnalysis(request);
+        });
+        Assertions.assertEquals(0, service.getApiCalls());
+    }
+
+    @Test
+    void testGenerateAnalysis_RepeatedScenarioServedFromCache() {
+        ScenarioAnalysisRequest first = new ScenarioAnalysisRequest();
+        first.setScenario("A valid   scenario");
+        first.setConstraints(List.of("constraint1", "constraint2"));
+
+        ScenarioAnalysisRequest second = new ScenarioAnalysisRequest();
+        second.setScenario("  a VALID scenario ");
+        second.setConstraints(List.of("Constraint2", "constraint1"));
+
+        service.setFakeApiResponse("{"
+                + "\"summary\":\"Test summary\","
+                + "\"pitfalls_or_risks\":[\"risk1\"],"
+                + "\"proposed_strategies\":[\"strategy1\"],"
+                + "\"recommended_resources\":[\"resource1\"],"
+                + "\"disclaimer\":\"Test disclaimer\""
+                + "}");
+
+        ScenarioAnalysisResponse firstResponse = service.generateAnalysis(first);
+        ScenarioAnalysisResponse secondResponse = service.generateAnalysis(second);
+
+        Assertions.assertEquals(1, service.getApiCalls());
+        Assertions.assertSame(firstResponse, secondResponse);
+    }
+
+    @Test
+    void testGenerateAnalysis_ServedFromStoreAfterRestart(@TempDir Path directory) throws Exception {
+        ScenarioAnalysisRequest request = new ScenarioAnalysisRequest();
+        request.setScenario("A valid scenario");
+        request.setConstraints(List.of("constraint1"));
+        service.setFakeApiResponse("{"
+                + "\"summary\":\"Test summary\","
+                + "\"pitfalls_or_risks\":[\"risk1\"],"
+                + "\"proposed_strategies\":[],"
+                + "\"recommended_resources\":[],"
+                + "\"disclaimer\":\"Test disclaimer\""
+                + "}");
+
+        AnalysisStore store = new AnalysisStore(true, directory, Duration.ofDays(1), 16, new ObjectMapper());
+        store.open();
+        fixture.store(store).wire(service);
+        service.generateAnalysis(request);
+        store.close();
+
+        // A restarted node has an empty in-memory cache but reopens the same store.
+        setup();
+        AnalysisStore reopened = new AnalysisStore(true, directory, Duration.ofDays(1), 16, new ObjectMapper());
+        reopened.open();
+        fixture.store(reopened).wire(service);
+        ScenarioAnalysisResponse response = service.generateAnalysis(request);
+        reopened.close();
+
+        Assertions.assertEquals(0, service.getApiCalls());
+        Assertions.assertEquals("Test summary", response.getScenarioSummary());
+        Assertions.assertEquals(List.of("risk1"), response.getPotentialPitfalls());
+    }
+
+    @Test
+    void testGenerateAnalysis_ServesFallbackWhileCircuitIsOpen(@TempDir Path directory) throws Exception {
+        ScenarioAnalysisRequest stored = new ScenarioAnalysisRequest();
+        stored.setScenario("A stored scenario");
+        stored.setConstraints(List.of("constraint1"));
+        ScenarioAnalysisRequest unknown = new ScenarioAnalysisRequest();
+        unknown.setScenario("An unknown scenario");
+        unknown.setConstraints(List.of("constraint1"));
+
+        // A store whose entries have all expired, so they are only served as a fallback.
+        AnalysisStore store = new AnalysisStore(true, directory, Duration.ofMillis(1), 16, new ObjectMapper());
+        store.open();
+        fixture.store(store).wire(service);
+        service.setFakeApiResponse("{\"summary\":\"Stored summary\"}");
+        service.generateAnalysis(stored);
+        fixture.cache(new AnalysisCache(0, Duration.ofMinutes(5))).wire(service);
+        Thread.sleep(5);
+
+        // One success and one failure reach the breaker's 50% failure-rate threshold.
+        service.setFakeFailure(new IllegalStateException("upstream down"));
+        Assertions.assertThrows(InvalidScenarioException.class, () -> service.generateAnalysis(unknown));
+        int callsWhenOpened = service.getApiCalls();
+
+        ScenarioAnalysisResponse stale = service.generateAnalysis(stored);
+        ScenarioAnalysisResponse degraded = service.generateAnalysis(unknown);
+        store.close();
+
+        Assertions.assertEquals(callsWhenOpened, service.getApiCalls());
+        Assertions.assertTrue(stale.isFallback());
+        Assertions.assertEquals("Stored summary", stale.getScenarioSummary());
+        Assertions.assertTrue(degraded.isFallback());
+        Assertions.assertTrue(degraded.getPotentialPitfalls().isEmpty());
+    }
+
+    @Test
+    void testGenerateAnalysisAsync_RejectsWhenInFlightLimitReached() {
+        fixture.inFlightLimiter(new InFlightLimiter(0)).wire(service);
+        ScenarioAnalysisRequest request = new ScenarioAnalysisRequest();
+        request.setScenario("A valid scenario");
+        request.setConstraints(List.of("constraint1"));
+
+        Assertions.assertThrows(TooManyRequestsException.class, () -> {
+            service.generateAnalysisAsync(request);
+        });
+        Assertions.assertEquals(0, service.getApiCalls());
+    }
+
+    @Test
+    void testGenerateAnalysisAsync_ShedsWhenRateLimitQueueIsFull() {
+        fixture.governor(new RateLimitGovernor(1, 1_000_000, 0, 0, Duration.ofSeconds(1), 100)).wire(service);
+        service.setFakeApiResponse("{\"summary\":\"Test summary\"}");
+        ScenarioAnalysisRequest first = new ScenarioAnalysisRequest();
+        first.setScenario("A valid scenario");
+        first.setConstraints(List.of("constraint1"));
+        ScenarioAnalysisRequest second = new ScenarioAnalysisRequest();
+        second.setScenario("Another valid scenario");
+        second.setConstraints(List.of("constraint1"));
+
+        service.generateAnalysis(first);
+        TooManyRequestsException rejection = Assertions.assertThrows(TooManyRequestsException.class, () -> {
+            service.generateAnalysisAsync(second);
+        });
+
+        Assertions.assertEquals(1, service.getApiCalls());
+        Assertions.assertTrue(rejection.getRetryAfterSeconds() >= 1);
+    }
+
+    @Test
+    void testStreamAnalysis_ReportsSectionsIncrementally() {
+        ScenarioAnalysisRequest request = new ScenarioAnalysisRequest();
+        request.setScenario("A valid scenario");
+        request.setConstraints(List.of("constraint1"));
+        service.setFakeApiResponse("{"
+                + "\"summary\":\"Test summary\","
+                + "\"pitfalls_or_risks\":[\"risk1\", \"risk2\"],"
+                + "\"proposed_strategies\":[\"strategy1\"],"
+                + "\"recommended_resources\":[\"resource1\"],"
+                + "\"disclaimer\":\"Test disclaimer\""
+                + "}");
+
+        List<String> sections = new ArrayList<>();
+        ScenarioAnalysisResponse response = service.streamAnalysis(request, new IncrementalAnalysisParser.Listener() {
+            @Override
+            public void onValue(String section, String value) {
+                sections.add(section);
+            }
+
+            @Override
+            public void onItem(String section, String item) {
+                sections.add(section);
+            }
+        }).join();
+
+        Assertions.assertEquals(List.of("summary", "pitfalls_or_risks", "pitfalls_or_risks", "proposed_strategies",
+                "recommended_resources", "disclaimer"), sections);
+        Assertions.assertEquals(List.of("risk1", "risk2"), response.getPotentialPitfalls());
+    }
+
+    @Test
+    void testGenerateAnalysis_RoutesBySize() {
+        service.setFakeApiResponse("{\"summary\":\"Test summary\"}");
+        ScenarioAnalysisRequest small = new ScenarioAnalysisRequest();
+        small.setScenario("Short scenario");
+        small.setConstraints(List.of("constraint1"));
+        ScenarioAnalysisRequest large = new ScenarioAnalysisRequest();
+        large.setScenario("A much longer scenario that exceeds the small model limit");
+        large.setConstraints(List.of("constraint1"));
+
+        service.generateAnalysis(small);
+        Assertions.assertEquals("small-model", service.getLastModel());
+
+        service.generateAnalysis(large);
+        Assertions.assertEquals("large-model", service.getLastModel());
+    }
+
+    @Test
+    void testBuildPrompt_UsesRequestedTemplate() {
+        ScenarioAnalysisRequest request = new ScenarioAnalysisRequest();
+        request.setScenario("A valid scenario");
+        request.setConstraints(List.of("constraint1", "constraint2"));
+        request.setTemplate("short");
+
+        Assertions.assertEquals("A valid scenario / constraint1, constraint2", service.buildPrompt(request));
+    }
+
+    @Test
+    void testCacheKey_ChangesWithInstructions() {
+        ScenarioAnalysisRequest request = new ScenarioAnalysisRequest();
+        request.setScenario("A valid scenario");
+        request.setConstraints(List.of("constraint1"));
+        String plain = service.cacheKey(request);
+
+        fixture.templates(new PromptTemplates("Answer in JSON.",
+                "Scenario: [scenarios] Constraints: [constraints]", Map.of())).wire(service);
+
+        Assertions.assertNotEquals(plain, service.cacheKey(request));
+        Assertions.assertEquals("Answer in JSON.", service.instructions());
+    }
+
+    @Test
+    void testGenerateAnalysis_UnknownTemplate() {
+        ScenarioAnalysisRequest request = new ScenarioAnalysisRequest();
+        request.setScenario("A valid scenario");
+        request.setConstraints(List.of("constraint1"));
+        request.setTemplate("missing");
+
+        Assertions.assertThrows(InvalidScenarioException.class, () -> {
+            service.generateAnalysis(request);
+        });
+    }
+
+    @Test
+    void testEtag_KeyedOnNormalizedPrompt() {
+        ScenarioAnalysisRequest first = new ScenarioAnalysisRequest();
+        first.setScenario("A valid   scenario");
+        first.setConstraints(List.of("constraint1", "constraint2"));
+
+        ScenarioAnalysisRequest second = new ScenarioAnalysisRequest();
+        second.setScenario("  a VALID scenario ");
+        second.setConstraints(List.of("Constraint2", "constraint1"));
+
+        ScenarioAnalysisRequest other = new ScenarioAnalysisRequest();
+        other.setScenario("Another scenario");
+        other.setConstraints(List.of("constraint1"));
+
+        String etag = service.etag(service.admit(first));
+        Assertions.assertEquals("W/\"" + service.cacheKey(first) + "\"", etag);
+        Assertions.assertEquals(etag, service.etag(service.admit(second)));
+        Assertions.assertNotEquals(etag, service.etag(service.admit(other)));
+    }
+
+    @Test
+    void testAdmit_RejectsMalformedRequestBeforeEtag() {
+        ScenarioAnalysisRequest request = new ScenarioAnalysisRequest();
+        request.setScenario("A valid scenario");
+        request.setConstraints(Collections.singletonList(null));
+        Assertions.assertThrows(InvalidScenarioException.class, () -> service.admit(request));
+
+        request.setConstraints(List.of("constraint1"));
+        request.setTemplate("missing");
+        Assertions.assertThrows(InvalidScenarioException.class, () -> service.admit(request));
+    }
+
+    @Test
+    void testGenerateAnalysis_SectionModeMergesSections() {
+        fixture.sectionsEnabled(true).wire(service);
+        service.setFakeApiResponse(FULL_RESPONSE);
+
+        ScenarioAnalysisResponse response = service.generateAnalysis(validRequest());
+
+        Assertions.assertEquals(AnalysisSection.values().length, service.getApiCalls());
+        Assertions.assertEquals("Sum", response.getScenarioSummary());
+        Assertions.assertEquals(List.of("p"), response.getPotentialPitfalls());
+        Assertions.assertEquals(List.of("s"), response.getProposedStrategies());
+        Assertions.assertEquals(List.of("r"), response.getRecommendedResources());
+        Assertions.assertEquals("d", response.getDisclaimer());
+        Assertions.assertFalse(response.isPartial());
+        Assertions.assertTrue(service.sectionPrompts.stream().allMatch(prompt -> prompt.startsWith("Scenario: A valid scenario")));
+        Assertions.assertTrue(service.sectionPrompts.stream().anyMatch(prompt -> prompt.endsWith("\n" + AnalysisSection.PITFALLS.instruction())));
+        Assertions.assertTrue(AnalysisSection.PITFALLS.instruction().contains("overrides the keys listed in the instructions"));
+        Assertions.assertTrue(AnalysisSection.PITFALLS.instruction().contains("keys: pitfalls_or_risks, and leave out every other key"));
+
+        // Complete analyses are cached like any other.
+        service.generateAnalysis(validRequest());
+        Assertions.assertEquals(AnalysisSection.values().length, service.getApiCalls());
+    }
+
+    @Test
+    void testGenerateAnalysis_SectionModeReturnsPartialAnalysis() {
+        fixture.sectionsEnabled(true).wire(service);
+        service.setFakeApiResponse(FULL_RESPONSE);
+        service.failingSections.add(AnalysisSection.STRATEGIES);
+
+        ScenarioAnalysisResponse response = service.generateAnalysis(validRequest());
+
+        Assertions.assertTrue(response.isPartial());
+        Assertions.assertEquals("Sum", response.getScenarioSummary());
+        Assertions.assertEquals(List.of(), response.getProposedStrategies());
+        Assertions.assertEquals(1, meterRegistry.counter("analysis.sections.partial").count());
+
+        // Partial analyses are not cached, so the next request tries again.
+        service.failingSections.clear();
+        Assertions.assertFalse(service.generateAnalysis(validRequest()).isPartial());
+    }
+
+    @Test
+    void testGenerateAnalysis_SectionModeFailsWhenEverySectionFails() {
+        fixture.sectionsEnabled(true).wire(service);
+        service.setFakeApiResponse(FULL_RESPONSE);
+        service.failingSections.addAll(List.of(AnalysisSection.values()));
+
+        Assertions.assertThrows(InvalidScenarioException.class, () -> service.generateAnalysis(validRequest()));
+    }
 }
@@ -0,0 +1,60 @@
+package com.app.prompt_engg.services;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.app.prompt_engg.models.ScenarioAnalysisResponse;
+
+class AnalysisCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void testGet_HitAndMissAreCounted() {
+        AnalysisCache cache = new AnalysisCache(10, Duration.ofMinutes(1), clock::get);
+        ScenarioAnalysisResponse response = new ScenarioAnalysisResponse();
+
+        cache.put("a", response);
+
+        Assertions.assertSame(response, cache.get("a").orElseThrow());
+        Assertions.assertTrue(cache.get("b").isEmpty());
+        Assertions.assertEquals(1, cache.getHits());
+        Assertions.assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void testPut_EvictsLeastRecentlyUsedWhenFull() {
+        AnalysisCache cache = new AnalysisCache(2, Duration.ofMinutes(1), clock::get);
+        cache.put("a", new ScenarioAnalysisResponse());
+        cache.put("b", new ScenarioAnalysisResponse());
+        cache.get("a");
+
+        cache.put("c", new ScenarioAnalysisResponse());
+
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertTrue(cache.get("a").isPresent());
+        Assertions.assertTrue(cache.get("b").isEmpty());
+        Assertions.assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void testGet_ExpiredEntryIsEvicted() {
+        AnalysisCache cache = new AnalysisCache(10, Duration.ofSeconds(30), clock::get);
+        cache.put("a", new ScenarioAnalysisResponse());
+
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+
+        Assertions.assertTrue(cache.get("a").isEmpty());
+        Assertions.assertEquals(0, cache.size());
+        Assertions.assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void testKey_IsStableForSamePrompt() {
+        Assertions.assertEquals(AnalysisCache.key("prompt"), AnalysisCache.key("prompt"));
+        Assertions.assertNotEquals(AnalysisCache.key("prompt"), AnalysisCache.key("other prompt"));
+    }
+}
@@ -0,0 +1,212 @@
+package com.app.prompt_engg.services;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.app.prompt_engg.exceptions.InvalidScenarioException;
+import com.app.prompt_engg.exceptions.JobNotFoundException;
+import com.app.prompt_engg.exceptions.TooManyRequestsException;
+import com.app.prompt_engg.exceptions.UpstreamUnavailableException;
+import com.app.prompt_engg.models.AnalysisJob;
+import com.app.prompt_engg.models.ScenarioAnalysisRequest;
+import com.app.prompt_engg.models.ScenarioAnalysisResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+
+class AnalysisJobServiceTest {
+
+    private final AiService aiService = mock(AiService.class);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final List<String> executed = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger refusals = new AtomicInteger();
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private AnalysisJobService service;
+
+    @BeforeEach
+    void setup() {
+        when(aiService.generateAnalysisAsync(any(AdmissionControl.Admission.class))).thenAnswer(invocation -> {
+            ScenarioAnalysisRequest request = invocation.<AdmissionControl.Admission>getArgument(0).request();
+            if (request.getScenario().startsWith("blocking")) {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            if (request.getScenario().equals("failing")) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Upstream failed"));
+            }
+            if (request.getScenario().startsWith("refused") && refusals.getAndDecrement() > 0) {
+                return CompletableFuture.failedFuture(new UpstreamUnavailableException("Rate limited", 0));
+            }
+            if (request.getScenario().equals("saturated")) {
+                throw new TooManyRequestsException("Too many analyses in flight", 0);
+            }
+            executed.add(request.getScenario());
+            ScenarioAnalysisResponse response = new ScenarioAnalysisResponse();
+            response.setScenarioSummary("Summary of " + request.getScenario());
+            return CompletableFuture.completedFuture(response);
+        });
+        meterRegistry = new SimpleMeterRegistry();
+        service = service(1, 2);
+    }
+
+    @AfterEach
+    void teardown() {
+        release.countDown();
+        service.shutdown();
+    }
+
+    private AnalysisJobService service(int workers, int maxQueueSize) {
+        PromptTemplates templates = new PromptTemplates("Scenario: [scenarios] Constraints: [constraints]", Map.of());
+        return new AnalysisJobService(aiService, new AdmissionControl(templates, 2_000, 5, 100, 1_000, false, "o200k_base"),
+                new AnalysisMetrics(meterRegistry, ObservationRegistry.NOOP), workers, maxQueueSize,
+                Duration.ofMinutes(10), Duration.ofSeconds(5), 3, Duration.ofMillis(10), clock::get);
+    }
+
+    private static ScenarioAnalysisRequest request(String scenario) {
+        ScenarioAnalysisRequest request = new ScenarioAnalysisRequest();
+        request.setScenario(scenario);
+        request.setConstraints(List.of("constraint1"));
+        return request;
+    }
+
+    @Test
+    void testSubmit_LongPollReturnsResultOnceDone() {
+        AnalysisJob queued = service.submit(request("one"), 0);
+
+        AnalysisJob done = service.await(queued.getId(), Duration.ofSeconds(5)).join();
+
+        Assertions.assertEquals(AnalysisJob.Status.SUCCEEDED, done.getStatus());
+        Assertions.assertEquals("Summary of one", done.getResponse().getScenarioSummary());
+        Assertions.assertEquals(1, meterRegistry.find("analysis.jobs.wait").timer().count());
+    }
+
+    @Test
+    void testSubmit_RunsHigherPriorityFirst() {
+        AnalysisJob blocking = service.submit(request("blocking"), 0);
+        AnalysisJob low = service.submit(request("low"), 0);
+        AnalysisJob high = service.submit(request("high"), 5);
+
+        Assertions.assertEquals(AnalysisJob.Status.QUEUED, service.await(low.getId(), Duration.ZERO).join().getStatus());
+        release.countDown();
+        service.await(low.getId(), Duration.ofSeconds(5)).join();
+        service.await(high.getId(), Duration.ofSeconds(5)).join();
+
+        Assertions.assertEquals(List.of("blocking", "high", "low"), executed);
+        Assertions.assertEquals(AnalysisJob.Status.SUCCEEDED, service.await(blocking.getId(), Duration.ZERO).join().getStatus());
+    }
+
+    @Test
+    void testSubmit_RejectsWhenQueueIsFull() throws InterruptedException {
+        service.shutdown();
+        service = service(1, 1);
+        service.submit(request("blocking"), 0);
+        // Wait for the worker to take the first job, so only the second one occupies the queue.
+        while (service.getRunning() == 0) {
+            Thread.sleep(1);
+        }
+        service.submit(request("two"), 0);
+
+        Assertions.assertThrows(TooManyRequestsException.class, () -> service.submit(request("three"), 0));
+        Assertions.assertEquals(1, service.getRejected());
+    }
+
+    @Test
+    void testSubmit_RejectsInvalidRequestImmediately() {
+        Assertions.assertThrows(InvalidScenarioException.class, () -> service.submit(request(" "), 0));
+        Assertions.assertEquals(0, service.size());
+    }
+
+    @Test
+    void testAwait_ReportsFailedJob() {
+        AnalysisJob job = service.submit(request("failing"), 0);
+
+        AnalysisJob failed = service.await(job.getId(), Duration.ofSeconds(5)).join();
+
+        Assertions.assertEquals(AnalysisJob.Status.FAILED, failed.getStatus());
+        Assertions.assertEquals("Upstream failed", failed.getError());
+        Assertions.assertNull(failed.getResponse());
+    }
+
+    @Test
+    void testAwait_RetriesJobRefusedByUpstream() {
+        refusals.set(2);
+        AnalysisJob job = service.submit(request("refused"), 0);
+
+        AnalysisJob done = service.await(job.getId(), Duration.ofSeconds(5)).join();
+
+        Assertions.assertEquals(AnalysisJob.Status.SUCCEEDED, done.getStatus());
+        Assertions.assertEquals("Summary of refused", done.getResponse().getScenarioSummary());
+        Assertions.assertEquals(2, service.getRetried());
+        Assertions.assertEquals(0, service.getQueued());
+    }
+
+    @Test
+    void testAwait_FailsJobRefusedOnEveryAttempt() {
+        refusals.set(Integer.MAX_VALUE);
+        AnalysisJob job = service.submit(request("refused"), 0);
+
+        AnalysisJob failed = service.await(job.getId(), Duration.ofSeconds(5)).join();
+
+        Assertions.assertEquals(AnalysisJob.Status.FAILED, failed.getStatus());
+        Assertions.assertEquals("Rate limited", failed.getError());
+        Assertions.assertEquals(2, service.getRetried());
+    }
+
+    @Test
+    void testAwait_FinishedJobsExpireAfterTtl() {
+        AnalysisJob job = service.submit(request("one"), 0);
+        service.await(job.getId(), Duration.ofSeconds(5)).join();
+
+        clock.addAndGet(Duration.ofMinutes(10).toNanos());
+
+        Assertions.assertThrows(JobNotFoundException.class, () -> service.await(job.getId(), Duration.ZERO));
+        Assertions.assertEquals(0, service.size());
+    }
+
+    @Test
+    void testSubmit_AdmitsRequestOnlyOnce() {
+        AnalysisJob job = service.submit(request("one"), 0);
+        service.await(job.getId(), Duration.ofSeconds(5)).join();
+
+        verify(aiService, never()).generateAnalysis(any(ScenarioAnalysisRequest.class));
+        verify(aiService, never()).generateAnalysisAsync(any(ScenarioAnalysisRequest.class));
+        verify(aiService).generateAnalysisAsync(argThat((AdmissionControl.Admission admitted) ->
+                admitted.request().getScenario().equals("one")));
+    }
+
+    @Test
+    void testAwait_FailsJobRefusedSynchronouslyOnEveryAttempt() {
+        AnalysisJob job = service.submit(request("saturated"), 0);
+
+        AnalysisJob failed = service.await(job.getId(), Duration.ofSeconds(5)).join();
+
+        Assertions.assertEquals(AnalysisJob.Status.FAILED, failed.getStatus());
+        Assertions.assertEquals("Too many analyses in flight", failed.getError());
+        Assertions.assertEquals(2, service.getRetried());
+    }
+}
@@ -0,0 +1,183 @@
+package com.app.prompt_engg.services;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.app.prompt_engg.models.ScenarioAnalysisResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class AnalysisStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private AnalysisStore store;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    void testGet_ReturnsStoredAnalysis() throws Exception {
+        store = open(16);
+        store.put(key("a"), response("A"));
+
+        ScenarioAnalysisResponse stored = store.get(key("a")).orElseThrow();
+
+        Assertions.assertEquals("A", stored.getScenarioSummary());
+        Assertions.assertEquals(List.of("A risk"), stored.getPotentialPitfalls());
+        Assertions.assertTrue(store.get(key("b")).isEmpty());
+        Assertions.assertEquals(1, store.getHits());
+        Assertions.assertEquals(1, store.getMisses());
+    }
+
+    @Test
+    void testOpen_SurvivesRestart() throws Exception {
+        store = open(16);
+        store.put(key("a"), response("A"));
+        store.put(key("b"), response("B"));
+        store.close();
+
+        store = open(16);
+
+        Assertions.assertEquals(2, store.size());
+        Assertions.assertEquals("A", store.get(key("a")).orElseThrow().getScenarioSummary());
+        Assertions.assertEquals("B", store.get(key("b")).orElseThrow().getScenarioSummary());
+    }
+
+    @Test
+    void testPut_LatestRecordWins() throws Exception {
+        store = open(16);
+        store.put(key("a"), response("first"));
+        store.put(key("a"), response("second"));
+
+        Assertions.assertEquals(1, store.size());
+        Assertions.assertEquals("second", store.get(key("a")).orElseThrow().getScenarioSummary());
+    }
+
+    @Test
+    void testPut_GrowsIndexBeyondInitialSlots() throws Exception {
+        store = open(16);
+        for (int i = 0; i < 100; i++) {
+            store.put(key("k" + i), response("S" + i));
+        }
+
+        Assertions.assertEquals(100, store.size());
+        for (int i = 0; i < 100; i++) {
+            Assertions.assertEquals("S" + i, store.get(key("k" + i)).orElseThrow().getScenarioSummary());
+        }
+    }
+
+    @Test
+    void testOpen_RebuildsIndexAndDropsTornRecord() throws Exception {
+        store = open(16);
+        store.put(key("a"), response("A"));
+        store.put(key("b"), response("B"));
+        store.close();
+        store = null;
+
+        // Simulate a crash halfway through appending the second record.
+        Path log = directory.resolve(AnalysisStore.LOG_FILE);
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 5);
+        }
+        Files.delete(directory.resolve(AnalysisStore.INDEX_FILE));
+
+        store = open(16);
+
+        Assertions.assertEquals(1, store.size());
+        Assertions.assertEquals("A", store.get(key("a")).orElseThrow().getScenarioSummary());
+        Assertions.assertTrue(store.get(key("b")).isEmpty());
+    }
+
+    @Test
+    void testCompact_RemovesSupersededAndExpiredRecords() throws Exception {
+        store = open(16);
+        store.put(key("old"), response("old"));
+        clock.set(Duration.ofHours(2).toMillis());
+        store.put(key("a"), response("first"));
+        store.put(key("a"), response("second"));
+        long before = Files.size(directory.resolve(AnalysisStore.LOG_FILE));
+
+        store.compact();
+
+        Assertions.assertTrue(Files.size(directory.resolve(AnalysisStore.LOG_FILE)) < before);
+        Assertions.assertEquals(1, store.size());
+        Assertions.assertTrue(store.get(key("old")).isEmpty());
+        Assertions.assertEquals("second", store.get(key("a")).orElseThrow().getScenarioSummary());
+    }
+
+    @Test
+    void testPut_CompactsOnceExpiredRecordsFillHalfTheLog() throws Exception {
+        store = open(1024);
+        String large = "x".repeat(4_096);
+        for (int i = 0; i < 300; i++) {
+            store.put(key("k" + i), response(large + i));
+        }
+        long before = Files.size(directory.resolve(AnalysisStore.LOG_FILE));
+
+        // The expired records are counted by the next write after the scan interval.
+        clock.set(Duration.ofHours(2).toMillis());
+        store.put(key("fresh"), response("fresh"));
+
+        Assertions.assertTrue(Files.size(directory.resolve(AnalysisStore.LOG_FILE)) < before / 10);
+        Assertions.assertEquals(1, store.size());
+        Assertions.assertEquals("fresh", store.get(key("fresh")).orElseThrow().getScenarioSummary());
+    }
+
+    @Test
+    void testCompact_KeepsRecordsAfterReopen() throws Exception {
+        store = open(16);
+        store.put(key("a"), response("first"));
+        store.put(key("a"), response("second"));
+        store.put(key("b"), response("B"));
+        store.compact();
+        store.put(key("c"), response("C"));
+        store.close();
+
+        store = open(16);
+
+        Assertions.assertEquals(3, store.size());
+        Assertions.assertEquals("second", store.get(key("a")).orElseThrow().getScenarioSummary());
+        Assertions.assertEquals("C", store.get(key("c")).orElseThrow().getScenarioSummary());
+    }
+
+    @Test
+    void testDisabledStore_IsNoOp() throws Exception {
+        store = new AnalysisStore(false, directory, Duration.ofHours(1), 16, new ObjectMapper(), clock::get, Runnable::run);
+        store.open();
+        store.put(key("a"), response("A"));
+
+        Assertions.assertTrue(store.get(key("a")).isEmpty());
+        Assertions.assertFalse(Files.exists(directory.resolve(AnalysisStore.LOG_FILE)));
+    }
+
+    private AnalysisStore open(int slots) throws Exception {
+        AnalysisStore opened = new AnalysisStore(true, directory, Duration.ofHours(1), slots, new ObjectMapper(), clock::get, Runnable::run);
+        opened.open();
+        return opened;
+    }
+
+    private static String key(String text) {
+        return AnalysisCache.key(text);
+    }
+
+    private static ScenarioAnalysisResponse response(String summary) {
+        return new ScenarioAnalysisResponse(summary, List.of(summary + " risk"), List.of(), List.of(), "Disclaimer");
+    }
+}
@@ -0,0 +1,84 @@
+package com.app.prompt_engg.services;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.app.prompt_engg.exceptions.InvalidScenarioException;
+import com.app.prompt_engg.models.BatchAnalysisResult;
+import com.app.prompt_engg.models.ScenarioAnalysisRequest;
+import com.app.prompt_engg.models.ScenarioAnalysisResponse;
+
+class BatchAnalysisServiceTest {
+
+    private final AiService aiService = mock(AiService.class);
+
+    private final BatchAnalysisService service = new BatchAnalysisService();
+
+    @BeforeEach
+    void setup() {
+        ReflectionTestUtils.setField(service, "aiService", aiService);
+        ReflectionTestUtils.setField(service, "maxSize", 10);
+        ReflectionTestUtils.setField(service, "maxConcurrency", 2);
+
+        when(aiService.cacheKey(any(ScenarioAnalysisRequest.class)))
+                .thenAnswer(invocation -> invocation.<ScenarioAnalysisRequest>getArgument(0).getScenario());
+        when(aiService.generateAnalysisAsync(any(ScenarioAnalysisRequest.class))).thenAnswer(invocation -> {
+            ScenarioAnalysisRequest request = invocation.getArgument(0);
+            if (request.getScenario().equals("bad")) {
+                throw new InvalidScenarioException("Unable to process request, not a valid scenario");
+            }
+            ScenarioAnalysisResponse response = new ScenarioAnalysisResponse();
+            response.setScenarioSummary("Summary of " + request.getScenario());
+            return CompletableFuture.completedFuture(response);
+        });
+    }
+
+    @Test
+    void testAnalyseBatch_ResultsInInputOrderWithPerItemErrors() {
+        List<BatchAnalysisResult> results = service.analyseBatch(
+                List.of(request("one"), request("bad"), request("two"))).join();
+
+        Assertions.assertEquals(3, results.size());
+        Assertions.assertEquals("Summary of one", results.get(0).getResponse().getScenarioSummary());
+        Assertions.assertFalse(results.get(1).isSuccess());
+        Assertions.assertEquals("Unable to process request, not a valid scenario", results.get(1).getError());
+        Assertions.assertEquals("Summary of two", results.get(2).getResponse().getScenarioSummary());
+        Assertions.assertEquals(2, results.get(2).getIndex());
+    }
+
+    @Test
+    void testAnalyseBatch_IdenticalPromptsAnalysedOnce() {
+        List<BatchAnalysisResult> results = service.analyseBatch(
+                List.of(request("one"), request("one"), request("one"))).join();
+
+        Assertions.assertEquals(3, results.size());
+        Assertions.assertTrue(results.stream().allMatch(BatchAnalysisResult::isSuccess));
+        verify(aiService, times(1)).generateAnalysisAsync(any(ScenarioAnalysisRequest.class));
+    }
+
+    @Test
+    void testAnalyseBatch_RejectsOversizedBatch() {
+        List<ScenarioAnalysisRequest> requests = Collections.nCopies(11, request("one"));
+
+        Assertions.assertThrows(InvalidScenarioException.class, () -> service.analyseBatch(requests));
+    }
+
+    private static ScenarioAnalysisRequest request(String scenario) {
+        ScenarioAnalysisRequest request = new ScenarioAnalysisRequest();
+        request.setScenario(scenario);
+        request.setConstraints(List.of("constraint1"));
+        return request;
+    }
+}
@@ -0,0 +1,91 @@
+package com.app.prompt_engg.services;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class CancellationTest {
+
+    @Test
+    void testOnCancel_RunsOnlyOnCancellation() {
+        AtomicBoolean ran = new AtomicBoolean();
+        CompletableFuture<String> completed = Cancellation.onCancel(new CompletableFuture<>(), () -> ran.set(true));
+        completed.complete("done");
+        Assertions.assertFalse(ran.get());
+
+        CompletableFuture<String> failed = Cancellation.onCancel(new CompletableFuture<>(), () -> ran.set(true));
+        failed.completeExceptionally(new IllegalStateException("failed"));
+        Assertions.assertFalse(ran.get());
+
+        CompletableFuture<String> cancelled = Cancellation.onCancel(new CompletableFuture<>(), () -> ran.set(true));
+        cancelled.cancel(false);
+        Assertions.assertTrue(ran.get());
+    }
+
+    @Test
+    void testPropagate_CancelsSource() {
+        CompletableFuture<String> source = new CompletableFuture<>();
+        CompletableFuture<Integer> dependent = Cancellation.propagate(source.thenApply(String::length), source);
+
+        dependent.cancel(false);
+
+        Assertions.assertTrue(source.isCancelled());
+    }
+
+    @Test
+    void testThenCompose_CancelsFirstStageBeforeItCompletes() {
+        CompletableFuture<String> first = new CompletableFuture<>();
+        AtomicBoolean started = new AtomicBoolean();
+        CompletableFuture<Integer> result = Cancellation.thenCompose(first, value -> {
+            started.set(true);
+            return new CompletableFuture<>();
+        });
+
+        result.cancel(false);
+
+        Assertions.assertTrue(first.isCancelled());
+        Assertions.assertFalse(started.get());
+    }
+
+    @Test
+    void testThenCompose_CancelsStartedSecondStage() {
+        CompletableFuture<String> first = new CompletableFuture<>();
+        CompletableFuture<Integer> second = new CompletableFuture<>();
+        CompletableFuture<Integer> result = Cancellation.thenCompose(first, value -> second);
+        first.complete("value");
+
+        result.cancel(false);
+
+        Assertions.assertTrue(second.isCancelled());
+    }
+
+    @Test
+    void testThenCompose_CancelsSecondStageStartedWhileCancelling() {
+        CompletableFuture<String> first = new CompletableFuture<>();
+        CompletableFuture<Integer> second = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<Integer>> result = new AtomicReference<>();
+        result.set(Cancellation.thenCompose(first, value -> {
+            // The caller gives up while the second stage is being started.
+            result.get().cancel(false);
+            return second;
+        }));
+
+        first.complete("value");
+
+        Assertions.assertTrue(result.get().isCancelled());
+        Assertions.assertTrue(second.isCancelled());
+    }
+
+    @Test
+    void testThenCompose_CompletesWithSecondStage() {
+        CompletableFuture<String> first = new CompletableFuture<>();
+        CompletableFuture<Integer> result = Cancellation.thenCompose(first, value -> CompletableFuture.completedFuture(value.length()));
+
+        first.complete("value");
+
+        Assertions.assertEquals(Integer.valueOf(5), result.join());
+    }
+}
@@ -0,0 +1,122 @@
+package com.app.prompt_engg.services;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+
+    private static final long FAST = Duration.ofMillis(100).toNanos();
+    private static final long SLOW = Duration.ofSeconds(5).toNanos();
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final CircuitBreaker breaker = new CircuitBreaker(10, 4, 0.5, Duration.ofSeconds(1), 0.75,
+            Duration.ofSeconds(30), 2, clock::get);
+
+    private void advance(Duration duration) {
+        clock.addAndGet(duration.toNanos());
+    }
+
+    @Test
+    void testStaysClosedBelowMinimumCalls() {
+        for (int i = 0; i < 3; i++) {
+            breaker.onFailure(FAST);
+        }
+
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        Assertions.assertTrue(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void testOpensAtFailureRateThreshold() {
+        breaker.onSuccess(FAST);
+        breaker.onSuccess(FAST);
+        breaker.onFailure(FAST);
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        breaker.onFailure(FAST);
+
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        Assertions.assertTrue(breaker.isOpen());
+        Assertions.assertFalse(breaker.tryAcquirePermission());
+        Assertions.assertEquals(1, breaker.getRejected());
+    }
+
+    @Test
+    void testOpensAtSlowCallRateThreshold() {
+        breaker.onSuccess(FAST);
+        for (int i = 0; i < 3; i++) {
+            breaker.onSuccess(SLOW);
+        }
+
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void testWindowSlidesOverOldOutcomes() {
+        breaker.onFailure(FAST);
+        for (int i = 0; i < 9; i++) {
+            breaker.onSuccess(FAST);
+        }
+
+        // The oldest failure and two successes leave the window.
+        for (int i = 0; i < 3; i++) {
+            breaker.onFailure(FAST);
+        }
+
+        Assertions.assertEquals(10, breaker.getBufferedCalls());
+        Assertions.assertEquals(0.3, breaker.getFailureRate());
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void testHalfOpenClosesAfterSuccessfulProbes() {
+        openBreaker();
+        advance(Duration.ofSeconds(30));
+
+        Assertions.assertTrue(breaker.tryAcquirePermission());
+        Assertions.assertTrue(breaker.tryAcquirePermission());
+        Assertions.assertFalse(breaker.tryAcquirePermission());
+        Assertions.assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        breaker.onSuccess(FAST);
+        breaker.onSuccess(FAST);
+
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        Assertions.assertEquals(0, breaker.getBufferedCalls());
+    }
+
+    @Test
+    void testHalfOpenReopensOnSlowProbe() {
+        openBreaker();
+        advance(Duration.ofSeconds(30));
+        Assertions.assertTrue(breaker.tryAcquirePermission());
+
+        breaker.onSuccess(SLOW);
+
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        Assertions.assertFalse(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void testIgnoredProbeFreesItsSlot() {
+        openBreaker();
+        advance(Duration.ofSeconds(30));
+        Assertions.assertTrue(breaker.tryAcquirePermission());
+        Assertions.assertTrue(breaker.tryAcquirePermission());
+
+        breaker.onIgnored();
+
+        Assertions.assertTrue(breaker.tryAcquirePermission());
+    }
+
+    private void openBreaker() {
+        for (int i = 0; i < 4; i++) {
+            breaker.onFailure(FAST);
+        }
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+}
@@ -0,0 +1,173 @@
+package com.app.prompt_engg.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.app.prompt_engg.models.ScenarioAnalysisResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+
+class ClusterCacheTest {
+
+    private static final List<String> PEERS = List.of("http://node-a:8080", "http://node-b:8080", "http://node-c:8080");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<String, String> served = new HashMap<>();
+
+    private HttpServer server;
+
+    private String serverUrl;
+
+    @BeforeEach
+    void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/internal/cache/", exchange -> {
+            String key = exchange.getRequestURI().getPath().substring("/internal/cache/".length());
+            String body = served.get(key);
+            if (!"secret".equals(exchange.getRequestHeaders().getFirst(ClusterCache.TOKEN_HEADER))) {
+                exchange.sendResponseHeaders(403, -1);
+            } else if (body == null) {
+                exchange.sendResponseHeaders(404, -1);
+            } else {
+                byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, bytes.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+        serverUrl = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void teardown() {
+        server.stop(0);
+    }
+
+    private ClusterCache cluster(String self, List<String> peers) {
+        return new ClusterCache(true, self, peers, 128, Duration.ofSeconds(2), "secret", objectMapper);
+    }
+
+    private static List<String> keys(int count) {
+        return IntStream.range(0, count).mapToObj(i -> AnalysisCache.key("prompt " + i)).toList();
+    }
+
+    @Test
+    void testOwner_SpreadsKeysEvenly() {
+        ClusterCache cluster = cluster(PEERS.get(0), PEERS);
+        Map<String, Integer> owned = new HashMap<>();
+
+        keys(3_000).forEach(key -> owned.merge(cluster.owner(key), 1, Integer::sum));
+
+        Assertions.assertEquals(3, owned.size());
+        owned.values().forEach(count -> Assertions.assertTrue(count > 700 && count < 1_300, "Uneven share: " + owned));
+    }
+
+    @Test
+    void testOwner_RemovingPeerOnlyMovesItsKeys() {
+        ClusterCache full = cluster(PEERS.get(0), PEERS);
+        ClusterCache reduced = cluster(PEERS.get(0), PEERS.subList(0, 2));
+
+        for (String key : keys(1_000)) {
+            String owner = full.owner(key);
+            if (!owner.equals(PEERS.get(2))) {
+                Assertions.assertEquals(owner, reduced.owner(key));
+            }
+        }
+    }
+
+    @Test
+    void testOwner_AgreesAcrossReplicas() {
+        ClusterCache a = cluster(PEERS.get(0), PEERS);
+        ClusterCache b = cluster(PEERS.get(1) + "/", List.of(PEERS.get(2), PEERS.get(1), PEERS.get(0)));
+
+        for (String key : keys(200)) {
+            Assertions.assertEquals(a.owner(key), b.owner(key));
+            Assertions.assertNotEquals(a.isRemote(key), a.owner(key).equals(PEERS.get(0)));
+        }
+    }
+
+    @Test
+    void testConstructor_RejectsSelfOutsidePeers() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> cluster("http://elsewhere:8080", PEERS));
+    }
+
+    @Test
+    void testConstructor_RejectsBlankTokenWhenEnabled() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new ClusterCache(true, PEERS.get(0), PEERS, 128, Duration.ofSeconds(1), " ", objectMapper));
+    }
+
+    @Test
+    void testIsAuthorized_RequiresTheToken() {
+        ClusterCache cluster = cluster(PEERS.get(0), PEERS);
+
+        Assertions.assertTrue(cluster.isAuthorized("secret"));
+        Assertions.assertFalse(cluster.isAuthorized("wrong"));
+        Assertions.assertFalse(cluster.isAuthorized(null));
+    }
+
+    @Test
+    void testIsOwned_OnlyKeysOwnedBySelf() {
+        ClusterCache cluster = cluster(PEERS.get(0), PEERS);
+
+        for (String key : keys(200)) {
+            Assertions.assertEquals(cluster.owner(key).equals(PEERS.get(0)), cluster.isOwned(key));
+            Assertions.assertNotEquals(cluster.isRemote(key), cluster.isOwned(key));
+        }
+    }
+
+    @Test
+    void testDisabled_NothingIsRemote() {
+        ClusterCache cluster = new ClusterCache(false, "", List.of(), 128, Duration.ofSeconds(1), "", objectMapper);
+
+        Assertions.assertFalse(cluster.isEnabled());
+        Assertions.assertFalse(cluster.isRemote(AnalysisCache.key("prompt")));
+        Assertions.assertFalse(cluster.isOwned(AnalysisCache.key("prompt")));
+        Assertions.assertFalse(cluster.isAuthorized(""));
+    }
+
+    @Test
+    void testFetch_HitAndMissFromOwner() throws Exception {
+        ClusterCache cluster = cluster("http://localhost:1", List.of("http://localhost:1", serverUrl));
+        String remoteKey = keys(100).stream().filter(cluster::isRemote).findFirst().orElseThrow();
+        String missingKey = keys(100).stream().filter(cluster::isRemote).skip(1).findFirst().orElseThrow();
+        ScenarioAnalysisResponse analysis = new ScenarioAnalysisResponse();
+        analysis.setScenarioSummary("Shared summary");
+        served.put(remoteKey, objectMapper.writeValueAsString(analysis));
+
+        Optional<ScenarioAnalysisResponse> hit = cluster.fetch(remoteKey).join();
+        Optional<ScenarioAnalysisResponse> miss = cluster.fetch(missingKey).join();
+
+        Assertions.assertEquals("Shared summary", hit.orElseThrow().getScenarioSummary());
+        Assertions.assertTrue(miss.isEmpty());
+        Assertions.assertEquals(1, cluster.getHits());
+        Assertions.assertEquals(1, cluster.getMisses());
+    }
+
+    @Test
+    void testFetch_UnreachableOwnerIsAMiss() {
+        server.stop(0);
+        ClusterCache cluster = cluster("http://localhost:1", List.of("http://localhost:1", serverUrl));
+        String remoteKey = keys(100).stream().filter(cluster::isRemote).findFirst().orElseThrow();
+
+        Assertions.assertTrue(cluster.fetch(remoteKey).join().isEmpty());
+        Assertions.assertEquals(1, cluster.getErrors());
+    }
+}
@@ -0,0 +1,61 @@
+package com.app.prompt_engg.services;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class IncrementalAnalysisParserTest {
+
+    private final List<String> events = new ArrayList<>();
+
+    private final IncrementalAnalysisParser parser = new IncrementalAnalysisParser(new IncrementalAnalysisParser.Listener() {
+        @Override
+        public void onValue(String section, String value) {
+            events.add(section + "=" + value);
+        }
+
+        @Override
+        public void onItem(String section, String item) {
+            events.add(section + "[]=" + item);
+        }
+    });
+
+    @Test
+    void testFeed_EmitsSectionsAsTheyComplete() {
+        parser.feed("```json\n{\"short_summary\": \"A sum");
+        Assertions.assertTrue(events.isEmpty());
+
+        parser.feed("mary\", \"pitfalls_or_risks\": [\"risk1\", \"ri");
+        Assertions.assertEquals(List.of("summary=A summary", "pitfalls_or_risks[]=risk1"), events);
+
+        parser.feed("sk2\"], \"disclaimer\": \"Be careful\"}\n```");
+        Assertions.assertEquals(List.of(
+                "summary=A summary",
+                "pitfalls_or_risks[]=risk1",
+                "pitfalls_or_risks[]=risk2",
+                "disclaimer=Be careful"), events);
+        Assertions.assertTrue(parser.isComplete());
+    }
+
+    @Test
+    void testFeed_DecodesEscapesSplitAcrossChunks() {
+        parser.feed("{\"summary\": \"say \\");
+        parser.feed("\"hi\\\" \\u00");
+        parser.feed("e9\\n\"}");
+
+        Assertions.assertEquals(List.of("summary=say \"hi\" \u00e9\n"), events);
+    }
+
+    @Test
+    void testFeed_NonStringValuesAreEmittedVerbatim() {
+        parser.feed("{\"proposed_strategies\": [{\"name\": \"a, b\"}, 3], \"disclaimer\": null}");
+
+        Assertions.assertEquals(List.of(
+                "proposed_strategies[]={\"name\": \"a, b\"}",
+                "proposed_strategies[]=3",
+                "disclaimer=null"), events);
+        Assertions.assertTrue(parser.isComplete());
+    }
+}
@@ -0,0 +1,47 @@
+package com.app.prompt_engg.services;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.app.prompt_engg.models.ScenarioAnalysisRequest;
+
+class ModelRouterTest {
+
+    private final ModelRouter router = new ModelRouter("gpt-4o", "", List.of(
+            new ModelRouter.Rule("gpt-4o-mini", 100, 3, null),
+            new ModelRouter.Rule("template-model", null, null, "short")));
+
+    private static ScenarioAnalysisRequest request(String scenario, int constraints, String template) {
+        ScenarioAnalysisRequest request = new ScenarioAnalysisRequest();
+        request.setScenario(scenario);
+        request.setConstraints(Collections.nCopies(constraints, "constraint"));
+        request.setTemplate(template);
+        return request;
+    }
+
+    @Test
+    void testRoute_SmallRequestGoesToFirstMatchingRule() {
+        Assertions.assertEquals("gpt-4o-mini", router.route(request("Short scenario", 3, "short")).model());
+    }
+
+    @Test
+    void testRoute_LaterRuleMatchesWhenEarlierLimitsAreExceeded() {
+        Assertions.assertEquals("template-model", router.route(request("Short scenario", 4, "short")).model());
+    }
+
+    @Test
+    void testRoute_FallsBackToDefaultModel() {
+        Assertions.assertEquals("gpt-4o", router.route(request("x".repeat(101), 1, null)).model());
+    }
+
+    @Test
+    void testRoute_HedgesToSameModelUnlessConfigured() {
+        Assertions.assertEquals("gpt-4o", router.route(request("x".repeat(101), 1, null)).hedgeModel());
+
+        ModelRouter hedging = new ModelRouter("gpt-4o", "gpt-4.1", List.of());
+        Assertions.assertEquals("gpt-4.1", hedging.route(request("Short scenario", 1, null)).hedgeModel());
+    }
+}
@@ -0,0 +1,31 @@
+package com.app.prompt_engg.services;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class PromptTemplateTest {
+
+    @Test
+    void testRender_ReplacesAllPlaceholders() {
+        PromptTemplate template = PromptTemplate.parse("t", "Scenario: [scenarios]\nConstraints: [constraints]\nAgain: [scenarios]");
+
+        Assertions.assertEquals("Scenario: s\nConstraints: a, b\nAgain: s", template.render("s", List.of("a", "b")));
+    }
+
+    @Test
+    void testRender_DoesNotExpandPlaceholdersInUserText() {
+        PromptTemplate template = PromptTemplate.parse("t", "S: [scenarios] C: [constraints]");
+
+        Assertions.assertEquals("S: see [constraints] C: [scenarios]",
+                template.render("see [constraints]", List.of("[scenarios]")));
+    }
+
+    @Test
+    void testRender_TemplateWithoutPlaceholders() {
+        PromptTemplate template = PromptTemplate.parse("t", "static prompt");
+
+        Assertions.assertEquals("static prompt", template.render("s", List.of()));
+    }
+}
@@ -0,0 +1,178 @@
+package com.app.prompt_engg.services;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.app.prompt_engg.exceptions.TooManyRequestsException;
+import com.app.prompt_engg.exceptions.UpstreamUnavailableException;
+
+class RateLimitGovernorTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    /**
+     * Creates a governor whose queues are only drained by explicit dispatch calls.
+     */
+    private RateLimitGovernor governor(long requestsPerMinute, long tokensPerMinute, int maxQueue) {
+        RateLimitGovernor governor = new RateLimitGovernor(requestsPerMinute, tokensPerMinute, maxQueue, maxQueue,
+                Duration.ofSeconds(10), 100, clock::get);
+        governor.shutdown();
+        return governor;
+    }
+
+    private void advance(Duration duration) {
+        clock.addAndGet(duration.toNanos());
+    }
+
+    @Test
+    void testAcquire_AdmitsImmediatelyWithinBudget() {
+        RateLimitGovernor governor = governor(60, 10_000, 10);
+
+        Assertions.assertTrue(governor.acquire("a", 100).isDone());
+        Assertions.assertEquals(0, governor.getQueued());
+    }
+
+    @Test
+    void testAcquire_QueuesUntilRequestBudgetRefills() {
+        RateLimitGovernor governor = governor(60, 10_000, 10);
+        for (int i = 0; i < 60; i++) {
+            governor.acquire("a", 10);
+        }
+
+        CompletableFuture<Void> queued = governor.acquire("a", 10);
+        Assertions.assertFalse(queued.isDone());
+
+        advance(Duration.ofMillis(500));
+        governor.dispatch();
+        Assertions.assertFalse(queued.isDone());
+
+        advance(Duration.ofMillis(500));
+        governor.dispatch();
+        Assertions.assertTrue(queued.isDone());
+    }
+
+    @Test
+    void testAcquire_QueuesUntilTokenBudgetRefills() {
+        RateLimitGovernor governor = governor(1000, 6_000, 10);
+        governor.acquire("a", 6_000);
+
+        CompletableFuture<Void> queued = governor.acquire("a", 1_000);
+        advance(Duration.ofSeconds(9));
+        governor.dispatch();
+        Assertions.assertFalse(queued.isDone());
+
+        advance(Duration.ofSeconds(1));
+        governor.dispatch();
+        Assertions.assertTrue(queued.isDone());
+    }
+
+    @Test
+    void testDispatch_ServesClientsRoundRobin() {
+        RateLimitGovernor governor = governor(60, 10_000, 10);
+        for (int i = 0; i < 60; i++) {
+            governor.acquire("busy", 10);
+        }
+        CompletableFuture<Void> busy1 = governor.acquire("busy", 10);
+        CompletableFuture<Void> busy2 = governor.acquire("busy", 10);
+        CompletableFuture<Void> quiet = governor.acquire("quiet", 10);
+
+        advance(Duration.ofSeconds(2));
+        governor.dispatch();
+
+        // Two requests of budget: one per client, so the quiet client overtakes the busy one's backlog.
+        Assertions.assertTrue(busy1.isDone());
+        Assertions.assertTrue(quiet.isDone());
+        Assertions.assertFalse(busy2.isDone());
+    }
+
+    @Test
+    void testAcquire_ShedsWhenClientQueueIsFull() {
+        RateLimitGovernor governor = governor(1, 10_000, 1);
+        governor.acquire("a", 10);
+        governor.acquire("a", 10);
+
+        TooManyRequestsException rejection = Assertions.assertThrows(TooManyRequestsException.class,
+                () -> governor.acquire("a", 10));
+        Assertions.assertTrue(rejection.getRetryAfterSeconds() >= 1);
+        Assertions.assertEquals(1, governor.getShed());
+    }
+
+    @Test
+    void testDispatch_ExpiresCallsThatWaitTooLong() {
+        RateLimitGovernor governor = governor(1, 10_000, 10);
+        governor.acquire("a", 10);
+        CompletableFuture<Void> queued = governor.acquire("a", 10);
+
+        advance(Duration.ofSeconds(11));
+        governor.dispatch();
+
+        ExecutionException failure = Assertions.assertThrows(ExecutionException.class, queued::get);
+        Assertions.assertInstanceOf(UpstreamUnavailableException.class, failure.getCause());
+        Assertions.assertEquals(0, governor.getQueued());
+    }
+
+    @Test
+    void testDispatch_DropsCancelledCallsWithoutSheddingThem() {
+        RateLimitGovernor governor = governor(1, 10_000, 10);
+        governor.acquire("a", 10);
+        CompletableFuture<Void> cancelled = governor.acquire("a", 10);
+        CompletableFuture<Void> queued = governor.acquire("a", 10);
+
+        cancelled.cancel(true);
+        advance(Duration.ofSeconds(1));
+        governor.dispatch();
+
+        Assertions.assertEquals(1, governor.getQueued());
+        Assertions.assertEquals(0, governor.getShed());
+        Assertions.assertFalse(queued.isDone());
+    }
+
+    @Test
+    void testOnRateLimited_PausesAndHalvesRate() {
+        RateLimitGovernor governor = governor(60, 10_000, 10);
+
+        Duration retryAfter = governor.onRateLimited(Map.of("x-ratelimit-reset-requests", "2s")::get);
+        CompletableFuture<Void> queued = governor.acquire("a", 10);
+
+        Assertions.assertEquals(Duration.ofSeconds(2), retryAfter);
+        Assertions.assertEquals(0.5, governor.getRateFactor());
+        advance(Duration.ofMillis(1_900));
+        governor.dispatch();
+        Assertions.assertFalse(queued.isDone());
+
+        advance(Duration.ofMillis(200));
+        governor.dispatch();
+        Assertions.assertTrue(queued.isDone());
+    }
+
+    @Test
+    void testOnResponse_CapsBudgetToRemainingCapacity() {
+        RateLimitGovernor governor = governor(60, 10_000, 10);
+
+        governor.onResponse(Map.of("x-ratelimit-remaining-requests", "0")::get);
+
+        Assertions.assertFalse(governor.acquire("a", 10).isDone());
+    }
+
+    @Test
+    void testRetryAfter_ReadsHeaders() {
+        Assertions.assertEquals(Duration.ofMillis(250), RateLimitGovernor.retryAfter(Map.of("retry-after-ms", "250")::get));
+        Assertions.assertEquals(Duration.ofSeconds(3), RateLimitGovernor.retryAfter(Map.of("retry-after", "3")::get));
+        Assertions.assertEquals(Duration.ofSeconds(360), RateLimitGovernor.retryAfter(
+                Map.of("x-ratelimit-reset-requests", "20ms", "x-ratelimit-reset-tokens", "6m0s")::get));
+        Assertions.assertEquals(Duration.ofSeconds(1), RateLimitGovernor.retryAfter(Map.<String, String>of()::get));
+    }
+
+    @Test
+    void testParseDuration_SupportsFractionalSeconds() {
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(1_500),
+                RateLimitGovernor.parseDuration("1.5s").toNanos());
+    }
+}
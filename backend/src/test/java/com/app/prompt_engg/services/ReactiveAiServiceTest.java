@@ -0,0 +1,209 @@
+package com.app.prompt_engg.services;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.app.prompt_engg.exceptions.InvalidScenarioException;
+import com.app.prompt_engg.exceptions.UpstreamUnavailableException;
+import com.app.prompt_engg.models.ScenarioAnalysisRequest;
+import com.app.prompt_engg.models.ScenarioAnalysisResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import reactor.core.publisher.Mono;
+
+class ReactiveAiServiceTest {
+
+    private static final String OUTPUT = "{\"summary\":\"Reactive summary\",\"pitfalls_or_risks\":[\"Risk\"],"
+            + "\"proposed_strategies\":[\"Strategy\"],\"recommended_resources\":[\"Resource\"],\"disclaimer\":\"AI\"}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private ReactiveAiService service;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+    private ClientResponse upstreamResponse;
+
+    @BeforeEach
+    void setup() {
+        service = new ReactiveAiService();
+        meterRegistry = new SimpleMeterRegistry();
+        AnalysisMetrics metrics = new AnalysisMetrics(meterRegistry, ObservationRegistry.NOOP);
+        ReflectionTestUtils.setField(service, "webClient", WebClient.builder()
+                .exchangeFunction(request -> {
+                    upstreamCalls.incrementAndGet();
+                    return Mono.just(upstreamResponse);
+                })
+                .build());
+        ReflectionTestUtils.setField(service, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(service, "metrics", metrics);
+        PromptTemplates templates = new PromptTemplates("Scenario: [scenarios] Constraints: [constraints]", Map.of());
+        ReflectionTestUtils.setField(service, "templates", templates);
+        ReflectionTestUtils.setField(service, "admission", new AdmissionControl(templates, 2_000, 5, 100, 1_000, false, "o200k_base"));
+        ReflectionTestUtils.setField(service, "cache", new AnalysisCache(100, Duration.ofMinutes(5)));
+        ReflectionTestUtils.setField(service, "store", new AnalysisStore(false, Path.of("unused"), Duration.ofDays(1), 16, objectMapper));
+        ReflectionTestUtils.setField(service, "inFlightLimiter", new InFlightLimiter(10));
+        ReflectionTestUtils.setField(service, "router", new ModelRouter("model", "", List.of()));
+        ReflectionTestUtils.setField(service, "hedger", new RequestHedger(false, 0.95, Duration.ofSeconds(1), 20, metrics));
+        ReflectionTestUtils.setField(service, "governor", new RateLimitGovernor(1000, 1_000_000, 10, 10, Duration.ofSeconds(1), 100));
+        ReflectionTestUtils.setField(service, "breaker", new CircuitBreaker(10, 2, 0.5, Duration.ofSeconds(20), 0.8, Duration.ofMinutes(1), 1));
+        ReflectionTestUtils.setField(service, "singleFlight", new SingleFlight());
+        ReflectionTestUtils.setField(service, "cluster", new ClusterCache(false, "", List.of(), 128, Duration.ofMillis(500), "", new ObjectMapper()));
+        ReflectionTestUtils.setField(service, "analysisExecutor", (Executor) Runnable::run);
+    }
+
+    private static ScenarioAnalysisRequest request(String scenario) {
+        ScenarioAnalysisRequest request = new ScenarioAnalysisRequest();
+        request.setScenario(scenario);
+        request.setConstraints(List.of("constraint1"));
+        return request;
+    }
+
+    private static String responseBody(String text) throws Exception {
+        return "{\"id\":\"resp_1\",\"output\":[{\"type\":\"message\",\"content\":[{\"type\":\"output_text\",\"text\":"
+                + new ObjectMapper().writeValueAsString(text) + "}]}],\"usage\":{\"input_tokens\":120,\"output_tokens\":80}}";
+    }
+
+    @Test
+    void testAnalyse_ParsesResponsesApiOutput() throws Exception {
+        upstreamResponse = ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(responseBody(OUTPUT))
+                .build();
+
+        ScenarioAnalysisResponse response = service.analyse(request("A valid scenario")).block();
+
+        Assertions.assertEquals("Reactive summary", response.getScenarioSummary());
+        Assertions.assertEquals(List.of("Risk"), response.getPotentialPitfalls());
+        Assertions.assertEquals(1, upstreamCalls.get());
+        Assertions.assertEquals(120, meterRegistry.find("analysis.upstream.tokens").tag("type", "input").summary().totalAmount());
+    }
+
+    @Test
+    void testAnalyse_LooksUpStoreOffTheEventLoop() throws Exception {
+        AtomicReference<String> lookupThread = new AtomicReference<>();
+        ReflectionTestUtils.setField(service, "store", new AnalysisStore(false, Path.of("unused"), Duration.ofDays(1), 16, objectMapper) {
+            @Override
+            public Optional<ScenarioAnalysisResponse> get(String key) {
+                lookupThread.set(Thread.currentThread().getName());
+                return Optional.empty();
+            }
+        });
+        upstreamResponse = ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(responseBody(OUTPUT))
+                .build();
+
+        service.analyse(request("A valid scenario")).block();
+
+        Assertions.assertTrue(lookupThread.get().startsWith("boundedElastic"), lookupThread.get());
+    }
+
+    @Test
+    void testAnalyse_FailsCleanlyOnEmptyResponseBody() {
+        upstreamResponse = ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .build();
+
+        InvalidScenarioException failure = Assertions.assertThrows(InvalidScenarioException.class,
+                () -> service.analyse(request("A valid scenario")).block());
+
+        Assertions.assertTrue(failure.getMessage().contains("Upstream response is empty"), failure.getMessage());
+    }
+
+    @Test
+    void testAnalyse_MapsUpstreamRateLimitToRetryAfter() {
+        upstreamResponse = ClientResponse.create(HttpStatus.TOO_MANY_REQUESTS)
+                .header("retry-after", "3")
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body("{\"error\":{\"message\":\"Rate limit reached\"}}")
+                .build();
+
+        UpstreamUnavailableException failure = Assertions.assertThrows(UpstreamUnavailableException.class,
+                () -> service.analyse(request("A valid scenario")).block());
+
+        Assertions.assertEquals(3, failure.getRetryAfterSeconds());
+        // A rejected request says nothing about the upstream's health.
+        Assertions.assertEquals(0, ((CircuitBreaker) ReflectionTestUtils.getField(service, "breaker")).getBufferedCalls());
+    }
+
+    @Test
+    void testAnalyseStream_EmitsSectionsThenComplete() throws Exception {
+        StringBuilder events = new StringBuilder();
+        for (int i = 0; i < OUTPUT.length(); i += 9) {
+            String delta = OUTPUT.substring(i, Math.min(i + 9, OUTPUT.length()));
+            events.append("event: response.output_text.delta\ndata: {\"type\":\"response.output_text.delta\",\"delta\":")
+                    .append(objectMapper.writeValueAsString(delta)).append("}\n\n");
+        }
+        events.append("event: response.completed\ndata: {\"type\":\"response.completed\",\"response\":")
+                .append(responseBody(OUTPUT)).append("}\n\n");
+        upstreamResponse = ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.TEXT_EVENT_STREAM_VALUE)
+                .body(events.toString())
+                .build();
+
+        List<ReactiveAiService.AnalysisEvent> received = service.analyseStream(request("A valid scenario")).collectList().block();
+
+        Assertions.assertEquals("summary", received.get(0).name());
+        Assertions.assertEquals(Map.of("value", "Reactive summary"), received.get(0).data());
+        ReactiveAiService.AnalysisEvent last = received.get(received.size() - 1);
+        Assertions.assertEquals("complete", last.name());
+        Assertions.assertEquals("Reactive summary", ((ScenarioAnalysisResponse) last.data()).getScenarioSummary());
+    }
+
+    @Test
+    void testAnalyseStream_FailsBeforeAnyEventForInvalidRequest() {
+        Assertions.assertThrows(InvalidScenarioException.class,
+                () -> service.analyseStream(request(" ")).collectList().block());
+        Assertions.assertEquals(0, upstreamCalls.get());
+    }
+
+    @Test
+    void testRequestBody_UsesStructuredOutputSchema() {
+        ReflectionTestUtils.setField(service, "structuredOutput", true);
+
+        Map<String, Object> body = service.requestBody("prompt", "gpt-4o-mini", true);
+
+        Assertions.assertEquals("gpt-4o-mini", body.get("model"));
+        Assertions.assertEquals(true, body.get("stream"));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> format = (Map<String, Object>) ((Map<String, Object>) body.get("text")).get("format");
+        Assertions.assertEquals("json_schema", format.get("type"));
+        Assertions.assertEquals(AiService.analysisSchema(), format.get("schema"));
+    }
+
+    @Test
+    void testSectionRequestBody_RestrictsSchemaAndCapsOutput() {
+        ReflectionTestUtils.setField(service, "structuredOutput", true);
+        ReflectionTestUtils.setField(service, "sectionMaxOutputTokens", 300L);
+
+        Map<String, Object> body = service.sectionRequestBody("prompt", "gpt-4o-mini", AnalysisSection.PITFALLS);
+
+        Assertions.assertEquals(300L, body.get("max_output_tokens"));
+        Assertions.assertNull(body.get("stream"));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> format = (Map<String, Object>) ((Map<String, Object>) body.get("text")).get("format");
+        Assertions.assertEquals("scenario_analysis_pitfalls", format.get("name"));
+        Assertions.assertEquals(AiService.analysisSchema(List.of("pitfalls_or_risks")), format.get("schema"));
+    }
+}
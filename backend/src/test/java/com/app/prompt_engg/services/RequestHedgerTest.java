@@ -0,0 +1,107 @@
+package com.app.prompt_engg.services;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+
+class RequestHedgerTest {
+
+    private static final ModelRouter.Route ROUTE = new ModelRouter.Route("primary", "hedge");
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final List<String> calls = new CopyOnWriteArrayList<>();
+
+    private final Map<String, CompletableFuture<String>> upstream = new ConcurrentHashMap<>();
+
+    private RequestHedger hedger(boolean enabled) {
+        return new RequestHedger(enabled, 0.95, Duration.ofMillis(50), 20,
+                new AnalysisMetrics(meterRegistry, ObservationRegistry.NOOP));
+    }
+
+    private CompletableFuture<String> call(String model) {
+        calls.add(model);
+        return upstream.computeIfAbsent(model, m -> new CompletableFuture<>());
+    }
+
+    @Test
+    void testExecute_FastPrimaryIsNotHedged() throws Exception {
+        upstream.put("primary", CompletableFuture.completedFuture("fast"));
+
+        String result = hedger(true).execute(ROUTE, this::call, () -> true).get(1, TimeUnit.SECONDS);
+
+        Thread.sleep(150);
+        Assertions.assertEquals("fast", result);
+        Assertions.assertEquals(List.of("primary"), calls);
+    }
+
+    @Test
+    void testExecute_SlowPrimaryIsHedgedAndHedgeWins() throws Exception {
+        upstream.put("hedge", CompletableFuture.completedFuture("hedged"));
+
+        String result = hedger(true).execute(ROUTE, this::call, () -> true).get(1, TimeUnit.SECONDS);
+
+        Assertions.assertEquals("hedged", result);
+        Assertions.assertEquals(List.of("primary", "hedge"), calls);
+        Assertions.assertEquals(1, meterRegistry.counter("analysis.upstream.hedges", "outcome", "won").count());
+    }
+
+    @Test
+    void testExecute_NoHedgeWithoutBudget() throws Exception {
+        CompletableFuture<String> result = hedger(true).execute(ROUTE, this::call, () -> false);
+
+        Thread.sleep(150);
+        upstream.get("primary").complete("slow");
+        Assertions.assertEquals("slow", result.get(1, TimeUnit.SECONDS));
+        Assertions.assertEquals(List.of("primary"), calls);
+    }
+
+    @Test
+    void testExecute_FailsOnlyWhenAllAttemptsFail() throws Exception {
+        CompletableFuture<String> result = hedger(true).execute(ROUTE, this::call, () -> true);
+        Thread.sleep(150);
+
+        upstream.get("primary").completeExceptionally(new IllegalStateException("primary failed"));
+        Assertions.assertFalse(result.isDone());
+
+        upstream.get("hedge").completeExceptionally(new IllegalStateException("hedge failed"));
+        ExecutionException failure = Assertions.assertThrows(ExecutionException.class, () -> result.get(1, TimeUnit.SECONDS));
+        Assertions.assertEquals("hedge failed", failure.getCause().getMessage());
+    }
+
+    @Test
+    void testExecute_DisabledPassesThrough() throws Exception {
+        CompletableFuture<String> result = hedger(false).execute(ROUTE, this::call, () -> true);
+
+        Thread.sleep(150);
+        upstream.get("primary").complete("slow");
+        Assertions.assertEquals("slow", result.get(1, TimeUnit.SECONDS));
+        Assertions.assertEquals(List.of("primary"), calls);
+    }
+
+    @Test
+    void testHedgeDelay_FollowsObservedPercentile() throws Exception {
+        RequestHedger hedger = hedger(false);
+        for (int i = 0; i < 20; i++) {
+            CompletableFuture<String> pending = new CompletableFuture<>();
+            CompletableFuture<String> timed = hedger.execute(ROUTE, model -> pending, () -> false);
+            Thread.sleep(i >= 18 ? 120 : 1);
+            pending.complete("done");
+            timed.get();
+        }
+
+        Assertions.assertTrue(hedger.hedgeDelayNanos("primary") >= TimeUnit.MILLISECONDS.toNanos(100));
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(50), hedger.hedgeDelayNanos("other"));
+    }
+}
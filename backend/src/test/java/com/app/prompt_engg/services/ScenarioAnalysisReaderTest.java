@@ -0,0 +1,54 @@
+package com.app.prompt_engg.services;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.app.prompt_engg.models.ScenarioAnalysisResponse;
+
+class ScenarioAnalysisReaderTest {
+
+    @Test
+    void testRead_StructuredOutput() throws IOException {
+        ScenarioAnalysisResponse response = ScenarioAnalysisReader.read("{"
+                + "\"summary\":\"Test summary\","
+                + "\"pitfalls_or_risks\":[\"risk1\",\"risk2\"],"
+                + "\"proposed_strategies\":[\"strategy1\"],"
+                + "\"recommended_resources\":[\"resource1\"],"
+                + "\"disclaimer\":\"Test disclaimer\"}");
+
+        Assertions.assertEquals("Test summary", response.getScenarioSummary());
+        Assertions.assertEquals(List.of("risk1", "risk2"), response.getPotentialPitfalls());
+        Assertions.assertEquals(List.of("strategy1"), response.getProposedStrategies());
+        Assertions.assertEquals(List.of("resource1"), response.getRecommendedResources());
+        Assertions.assertEquals("Test disclaimer", response.getDisclaimer());
+    }
+
+    @Test
+    void testRead_FencedOutputWithSummaryAlias() throws IOException {
+        ScenarioAnalysisResponse response = ScenarioAnalysisReader.read("Sure!\n```json\n{"
+                + "\"short\":\"Shortest\","
+                + "\"short_summary\":\"Short summary\","
+                + "\"extra\":{\"nested\":[1,2]},"
+                + "\"pitfalls_or_risks\":[\"risk1\",{\"ignored\":true}]}\n```");
+
+        Assertions.assertEquals("Short summary", response.getScenarioSummary());
+        Assertions.assertEquals(List.of("risk1"), response.getPotentialPitfalls());
+    }
+
+    @Test
+    void testRead_MissingSectionsAreTolerated() throws IOException {
+        ScenarioAnalysisResponse response = ScenarioAnalysisReader.read("{\"summary\":\"Only a summary\"}");
+
+        Assertions.assertEquals("Only a summary", response.getScenarioSummary());
+        Assertions.assertEquals(List.of(), response.getPotentialPitfalls());
+        Assertions.assertNull(response.getDisclaimer());
+    }
+
+    @Test
+    void testRead_NoJsonObject() {
+        Assertions.assertThrows(IOException.class, () -> ScenarioAnalysisReader.read("Invalid JSON Response"));
+    }
+}
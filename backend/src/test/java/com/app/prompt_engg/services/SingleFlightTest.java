@@ -0,0 +1,100 @@
+package com.app.prompt_engg.services;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.app.prompt_engg.models.ScenarioAnalysisResponse;
+
+class SingleFlightTest {
+
+    private final SingleFlight singleFlight = new SingleFlight();
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void testExecute_ConcurrentCallersShareOneUpstreamCall() {
+        CompletableFuture<ScenarioAnalysisResponse> upstream = new CompletableFuture<>();
+
+        CompletableFuture<ScenarioAnalysisResponse> first = singleFlight.execute("key", () -> call(upstream));
+        CompletableFuture<ScenarioAnalysisResponse> second = singleFlight.execute("key", () -> call(upstream));
+
+        ScenarioAnalysisResponse response = new ScenarioAnalysisResponse();
+        upstream.complete(response);
+
+        Assertions.assertSame(response, first.join());
+        Assertions.assertSame(response, second.join());
+        Assertions.assertEquals(1, calls.get());
+        Assertions.assertEquals(1, singleFlight.getCoalesced());
+        Assertions.assertEquals(0, singleFlight.getInFlight());
+    }
+
+    @Test
+    void testExecute_CompletedCallIsNotReused() {
+        singleFlight.execute("key", () -> call(CompletableFuture.completedFuture(new ScenarioAnalysisResponse()))).join();
+        singleFlight.execute("key", () -> call(CompletableFuture.completedFuture(new ScenarioAnalysisResponse()))).join();
+
+        Assertions.assertEquals(2, calls.get());
+    }
+
+    @Test
+    void testExecute_FailureIsSharedWithWaiters() {
+        CompletableFuture<ScenarioAnalysisResponse> upstream = new CompletableFuture<>();
+
+        CompletableFuture<ScenarioAnalysisResponse> first = singleFlight.execute("key", () -> call(upstream));
+        CompletableFuture<ScenarioAnalysisResponse> second = singleFlight.execute("key", () -> call(upstream));
+        upstream.completeExceptionally(new IllegalStateException("upstream failed"));
+
+        Assertions.assertTrue(first.isCompletedExceptionally());
+        Assertions.assertTrue(second.isCompletedExceptionally());
+        Assertions.assertEquals(0, singleFlight.getInFlight());
+    }
+
+    @Test
+    void testExecute_UpstreamCancelledOnceEveryCallerCancels() {
+        CompletableFuture<ScenarioAnalysisResponse> upstream = new CompletableFuture<>();
+
+        CompletableFuture<ScenarioAnalysisResponse> first = singleFlight.execute("key", () -> call(upstream));
+        CompletableFuture<ScenarioAnalysisResponse> second = singleFlight.execute("key", () -> call(upstream));
+        first.cancel(true);
+        Assertions.assertFalse(upstream.isCancelled());
+
+        second.cancel(true);
+        Assertions.assertTrue(upstream.isCancelled());
+        Assertions.assertEquals(1, singleFlight.getCancelled());
+        Assertions.assertEquals(0, singleFlight.getInFlight());
+    }
+
+    @Test
+    void testExecute_RemainingCallerStillReceivesResult() {
+        CompletableFuture<ScenarioAnalysisResponse> upstream = new CompletableFuture<>();
+
+        CompletableFuture<ScenarioAnalysisResponse> first = singleFlight.execute("key", () -> call(upstream));
+        CompletableFuture<ScenarioAnalysisResponse> second = singleFlight.execute("key", () -> call(upstream));
+        first.cancel(true);
+        ScenarioAnalysisResponse response = new ScenarioAnalysisResponse();
+        upstream.complete(response);
+
+        Assertions.assertSame(response, second.join());
+        Assertions.assertEquals(0, singleFlight.getCancelled());
+    }
+
+    @Test
+    void testExecute_CallerAfterCancellationStartsNewCall() {
+        CompletableFuture<ScenarioAnalysisResponse> upstream = new CompletableFuture<>();
+        singleFlight.execute("key", () -> call(upstream)).cancel(true);
+
+        CompletableFuture<ScenarioAnalysisResponse> retry = singleFlight.execute("key",
+                () -> call(CompletableFuture.completedFuture(new ScenarioAnalysisResponse())));
+
+        Assertions.assertNotNull(retry.join());
+        Assertions.assertEquals(2, calls.get());
+    }
+
+    private CompletableFuture<ScenarioAnalysisResponse> call(CompletableFuture<ScenarioAnalysisResponse> upstream) {
+        calls.incrementAndGet();
+        return upstream;
+    }
+}
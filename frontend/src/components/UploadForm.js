@@ -1,17 +1,62 @@
-import React, { useState } from 'react';
+import React, { useEffect, useRef, useState } from 'react';
 import "../index.css";
 import "../css/UploadForm.css";
 
+// Maps streamed section names to the fields of the analysis response
+const listFields = {
+  pitfalls_or_risks: "potentialPitfalls",
+  proposed_strategies: "proposedStrategies",
+  recommended_resources: "recommendedResources",
+};
+
+const emptyResponse = () => ({
+  scenarioSummary: "",
+  potentialPitfalls: [],
+  proposedStrategies: [],
+  recommendedResources: [],
+  disclaimer: "",
+});
+
+// Analyses already received, keyed on the request body, with the ETag to revalidate them with
+const cacheKey = (body) => "analysis:" + body;
+
+const readCached = (body) => {
+  try {
+    return JSON.parse(localStorage.getItem(cacheKey(body)));
+  } catch (e) {
+    return null;
+  }
+};
+
+const writeCached = (body, etag, analysis) => {
+  try {
+    localStorage.setItem(cacheKey(body), JSON.stringify({ etag, analysis }));
+  } catch (e) {
+    // Storage full or unavailable: the analysis is simply regenerated next time
+  }
+};
+
 const UploadForm = () => {
   const [constraintsInput, setConstraintsInput] = useState('');
   const [loading, setLoading] = useState(false);
   const [response, setResponse] = useState("");
   const [scenario, setScenario] = useState("");
   const [message, setMessage] = useState("");
+  // Aborting the request closes the connection, which stops the analysis on the backend
+  const controllerRef = useRef(null);
+
+  useEffect(() => () => controllerRef.current && controllerRef.current.abort(), []);
 
   const handleSubmit = async (e) => {
     e.preventDefault();
 
+    // A new submission replaces the analysis still being generated, if any
+    if (controllerRef.current) {
+      controllerRef.current.abort();
+    }
+    const controller = new AbortController();
+    controllerRef.current = controller;
+
     setLoading(true);
     setMessage("");
 
@@ -20,37 +65,102 @@ const UploadForm = () => {
     .map(s => s.trim())
     .filter(Boolean); // remove empty strings
    
-    // Process the form data and call backend API
-    const backendUrl = "http://localhost:8080/analyser";
-    console.log("Backend URL:", backendUrl);
+    // Process the form data and call the streaming backend API so sections render as they arrive
+    const backendUrl = "http://localhost:8080/analyser/stream";
     // const formData = new FormData();
     // formData.append('scenario', scenario);
     // formData.append('constraints', constraints);
 
+    const body = JSON.stringify({
+      "scenario": scenario,
+      "constraints": parsedConstraints
+    });
+    const cached = readCached(body);
+    const headers = {
+      'Content-Type': 'application/json',
+    };
+    if (cached && cached.etag) {
+      headers['If-None-Match'] = cached.etag;
+    }
+
     try {
       const res = await fetch(`${backendUrl}`, {
         method: 'POST',
-        headers: {
-          'Content-Type': 'application/json',
-        },
-        body: JSON.stringify({
-          "scenario": scenario,
-          "constraints": parsedConstraints
-        })
+        headers,
+        body,
+        signal: controller.signal
       });
-      // Handle the response as needed
-      const result = await res.json();
-      console.log("API response:", result);
-      if (res.ok) {
-        setLoading(false);
-        setResponse(result);
+      if (res.status === 304 && cached) {
+        // The analysis we already hold is still valid for this prompt
+        setResponse(cached.analysis);
         setMessage("Response generated successfully!");
-      } else {
+        setLoading(false);
+        return;
+      }
+      if (!res.ok || !res.body) {
         setLoading(false);
         setMessage("Failed to generate response. Please try again.");
+        return;
       }
+
+      const etag = res.headers.get("ETag");
+      setResponse(emptyResponse());
+      const reader = res.body.getReader();
+      const decoder = new TextDecoder();
+      let buffer = "";
+      while (true) {
+        const { done, value } = await reader.read();
+        if (done) break;
+        buffer += decoder.decode(value, { stream: true });
+        // Server-Sent Events are separated by a blank line
+        let boundary;
+        while ((boundary = buffer.indexOf("\n\n")) !== -1) {
+          const complete = handleEvent(buffer.slice(0, boundary));
+          if (complete && etag && !complete.fallback) {
+            writeCached(body, etag, complete);
+          }
+          buffer = buffer.slice(boundary + 2);
+        }
+      }
+      setLoading(false);
     } catch (error) {
+      if (error.name === "AbortError") {
+        return;
+      }
       console.error("Error during API call", error);
+      setLoading(false);
+    }
+  };
+
+  const handleEvent = (raw) => {
+    let event = "message";
+    const dataLines = [];
+    raw.split("\n").forEach(line => {
+      if (line.startsWith("event:")) event = line.slice(6).trim();
+      // A multi-line data field arrives as several data lines, joined back with newlines
+      else if (line.startsWith("data:")) dataLines.push(line.slice(5).replace(/^ /, ""));
+    });
+    if (dataLines.length === 0) return;
+    let payload;
+    try {
+      payload = JSON.parse(dataLines.join("\n"));
+    } catch (e) {
+      setMessage("Failed to generate response. Please try again.");
+      return;
+    }
+
+    if (event === "complete") {
+      setResponse(payload);
+      setMessage("Response generated successfully!");
+      return payload;
+    } else if (event === "error") {
+      setMessage("Failed to generate response. Please try again.");
+    } else if (event === "summary" || event === "disclaimer") {
+      const field = event === "summary" ? "scenarioSummary" : "disclaimer";
+      setResponse(prev => ({ ...prev, [field]: payload.value }));
+    } else if (listFields[event]) {
+      const field = listFields[event];
+      setResponse(prev => ({ ...prev, [field]: [...prev[field], payload.item] }));
     }
   };
 